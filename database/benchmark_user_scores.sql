@@ -0,0 +1,109 @@
+-- Benchmark: plain vs hash partitioned user_scores
+--
+-- Builds both layouts side by side in a scratch schema with the same data, then measures
+-- single-row upsert latency (the score write path) and top N latency (the storage fallback
+-- read path). Everything lives in the user_scores_bench schema, which is dropped at the end.
+--
+-- Usage:
+--   psql -d leaderboard_db -v rows=5000000 -v boards=2000 -v samples=2000 -f benchmark_user_scores.sql
+--
+-- Compare the per-operation averages printed by the NOTICE lines; the EXPLAIN output shows
+-- the partitioned top N query touching a single partition.
+
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+    \set rows 1000000
+\endif
+\if :{?boards}
+\else
+    \set boards 1000
+\endif
+\if :{?samples}
+\else
+    \set samples 1000
+\endif
+
+DROP SCHEMA IF EXISTS user_scores_bench CASCADE;
+CREATE SCHEMA user_scores_bench;
+SET search_path TO user_scores_bench;
+
+CREATE TABLE plain (
+    user_id VARCHAR(255) NOT NULL,
+    leaderboard_id VARCHAR(255) NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, leaderboard_id)
+);
+
+CREATE TABLE partitioned (
+    user_id VARCHAR(255) NOT NULL,
+    leaderboard_id VARCHAR(255) NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, leaderboard_id)
+) PARTITION BY HASH (leaderboard_id);
+
+SELECT format('CREATE TABLE partitioned_p%s PARTITION OF partitioned FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+    lpad(i::text, 2, '0'), i)
+FROM generate_series(0, 15) AS i
+\gexec
+
+\echo 'Loading' :rows 'rows over' :boards 'boards into both tables...'
+INSERT INTO plain (user_id, leaderboard_id, score, timestamp)
+SELECT 'user-' || n, 'board-' || (n % :boards), floor(random() * 1000000), now() - random() * interval '30 days'
+FROM generate_series(1, :rows) AS n;
+INSERT INTO partitioned SELECT * FROM plain;
+
+CREATE INDEX ON plain(leaderboard_id, user_id);
+CREATE INDEX ON plain(timestamp);
+CREATE INDEX ON plain(leaderboard_id, score DESC, timestamp ASC);
+CREATE INDEX ON partitioned(leaderboard_id, user_id);
+CREATE INDEX ON partitioned(timestamp);
+CREATE INDEX ON partitioned(leaderboard_id, score DESC, timestamp ASC);
+ANALYZE plain;
+ANALYZE partitioned;
+
+-- Average latency of single-row upserts, the statement shape the application's saveAll issues
+CREATE FUNCTION time_upserts(target text, samples int, boards int) RETURNS void AS $$
+DECLARE
+    started timestamptz := clock_timestamp();
+BEGIN
+    FOR i IN 1..samples LOOP
+        EXECUTE format('INSERT INTO %I (user_id, leaderboard_id, score, timestamp) VALUES ($1, $2, $3, now()) '
+            || 'ON CONFLICT (user_id, leaderboard_id) DO UPDATE SET score = EXCLUDED.score, timestamp = EXCLUDED.timestamp',
+            target)
+        USING 'bench-user-' || (random() * 100000)::int, 'board-' || (random() * (boards - 1))::int, random() * 1000000;
+    END LOOP;
+    RAISE NOTICE '% upsert: % us/op', target,
+        round(extract(epoch FROM clock_timestamp() - started) * 1000000 / samples);
+END $$ LANGUAGE plpgsql;
+
+-- Average latency of the storage fallback top N query
+CREATE FUNCTION time_top_n(target text, samples int, boards int) RETURNS void AS $$
+DECLARE
+    started timestamptz := clock_timestamp();
+BEGIN
+    FOR i IN 1..samples LOOP
+        EXECUTE format('SELECT user_id, score, timestamp FROM %I WHERE leaderboard_id = $1 '
+            || 'ORDER BY score DESC, timestamp ASC LIMIT 100', target)
+        USING 'board-' || (random() * (boards - 1))::int;
+    END LOOP;
+    RAISE NOTICE '% top 100: % us/op', target,
+        round(extract(epoch FROM clock_timestamp() - started) * 1000000 / samples);
+END $$ LANGUAGE plpgsql;
+
+-- Warm up both tables, then measure
+SELECT time_top_n('plain', :samples, :boards), time_top_n('partitioned', :samples, :boards);
+SELECT time_upserts('plain', :samples, :boards);
+SELECT time_upserts('partitioned', :samples, :boards);
+SELECT time_top_n('plain', :samples, :boards);
+SELECT time_top_n('partitioned', :samples, :boards);
+
+-- Pruning check: only one partition should appear in the plan
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT user_id, score, timestamp FROM partitioned WHERE leaderboard_id = 'board-1'
+ORDER BY score DESC, timestamp ASC LIMIT 100;
+
+RESET search_path;
+DROP SCHEMA user_scores_bench CASCADE;
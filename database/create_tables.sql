@@ -23,9 +23,17 @@ CREATE TABLE IF NOT EXISTS leaderboards (
     start_time TIMESTAMP,
     end_time TIMESTAMP,
     status VARCHAR(50) NOT NULL,
-    metadata JSONB
+    metadata JSONB,
+    windows JSONB,
+    histogram JSONB,
+    pod_aggregate BOOLEAN
 );
 
+-- Columns added after the table was first released; CREATE TABLE IF NOT EXISTS skips existing tables
+ALTER TABLE leaderboards ADD COLUMN IF NOT EXISTS windows JSONB;
+ALTER TABLE leaderboards ADD COLUMN IF NOT EXISTS histogram JSONB;
+ALTER TABLE leaderboards ADD COLUMN IF NOT EXISTS pod_aggregate BOOLEAN;
+
 -- Indexes for leaderboards table
 CREATE UNIQUE INDEX IF NOT EXISTS idx_leaderboard_uuid ON leaderboards(uuid);
 CREATE UNIQUE INDEX IF NOT EXISTS idx_leaderboard_leaderboard_id ON leaderboards(leaderboard_id);
@@ -34,19 +42,86 @@ CREATE INDEX IF NOT EXISTS idx_leaderboard_pod_id ON leaderboards(pod_id);
 -- ============================================
 -- USER_SCORES TABLE
 -- ============================================
+-- Hash partitioned on leaderboard_id: every board lives in exactly one partition, so vacuum,
+-- index maintenance and locks stay proportional to a partition rather than to all boards.
+-- Every application query filters on leaderboard_id and is pruned to that one partition.
+-- Hibernate cannot create partitioned tables; with this schema run the application with
+-- SPRING_JPA_HIBERNATE_DDL_AUTO=validate (or none). Existing databases are converted with
+-- partition_user_scores.sql.
 CREATE TABLE IF NOT EXISTS user_scores (
     user_id VARCHAR(255) NOT NULL,
     leaderboard_id VARCHAR(255) NOT NULL,
     score DOUBLE PRECISION NOT NULL,
     timestamp TIMESTAMP NOT NULL,
     PRIMARY KEY (user_id, leaderboard_id)
-);
+) PARTITION BY HASH (leaderboard_id);
+
+-- 16 partitions; the modulus can only be changed by repartitioning, so size it for growth
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS user_scores_p%s PARTITION OF user_scores FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
 
--- Indexes for user_scores table
+-- Indexes for user_scores table (created on every partition)
 CREATE INDEX IF NOT EXISTS idx_user_score_leaderboard_user ON user_scores(leaderboard_id, user_id);
 CREATE INDEX IF NOT EXISTS idx_user_score_timestamp ON user_scores(timestamp);
 CREATE INDEX IF NOT EXISTS idx_user_score_leaderboard_score ON user_scores(leaderboard_id, score DESC, timestamp ASC);
 
+-- ============================================
+-- USER_SCORE_RANKS TABLE
+-- ============================================
+-- Materialized ranking per leaderboard, rebuilt with ROW_NUMBER() by the rank refresh job for
+-- boards whose scores changed. Serves rank and top N reads while Redis is unavailable.
+CREATE TABLE IF NOT EXISTS user_score_ranks (
+    leaderboard_id VARCHAR(255) NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    rank INTEGER NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (leaderboard_id, user_id)
+) PARTITION BY HASH (leaderboard_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS user_score_ranks_p%s PARTITION OF user_score_ranks FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+            lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_user_score_rank_position ON user_score_ranks(leaderboard_id, rank);
+
+-- When each board's ranking was last rebuilt; readers use it to bound staleness
+CREATE TABLE IF NOT EXISTS user_score_rank_refreshes (
+    leaderboard_id VARCHAR(255) PRIMARY KEY,
+    total_users BIGINT NOT NULL,
+    refreshed_at TIMESTAMP NOT NULL
+);
+
+-- Claim and watermark of the rank refresh job, shared by all instances
+CREATE TABLE IF NOT EXISTS rank_refresh_cycles (
+    job_name VARCHAR(255) PRIMARY KEY,
+    changed_since TIMESTAMP NOT NULL,
+    claimed_at TIMESTAMP NOT NULL
+);
+
+-- ============================================
+-- LEADERBOARD_SNAPSHOTS TABLE
+-- ============================================
+-- Final ranking of each archived leaderboard in the binary snapshot format, written once by the
+-- archival job in the same transaction that marks the leaderboard ARCHIVED.
+CREATE TABLE IF NOT EXISTS leaderboard_snapshots (
+    leaderboard_id VARCHAR(255) PRIMARY KEY,
+    total_users INTEGER NOT NULL,
+    data BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
 -- ============================================
 -- VERIFICATION
 -- ============================================
@@ -58,13 +133,18 @@ FROM
     information_schema.tables
 WHERE 
     table_schema = 'public'
-    AND table_name IN ('leaderboards', 'user_scores')
+    AND table_name IN ('leaderboards', 'user_scores', 'user_score_ranks', 'user_score_rank_refreshes',
+                       'rank_refresh_cycles', 'leaderboard_snapshots')
 ORDER BY 
     table_name;
 
 -- Display table structures
 \d leaderboards
 \d user_scores
+\d user_score_ranks
+\d user_score_rank_refreshes
+\d rank_refresh_cycles
+\d leaderboard_snapshots
 
 -- Success message
 \echo 'Tables created successfully!'
@@ -0,0 +1,80 @@
+-- Migration: convert user_scores into a table hash partitioned on leaderboard_id
+--
+-- The new table is built and filled next to the old one, then swapped in by renaming,
+-- all in one transaction. Writes to user_scores block while the data is copied, so run
+-- it in a maintenance window or with the application stopped; reads keep working until
+-- the final rename. The old table is kept as user_scores_unpartitioned for rollback.
+--
+-- Usage:
+--   psql -h <server-name>.postgres.database.azure.com \
+--        -U <username>@<server-name> \
+--        -d leaderboard_db \
+--        -v partitions=16 \
+--        -f partition_user_scores.sql
+--
+-- Rollback (before the old table is dropped):
+--   BEGIN;
+--   ALTER TABLE user_scores RENAME TO user_scores_partitioned;
+--   ALTER TABLE user_scores_unpartitioned RENAME TO user_scores;
+--   COMMIT;
+--   (then rename the indexes and primary key constraints back the same way)
+
+\set ON_ERROR_STOP on
+\if :{?partitions}
+\else
+    \set partitions 16
+\endif
+
+BEGIN;
+
+-- Block writers so no row is missed between the copy and the swap
+LOCK TABLE user_scores IN SHARE MODE;
+
+CREATE TABLE user_scores_partitioned (
+    user_id VARCHAR(255) NOT NULL,
+    leaderboard_id VARCHAR(255) NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, leaderboard_id)
+) PARTITION BY HASH (leaderboard_id);
+
+SELECT format(
+    'CREATE TABLE user_scores_p%s PARTITION OF user_scores_partitioned FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+    lpad(i::text, 2, '0'), :partitions, i)
+FROM generate_series(0, :partitions - 1) AS i
+\gexec
+
+-- Loading before indexing is faster than maintaining the indexes row by row
+INSERT INTO user_scores_partitioned (user_id, leaderboard_id, score, timestamp)
+SELECT user_id, leaderboard_id, score, timestamp FROM user_scores;
+
+-- Index names must be unique per schema, so the old ones move aside first
+ALTER INDEX IF EXISTS idx_user_score_leaderboard_user RENAME TO idx_user_score_leaderboard_user_unpartitioned;
+ALTER INDEX IF EXISTS idx_user_score_timestamp RENAME TO idx_user_score_timestamp_unpartitioned;
+ALTER INDEX IF EXISTS idx_user_score_leaderboard_score RENAME TO idx_user_score_leaderboard_score_unpartitioned;
+
+CREATE INDEX idx_user_score_leaderboard_user ON user_scores_partitioned(leaderboard_id, user_id);
+CREATE INDEX idx_user_score_timestamp ON user_scores_partitioned(timestamp);
+CREATE INDEX idx_user_score_leaderboard_score ON user_scores_partitioned(leaderboard_id, score DESC, timestamp ASC);
+
+ALTER TABLE user_scores RENAME CONSTRAINT user_scores_pkey TO user_scores_unpartitioned_pkey;
+ALTER TABLE user_scores RENAME TO user_scores_unpartitioned;
+ALTER TABLE user_scores_partitioned RENAME TO user_scores;
+ALTER TABLE user_scores RENAME CONSTRAINT user_scores_partitioned_pkey TO user_scores_pkey;
+
+COMMIT;
+
+ANALYZE user_scores;
+
+-- Row counts must match before the old table is dropped
+SELECT
+    (SELECT count(*) FROM user_scores) AS partitioned_rows,
+    (SELECT count(*) FROM user_scores_unpartitioned) AS unpartitioned_rows;
+
+-- Rows per partition
+SELECT tableoid::regclass AS partition, count(*) AS rows
+FROM user_scores
+GROUP BY tableoid
+ORDER BY partition;
+
+\echo 'user_scores is now partitioned. Drop user_scores_unpartitioned once the application is verified.'
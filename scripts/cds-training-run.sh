@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Create the AppCDS archive (target/app.jsa) for the AOT build.
+#
+#   mvn -Paot package
+#   docker-compose up -d        # training run should reach Postgres and Redis like a real start
+#   scripts/cds-training-run.sh
+#
+# The training run starts the AOT-processed context and exits right after refresh
+# (spring.context.exit=onRefresh); the JVM then dumps every class it loaded into the archive.
+# Start the application with the same classpath (target/cds-classpath) and
+# -XX:SharedArchiveFile=target/app.jsa, see scripts/startup-benchmark.sh.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+APP_JAR=$(ls target/leaderboard-platform-*.jar 2>/dev/null | grep -v -- '-exec.jar$' | head -n 1 || true)
+if [[ -z "$APP_JAR" || ! -d target/dependency ]]; then
+    echo "AOT build not found, run: mvn -Paot package" >&2
+    exit 1
+fi
+
+# CDS only accepts a classpath identical to the one the archive was created with,
+# so it is spelled out once in a fixed order and reused at startup
+CLASSPATH_FILE=target/cds-classpath
+{ echo -n "$APP_JAR"; ls target/dependency/*.jar | sort | sed 's/^/:/' | tr -d '\n'; } > "$CLASSPATH_FILE"
+
+rm -f target/app.jsa
+java -XX:ArchiveClassesAtExit=target/app.jsa \
+    -Dspring.aot.enabled=true \
+    -Dspring.context.exit=onRefresh \
+    -cp "$(cat "$CLASSPATH_FILE")" \
+    com.leaderboard.platform.LeaderboardPlatformApplication
+
+echo "Created target/app.jsa ($(du -h target/app.jsa | cut -f1))"
@@ -0,0 +1,89 @@
+#!/usr/bin/env bash
+# Startup benchmark: time from process launch to the first successful top N request.
+#
+#   mvn -Paot package && scripts/cds-training-run.sh
+#   docker-compose up -d
+#   scripts/startup-benchmark.sh [runs]
+#
+# Variants, all from the same AOT build:
+#   jar       java -jar on the executable jar, regular context startup
+#   aot       flat classpath with the AOT-generated bean definitions (spring.aot.enabled)
+#   aot-cds   aot plus the AppCDS archive from scripts/cds-training-run.sh
+#   native    target/leaderboard-platform if built with mvn -Pnative native:compile
+# Variants whose artifacts are missing are skipped. Prints min and median milliseconds per variant.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${BENCHMARK_PORT:-18080}
+UUID=startup-benchmark
+BASE_URL="http://localhost:$PORT/api/v1/leaderboards"
+TIMEOUT_SECONDS=120
+
+EXEC_JAR=$(ls target/leaderboard-platform-*-exec.jar 2>/dev/null | head -n 1 || true)
+MAIN_CLASS=com.leaderboard.platform.LeaderboardPlatformApplication
+
+variant_command() {
+    case "$1" in
+        jar)
+            [[ -n "$EXEC_JAR" ]] && echo "java -jar $EXEC_JAR" ;;
+        aot)
+            [[ -f target/cds-classpath ]] && echo "java -Dspring.aot.enabled=true -cp $(cat target/cds-classpath) $MAIN_CLASS" ;;
+        aot-cds)
+            [[ -f target/app.jsa ]] && echo "java -XX:SharedArchiveFile=target/app.jsa -Dspring.aot.enabled=true -cp $(cat target/cds-classpath) $MAIN_CLASS" ;;
+        native)
+            [[ -x target/leaderboard-platform ]] && echo "target/leaderboard-platform" ;;
+    esac
+    return 0
+}
+
+now_millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Launch the command and print the milliseconds until the first 2xx answer of the top N endpoint
+time_to_first_request() {
+    local command=$1
+    local start pid elapsed
+    start=$(now_millis)
+    SERVER_PORT=$PORT $command > target/startup-benchmark.log 2>&1 &
+    pid=$!
+    
+    until curl -sf -o /dev/null "$BASE_URL/$UUID/top?limit=1"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Application exited, see target/startup-benchmark.log" >&2
+            exit 1
+        fi
+        if (( $(now_millis) - start > TIMEOUT_SECONDS * 1000 )); then
+            kill "$pid"
+            echo "No successful request within ${TIMEOUT_SECONDS}s, see target/startup-benchmark.log" >&2
+            exit 1
+        fi
+        # The first run has to create the benchmark leaderboard once the API answers
+        curl -sf -o /dev/null -X POST "$BASE_URL/create" -H 'Content-Type: application/json' \
+            -d "{\"uuid\":\"$UUID\",\"podId\":\"$UUID\"}" || true
+        sleep 0.05
+    done
+    elapsed=$(( $(now_millis) - start ))
+    
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+printf "%-10s %8s %8s\n" variant min_ms median_ms
+for variant in jar aot aot-cds native; do
+    command=$(variant_command "$variant")
+    if [[ -z "$command" ]]; then
+        printf "%-10s %8s %8s\n" "$variant" - -
+        continue
+    fi
+    
+    timings=()
+    for ((run = 0; run < RUNS; run++)); do
+        timings+=("$(time_to_first_request "$command")")
+    done
+    sorted=($(printf "%s\n" "${timings[@]}" | sort -n))
+    printf "%-10s %8s %8s\n" "$variant" "${sorted[0]}" "${sorted[$((RUNS / 2))]}"
+done
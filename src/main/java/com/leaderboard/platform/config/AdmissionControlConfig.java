@@ -0,0 +1,71 @@
+package com.leaderboard.platform.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Sheds API load when Redis or Postgres slows down. Reads and writes get separate adaptive limits
+ * on concurrent requests, so slow writes cannot starve reads of threads or the other way round,
+ * and requests beyond a limit are answered at once with 503 and Retry-After instead of queueing
+ * for a request thread. Paths outside /api, such as health checks, are never limited.
+ */
+@Configuration
+public class AdmissionControlConfig implements WebMvcConfigurer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlConfig.class);
+    
+    // Decided at runtime rather than with a condition, so AOT builds can still switch it off
+    @Value("${leaderboard.admission.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${leaderboard.admission.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+    
+    // Share of the limit kept after a slow or failed response
+    @Value("${leaderboard.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+    
+    @Value("${leaderboard.admission.read.initial-limit:50}")
+    private int readInitialLimit;
+    
+    @Value("${leaderboard.admission.read.min-limit:5}")
+    private int readMinLimit;
+    
+    @Value("${leaderboard.admission.read.max-limit:150}")
+    private int readMaxLimit;
+    
+    @Value("${leaderboard.admission.read.latency-threshold-ms:250}")
+    private long readLatencyThresholdMs;
+    
+    @Value("${leaderboard.admission.write.initial-limit:20}")
+    private int writeInitialLimit;
+    
+    @Value("${leaderboard.admission.write.min-limit:2}")
+    private int writeMinLimit;
+    
+    @Value("${leaderboard.admission.write.max-limit:50}")
+    private int writeMaxLimit;
+    
+    @Value("${leaderboard.admission.write.latency-threshold-ms:500}")
+    private long writeLatencyThresholdMs;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        
+        AimdConcurrencyLimiter readLimiter = new AimdConcurrencyLimiter("read", readInitialLimit, readMinLimit,
+            readMaxLimit, readLatencyThresholdMs, backoffRatio);
+        AimdConcurrencyLimiter writeLimiter = new AimdConcurrencyLimiter("write", writeInitialLimit, writeMinLimit,
+            writeMaxLimit, writeLatencyThresholdMs, backoffRatio);
+        registry.addInterceptor(new AdmissionControlInterceptor(readLimiter, writeLimiter, retryAfterSeconds))
+            .addPathPatterns("/api/**");
+        logger.info("Admission control enabled: reads {}-{} concurrent, writes {}-{} concurrent",
+            readMinLimit, readMaxLimit, writeMinLimit, writeMaxLimit);
+    }
+}
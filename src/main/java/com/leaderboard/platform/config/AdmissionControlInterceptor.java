@@ -0,0 +1,141 @@
+package com.leaderboard.platform.config;
+
+import com.leaderboard.platform.exception.ServiceOverloadedException;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits API requests through the read or the write limiter, and rejects them at once with a
+ * ServiceOverloadedException when its limit is reached. Streamed responses keep their slot until
+ * the asynchronous response completes, so long exports still count against the read limit.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+    
+    private static final String ADMISSION_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".admission";
+    
+    private final AimdConcurrencyLimiter readLimiter;
+    private final AimdConcurrencyLimiter writeLimiter;
+    private final long retryAfterSeconds;
+    
+    public AdmissionControlInterceptor(AimdConcurrencyLimiter readLimiter, AimdConcurrencyLimiter writeLimiter,
+            long retryAfterSeconds) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Asynchronous and error dispatches belong to a request that was already admitted
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        
+        AimdConcurrencyLimiter limiter = isWrite(request) ? writeLimiter : readLimiter;
+        if (!limiter.tryAcquire()) {
+            throw new ServiceOverloadedException("Too many concurrent " + limiter.getName()
+                + " requests, retry later", retryAfterSeconds);
+        }
+        request.setAttribute(ADMISSION_ATTRIBUTE, new Admission(limiter, System.nanoTime()));
+        return true;
+    }
+    
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Admission admission = takeAdmission(request);
+        if (admission == null) {
+            return;
+        }
+        if (!request.isAsyncStarted()) {
+            admission.limiter.releaseWithoutSample();
+            return;
+        }
+        request.getAsyncContext().addListener(new AsyncRelease(admission.limiter));
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Admission admission = takeAdmission(request);
+        if (admission != null) {
+            admission.limiter.release(System.nanoTime() - admission.startedNanos,
+                ex != null || response.getStatus() >= 500);
+        }
+    }
+    
+    /**
+     * Score updates and leaderboard changes write; everything else, including the POST lookups
+     * of ranks and subsets, only reads.
+     */
+    static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return false;
+        }
+        String uri = request.getRequestURI();
+        return !("POST".equals(method) && (uri.endsWith("/ranks") || uri.endsWith("/subset")));
+    }
+    
+    private static Admission takeAdmission(HttpServletRequest request) {
+        Admission admission = (Admission) request.getAttribute(ADMISSION_ATTRIBUTE);
+        if (admission != null) {
+            request.removeAttribute(ADMISSION_ATTRIBUTE);
+        }
+        return admission;
+    }
+    
+    /**
+     * Releases a streamed response's slot once it completes, fails or times out. Its duration
+     * depends on how fast the client downloads, so it is not fed to the limit.
+     */
+    private static final class AsyncRelease implements AsyncListener {
+        private final AimdConcurrencyLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        private AsyncRelease(AimdConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Listeners are dropped when a request goes asynchronous again
+            event.getAsyncContext().addListener(this);
+        }
+        
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                limiter.releaseWithoutSample();
+            }
+        }
+    }
+    
+    private static final class Admission {
+        private final AimdConcurrencyLimiter limiter;
+        private final long startedNanos;
+        
+        private Admission(AimdConcurrencyLimiter limiter, long startedNanos) {
+            this.limiter = limiter;
+            this.startedNanos = startedNanos;
+        }
+    }
+}
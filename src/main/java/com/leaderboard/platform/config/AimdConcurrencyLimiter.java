@@ -0,0 +1,90 @@
+package com.leaderboard.platform.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits concurrent requests with additive increase, multiplicative decrease driven by latency.
+ * Fast successes while the limit is in use grow it by about one request per limit's worth of
+ * requests; a response slower than the latency threshold, or a failed one, multiplies it by the
+ * backoff ratio, at most once per threshold so one slowdown seen by every request in flight
+ * counts once.
+ */
+public class AimdConcurrencyLimiter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AimdConcurrencyLimiter.class);
+    
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+    
+    public AimdConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+            long latencyThresholdMillis, double backoffRatio) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos - 1;
+    }
+    
+    /**
+     * Take a slot, or return false when the limit is reached. Every slot taken must be released.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+    
+    /**
+     * Release a slot and adjust the limit to how the request went.
+     */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        inFlight--;
+        long now = System.nanoTime();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            if (now - lastDecreaseNanos > latencyThresholdNanos) {
+                lastDecreaseNanos = now;
+                double decreased = Math.max(minLimit, limit * backoffRatio);
+                if ((int) decreased != (int) limit) {
+                    logger.debug("Concurrency limit of {} lowered to {}", name, (int) decreased);
+                }
+                limit = decreased;
+            }
+        } else if (inFlight * 2 >= (int) limit) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+    
+    /**
+     * Release a slot without adjusting the limit, e.g. for a request whose latency says nothing
+     * about the backends.
+     */
+    public synchronized void releaseWithoutSample() {
+        inFlight--;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+    
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,83 @@
+package com.leaderboard.platform.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Postgres connection pools. The primary pool is configured under spring.datasource as before.
+ * When spring.datasource.replica.url is set, a second pool sized under
+ * spring.datasource.replica.hikari serves read-only transactions through
+ * {@link ReplicaRoutingDataSource}; each pool reports its own metrics under its pool name.
+ * Whether a replica is used is decided when the context starts, not by bean conditions, so an
+ * AOT-processed build keeps honouring the setting.
+ */
+@Configuration
+public class DataSourceConfig {
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    /**
+     * Hikari only opens connections on first use, so the pool stays idle when no replica is configured.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${spring.datasource.replica.url:}") String url,
+            @Value("${spring.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${spring.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .driverClassName(properties.determineDriverClassName())
+            .url(url)
+            .username(username)
+            .password(password)
+            .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+    
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+            @Value("${spring.datasource.replica.url:}") String replicaUrl,
+            @Value("${spring.datasource.replica.max-lag-ms:1000}") long maxLagMillis,
+            @Value("${spring.datasource.replica.lag-check-ms:500}") long lagCheckMillis) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaUrl.isBlank() ? null : replicaDataSource,
+            maxLagMillis, lagCheckMillis);
+    }
+    
+    /**
+     * The DataSource used by JPA and JdbcTemplate: the primary pool alone, or the routing data
+     * source when a replica is configured. Connections are fetched on the first statement, once
+     * the transaction's read-only flag is known.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            ReplicaRoutingDataSource replicaRoutingDataSource) {
+        if (!replicaRoutingDataSource.hasReplica()) {
+            return primaryDataSource;
+        }
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,117 @@
+package com.leaderboard.platform.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes the connections of read-only transactions to the Postgres replica while its replay lag
+ * is within the configured bound, and all other connections to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy: a transaction is only marked read-only once it
+ * has begun, after the JPA transaction manager would otherwise have fetched its connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    // Milliseconds the replica's replayed state trails the primary; 0 once everything received has
+    // been replayed, NULL if it has never replayed a transaction
+    private static final String REPLICATION_LAG_QUERY =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+    
+    enum Target { PRIMARY, REPLICA }
+    
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final long lagCheckMillis;
+    // Reads stay on the primary until the first lag check passes
+    private volatile boolean replicaFresh;
+    private ScheduledExecutorService lagMonitor;
+    
+    /**
+     * @param replica the replica pool, or null to route everything to the primary
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagMillis, long lagCheckMillis) {
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+        this.lagCheckMillis = lagCheckMillis;
+        setTargetDataSources(replica != null
+            ? Map.of(Target.PRIMARY, primary, Target.REPLICA, replica)
+            : Map.of(Target.PRIMARY, primary));
+        setDefaultTargetDataSource(primary);
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (replica == null) {
+            return;
+        }
+        lagMonitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "postgres-replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagMonitor.scheduleWithFixedDelay(this::checkReplicationLag, 0, lagCheckMillis, TimeUnit.MILLISECONDS);
+        logger.info("Routing read-only transactions to the Postgres replica (max lag {}ms)", maxLagMillis);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return replicaFresh && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            ? Target.REPLICA
+            : Target.PRIMARY;
+    }
+    
+    public boolean hasReplica() {
+        return replica != null;
+    }
+    
+    public boolean isReplicaFresh() {
+        return replicaFresh;
+    }
+    
+    /**
+     * Measure the replica's replay lag. Staleness seen by a read is bounded by the measured lag
+     * plus one check interval; an unreachable replica counts as stale.
+     */
+    void checkReplicationLag() {
+        boolean fresh;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(REPLICATION_LAG_QUERY)) {
+            fresh = rs.next() && rs.getDouble(1) <= maxLagMillis && !rs.wasNull();
+        } catch (SQLException e) {
+            fresh = false;
+        }
+        
+        if (fresh != replicaFresh) {
+            if (fresh) {
+                logger.info("Postgres replica is serving read-only transactions");
+            } else {
+                logger.warn("Postgres replica lags beyond {}ms or is unreachable, reading from primary", maxLagMillis);
+            }
+        }
+        replicaFresh = fresh;
+    }
+    
+    @Override
+    public void destroy() {
+        if (lagMonitor != null) {
+            lagMonitor.shutdownNow();
+        }
+    }
+}
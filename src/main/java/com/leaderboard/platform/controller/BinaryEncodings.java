@@ -0,0 +1,55 @@
+package com.leaderboard.platform.controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Content negotiation for the compact binary encodings (CBOR, Smile). JSON stays the default:
+ * a binary encoding is only chosen when the Accept header names it and prefers it over JSON.
+ */
+final class BinaryEncodings {
+    
+    static final MediaType APPLICATION_SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    
+    private static final List<MediaType> BINARY_TYPES = List.of(MediaType.APPLICATION_CBOR, APPLICATION_SMILE);
+    
+    private BinaryEncodings() {
+    }
+    
+    /**
+     * The binary media type to answer with, or null to answer with JSON.
+     */
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+        
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        // Stable sort: equally weighted types keep the client's order
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        
+        for (MediaType mediaType : accepted) {
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                continue;
+            }
+            for (MediaType binaryType : BINARY_TYPES) {
+                if (binaryType.isCompatibleWith(mediaType)) {
+                    return binaryType;
+                }
+            }
+            if (MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -1,49 +1,84 @@
 package com.leaderboard.platform.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leaderboard.platform.dto.CompactTopNResponse;
+import com.leaderboard.platform.dto.CompactUpdateScoreResponse;
+import com.leaderboard.platform.dto.ScoreDistributionResponse;
+import com.leaderboard.platform.dto.SubsetRankingResponse;
 import com.leaderboard.platform.dto.TopNResponse;
 import com.leaderboard.platform.dto.UpdateScoreRequest;
 import com.leaderboard.platform.dto.UpdateScoreResponse;
+import com.leaderboard.platform.dto.UpdateScoresRequest;
+import com.leaderboard.platform.dto.UpdateScoresResponse;
+import com.leaderboard.platform.dto.UserIdsRequest;
+import com.leaderboard.platform.dto.UserRanksResponse;
+import com.leaderboard.platform.exception.InvalidRequestException;
+import com.leaderboard.platform.model.HistogramSpec;
+import com.leaderboard.platform.model.Leaderboard;
 import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.TopNPage;
 import com.leaderboard.platform.model.UserScore;
 import com.leaderboard.platform.service.LeaderboardService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/leaderboards")
 public class LeaderboardController {
     
     private static final Logger logger = LoggerFactory.getLogger(LeaderboardController.class);
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
     
     private final LeaderboardService leaderboardService;
+    private final ObjectMapper objectMapper;
+    
+    // JSON top N pages of at least this many users are streamed instead of built as a DTO list
+    @Value("${leaderboard.streaming.min-limit:1000}")
+    private int streamingMinLimit;
     
     @Autowired
-    public LeaderboardController(LeaderboardService leaderboardService) {
+    public LeaderboardController(LeaderboardService leaderboardService, ObjectMapper objectMapper) {
         this.leaderboardService = leaderboardService;
+        this.objectMapper = objectMapper;
     }
     
     /**
      * Update user score in a leaderboard.
      * PUT /api/v1/leaderboards/{uuid}/users/{userId}
+     * Retries carrying the same Idempotency-Key header get the original result back.
      */
     @PutMapping("/{uuid}/users/{userId}")
-    public ResponseEntity<UpdateScoreResponse> updateScore(
+    public ResponseEntity<?> updateScore(
             @PathVariable String uuid,
             @PathVariable String userId,
-            @Valid @RequestBody UpdateScoreRequest request) {
+            @Valid @RequestBody UpdateScoreRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
         
         logger.info("Received PUT request to update score - UUID: {}, userId: {}, score: {}", 
             uuid, userId, request.getScore());
         
         try {
-            UserScore userScore = leaderboardService.updateScore(uuid, userId, request.getScore());
+            UserScore userScore = leaderboardService.updateScore(uuid, userId, request.getScore(), idempotencyKey);
             
             UpdateScoreResponse response = UpdateScoreResponse.builder()
                 .uuid(uuid)
@@ -56,6 +91,10 @@ public class LeaderboardController {
             logger.info("Successfully updated score - UUID: {}, userId: {}, score: {}, rank: {}", 
                 uuid, userId, userScore.getScore(), userScore.getRank());
             
+            MediaType binaryType = BinaryEncodings.negotiate(accept);
+            if (binaryType != null) {
+                return ResponseEntity.ok().contentType(binaryType).body(CompactUpdateScoreResponse.from(response));
+            }
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             logger.error("Error updating score - UUID: {}, userId: {}, score: {}, error: {}", 
@@ -64,39 +103,325 @@ public class LeaderboardController {
         }
     }
     
+    /**
+     * Apply one score to several leaderboards in a single request.
+     * POST /api/v1/leaderboards/scores
+     */
+    @PostMapping("/scores")
+    public ResponseEntity<UpdateScoresResponse> updateScores(@Valid @RequestBody UpdateScoresRequest request) {
+        
+        logger.info("Received POST request to update scores - UUIDs: {}, userId: {}, score: {}", 
+            request.getUuids(), request.getUserId(), request.getScore());
+        
+        try {
+            List<UserScore> userScores = leaderboardService.updateScores(
+                request.getUuids(), request.getUserId(), request.getScore());
+            
+            // Scores come back in request order with duplicate UUIDs removed
+            List<String> uuids = request.getUuids().stream().distinct().toList();
+            Instant updatedAt = Instant.now();
+            List<UpdateScoreResponse> results = new ArrayList<>(userScores.size());
+            for (int i = 0; i < userScores.size(); i++) {
+                UserScore userScore = userScores.get(i);
+                results.add(UpdateScoreResponse.builder()
+                    .uuid(uuids.get(i))
+                    .userId(userScore.getUserId())
+                    .score(userScore.getScore())
+                    .rank(userScore.getRank())
+                    .updatedAt(updatedAt)
+                    .build());
+            }
+            
+            UpdateScoresResponse response = UpdateScoresResponse.builder()
+                .userId(request.getUserId())
+                .score(request.getScore())
+                .results(results)
+                .updatedAt(updatedAt)
+                .build();
+            
+            logger.info("Successfully updated scores - userId: {}, leaderboards: {}", request.getUserId(), results.size());
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error updating scores - UUIDs: {}, userId: {}, error: {}", 
+                request.getUuids(), request.getUserId(), e.getMessage(), e);
+            throw e;
+        }
+    }
+    
     /**
      * Get top N users from a leaderboard.
-     * GET /api/v1/leaderboards/{uuid}/top?limit=N
+     * GET /api/v1/leaderboards/{uuid}/top?limit=N&window=daily|weekly|all-time
+     * The page, totalUsers and the ETag come from one consistent read. Answers 304 Not Modified
+     * when If-None-Match carries the current version of the leaderboard or window bucket, and with a columnar CBOR or
+     * Smile body when the Accept header prefers one of them.
      */
     @GetMapping("/{uuid}/top")
-    public ResponseEntity<TopNResponse> getTopN(
+    public ResponseEntity<?> getTopN(
             @PathVariable String uuid,
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String window,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest,
+            HttpServletResponse servletResponse) {
         
-        logger.info("Received GET request for top N users - UUID: {}, limit: {}", uuid, limit);
+        logger.info("Received GET request for top N users - UUID: {}, limit: {}, window: {}", uuid, limit, window);
         
         try {
-            List<RankedUser> rankedUsers = leaderboardService.getTopN(uuid, limit);
+            // Only conditional requests pay for the separate version lookup
+            if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null && isNotModified(uuid, window, webRequest)) {
+                return null;
+            }
+            
+            TopNPage page = leaderboardService.getTopNPage(uuid, limit, window);
+            if (page.getVersion() != null) {
+                // Replaces the ETag of the version lookup: the body must match the version it was read at
+                servletResponse.setHeader(HttpHeaders.ETAG, weakETag(page.getVersion()));
+            }
+            
+            MediaType binaryType = BinaryEncodings.negotiate(accept);
+            if (binaryType == null && limit >= streamingMinLimit) {
+                return streamTopN(uuid, limit, window, page);
+            }
             
-            // Get total users count from service
-            long totalUsers = leaderboardService.getTotalUsers(uuid);
+            List<RankedUser> rankedUsers = page.toRankedUsers();
             
             TopNResponse response = TopNResponse.builder()
                 .uuid(uuid)
+                .window(window)
                 .users(rankedUsers)
-                .totalUsers(totalUsers)
+                .totalUsers(page.getTotalUsers())
                 .retrievedAt(Instant.now())
+                .rankedAt(page.getRankedAt())
                 .build();
             
             logger.info("Successfully retrieved top {} users - UUID: {}, totalUsers: {}, returnedUsers: {}", 
-                limit, uuid, totalUsers, rankedUsers.size());
+                limit, uuid, page.getTotalUsers(), rankedUsers.size());
             
-            return ResponseEntity.ok(response);
+            if (binaryType != null) {
+                return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).contentType(binaryType)
+                    .body(CompactTopNResponse.from(response));
+            }
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(response);
         } catch (Exception e) {
             logger.error("Error retrieving top N users - UUID: {}, limit: {}, error: {}", 
                 uuid, limit, e.getMessage(), e);
             throw e;
         }
     }
+    
+    /**
+     * Write a large top N page row by row from the Redis reply to the response stream.
+     * The page has already been read, so failures still get regular error responses
+     * before the body starts.
+     */
+    private ResponseEntity<StreamingResponseBody> streamTopN(String uuid, int limit, String window, TopNPage page) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                TopNJsonWriter writer = new TopNJsonWriter(generator);
+                writer.writeStart(uuid, window);
+                page.forEach(writer);
+                writer.writeEnd(page.getTotalUsers(), Instant.now(), page.getRankedAt());
+            }
+        };
+        logger.info("Streaming top {} users - UUID: {}, totalUsers: {}", limit, uuid, page.getTotalUsers());
+        
+        return ResponseEntity.ok()
+            .varyBy(HttpHeaders.ACCEPT)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+    
+    /**
+     * Export every user of a leaderboard in rank order.
+     * GET /api/v1/leaderboards/{uuid}/export?format=ndjson|csv
+     * Rows are streamed from a storage cursor straight to the response, so exports of any size
+     * run in constant memory. The leaderboard is looked up first, so an unknown UUID still gets
+     * a regular error response.
+     */
+    @GetMapping("/{uuid}/export")
+    public ResponseEntity<StreamingResponseBody> exportLeaderboard(
+            @PathVariable String uuid,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        
+        logger.info("Received GET request to export leaderboard - UUID: {}, format: {}", uuid, format);
+        
+        try {
+            LeaderboardExportWriter.Format exportFormat = LeaderboardExportWriter.Format.fromValue(format);
+            if (exportFormat == null) {
+                throw new InvalidRequestException("Unknown export format: " + format);
+            }
+            Leaderboard leaderboard = leaderboardService.findLeaderboardForExport(uuid);
+            
+            StreamingResponseBody body = outputStream -> {
+                try (LeaderboardExportWriter writer =
+                         LeaderboardExportWriter.create(exportFormat, outputStream, objectMapper.getFactory())) {
+                    writer.writeStart();
+                    leaderboardService.exportRanking(leaderboard, writer);
+                }
+            };
+            
+            return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(uuid + "." + exportFormat.getExtension())
+                    .build()
+                    .toString())
+                .body(body);
+        } catch (Exception e) {
+            logger.error("Error exporting leaderboard - UUID: {}, error: {}", uuid, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get a single user's rank in a leaderboard.
+     * GET /api/v1/leaderboards/{uuid}/users/{userId}/rank
+     * Answers 304 Not Modified when If-None-Match carries the current leaderboard version.
+     */
+    @GetMapping("/{uuid}/users/{userId}/rank")
+    public ResponseEntity<RankedUser> getUserRank(
+            @PathVariable String uuid,
+            @PathVariable String userId,
+            WebRequest webRequest) {
+        
+        logger.info("Received GET request for user rank - UUID: {}, userId: {}", uuid, userId);
+        
+        try {
+            // Only conditional requests pay for the separate version lookup
+            if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null && isNotModified(uuid, null, webRequest)) {
+                return null;
+            }
+            
+            RankedUser rankedUser = leaderboardService.getUserRank(uuid, userId);
+            return ResponseEntity.ok(rankedUser);
+        } catch (Exception e) {
+            logger.error("Error retrieving user rank - UUID: {}, userId: {}, error: {}", 
+                uuid, userId, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get the leaderboard ranks of many users at once.
+     * POST /api/v1/leaderboards/{uuid}/ranks
+     */
+    @PostMapping("/{uuid}/ranks")
+    public ResponseEntity<UserRanksResponse> getUserRanks(
+            @PathVariable String uuid,
+            @Valid @RequestBody UserIdsRequest request) {
+        
+        logger.info("Received POST request for user ranks - UUID: {}, users: {}", uuid, request.getUserIds().size());
+        
+        try {
+            Map<String, Optional<RankedUser>> ranks = leaderboardService.getUserRanks(uuid, request.getUserIds());
+            
+            List<RankedUser> rankedUsers = new ArrayList<>();
+            List<String> missingUserIds = new ArrayList<>();
+            ranks.forEach((userId, rankedUser) -> {
+                if (rankedUser.isPresent()) {
+                    rankedUsers.add(rankedUser.get());
+                } else {
+                    missingUserIds.add(userId);
+                }
+            });
+            
+            UserRanksResponse response = UserRanksResponse.builder()
+                .uuid(uuid)
+                .users(rankedUsers)
+                .missingUserIds(missingUserIds)
+                .retrievedAt(Instant.now())
+                .build();
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error retrieving user ranks - UUID: {}, error: {}", uuid, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Rank a subset of users, such as a user's friends, among themselves.
+     * POST /api/v1/leaderboards/{uuid}/subset
+     */
+    @PostMapping("/{uuid}/subset")
+    public ResponseEntity<SubsetRankingResponse> getSubsetRanking(
+            @PathVariable String uuid,
+            @Valid @RequestBody UserIdsRequest request) {
+        
+        logger.info("Received POST request for subset ranking - UUID: {}, users: {}", uuid, request.getUserIds().size());
+        
+        try {
+            List<RankedUser> rankedUsers = leaderboardService.getSubsetRanking(uuid, request.getUserIds());
+            
+            SubsetRankingResponse response = SubsetRankingResponse.builder()
+                .uuid(uuid)
+                .users(rankedUsers)
+                .retrievedAt(Instant.now())
+                .build();
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error retrieving subset ranking - UUID: {}, error: {}", uuid, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Get the score distribution of a leaderboard, optionally with the share of users above a score.
+     * GET /api/v1/leaderboards/{uuid}/distribution?score=S
+     */
+    @GetMapping("/{uuid}/distribution")
+    public ResponseEntity<ScoreDistributionResponse> getScoreDistribution(
+            @PathVariable String uuid,
+            @RequestParam(required = false) Double score) {
+        
+        logger.info("Received GET request for score distribution - UUID: {}, score: {}", uuid, score);
+        
+        try {
+            ScoreHistogram histogram = leaderboardService.getScoreDistribution(uuid);
+            HistogramSpec spec = histogram.getSpec();
+            long[] counts = histogram.getCounts();
+            
+            List<ScoreDistributionResponse.Bucket> buckets = new ArrayList<>(counts.length);
+            for (int i = 0; i < counts.length; i++) {
+                buckets.add(ScoreDistributionResponse.Bucket.builder()
+                    .lowerBound(spec.lowerBound(i))
+                    .upperBound(spec.upperBound(i))
+                    .count(counts[i])
+                    .build());
+            }
+            
+            ScoreDistributionResponse response = ScoreDistributionResponse.builder()
+                .uuid(uuid)
+                .buckets(buckets)
+                .totalUsers(histogram.totalUsers())
+                .score(score)
+                .topPercent(score != null ? histogram.topPercent(score) : null)
+                .retrievedAt(Instant.now())
+                .build();
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error retrieving score distribution - UUID: {}, error: {}", uuid, e.getMessage(), e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Compare If-None-Match with the leaderboard version using a single version lookup.
+     * Also sets the version as a weak ETag on the response; when it matches, the response
+     * is already a 304 and the handler returns null.
+     */
+    private boolean isNotModified(String uuid, String window, WebRequest webRequest) {
+        String version = leaderboardService.getLeaderboardVersion(uuid, window);
+        if (version == null) {
+            return false;
+        }
+        return webRequest.checkNotModified(weakETag(version));
+    }
+    
+    private static String weakETag(String version) {
+        return "W/\"" + version + "\"";
+    }
 }
-
@@ -0,0 +1,181 @@
+package com.leaderboard.platform.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.leaderboard.platform.model.RankedUserConsumer;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a full leaderboard export row by row as NDJSON (one ranked user object per line, the
+ * same fields as {@link com.leaderboard.platform.model.RankedUser}) or as CSV with a header row.
+ * Nothing is held beyond the output buffer, so memory stays flat however large the board is.
+ */
+public abstract class LeaderboardExportWriter implements RankedUserConsumer, Closeable {
+    
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"),
+        CSV(new MediaType("text", "csv"), "csv");
+        
+        private final MediaType mediaType;
+        private final String extension;
+        
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+        
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        /**
+         * Parse a format from a request parameter such as "ndjson" or "csv".
+         * Returns null if the value does not name a format.
+         */
+        public static Format fromValue(String value) {
+            if (value == null) {
+                return null;
+            }
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value.trim())) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+    
+    // yyyy-MM-ddTHH:mm:ss.SSSZ
+    final char[] timestampBuffer = new char[24];
+    
+    public static LeaderboardExportWriter create(Format format, OutputStream outputStream, JsonFactory jsonFactory)
+            throws IOException {
+        return format == Format.CSV
+            ? new CsvWriter(outputStream)
+            : new NdjsonWriter(jsonFactory.createGenerator(outputStream));
+    }
+    
+    /**
+     * Write anything that precedes the first row.
+     */
+    public abstract void writeStart() throws IOException;
+    
+    private static final class NdjsonWriter extends LeaderboardExportWriter {
+        
+        private final JsonGenerator generator;
+        
+        NdjsonWriter(JsonGenerator generator) {
+            this.generator = generator;
+            // Rows are separated by the newline written after each of them
+            this.generator.setRootValueSeparator(null);
+        }
+        
+        @Override
+        public void writeStart() {
+        }
+        
+        @Override
+        public void accept(byte[] userId, int rank, double score, long timestampMillis) {
+            try {
+                generator.writeStartObject();
+                generator.writeFieldName("userId");
+                generator.writeUTF8String(userId, 0, userId.length);
+                generator.writeNumberField("rank", rank);
+                generator.writeNumberField("score", score);
+                generator.writeFieldName("timestamp");
+                generator.writeString(timestampBuffer, 0, TopNJsonWriter.formatTimestamp(timestampMillis, timestampBuffer));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+    
+    private static final class CsvWriter extends LeaderboardExportWriter {
+        
+        private static final byte[] HEADER = "userId,rank,score,timestamp\n".getBytes(StandardCharsets.US_ASCII);
+        
+        private final OutputStream out;
+        
+        CsvWriter(OutputStream outputStream) {
+            this.out = new BufferedOutputStream(outputStream, 16 * 1024);
+        }
+        
+        @Override
+        public void writeStart() throws IOException {
+            out.write(HEADER);
+        }
+        
+        @Override
+        public void accept(byte[] userId, int rank, double score, long timestampMillis) {
+            try {
+                writeField(userId);
+                out.write(',');
+                writeAscii(Integer.toString(rank));
+                out.write(',');
+                writeAscii(Double.toString(score));
+                out.write(',');
+                int length = TopNJsonWriter.formatTimestamp(timestampMillis, timestampBuffer);
+                for (int i = 0; i < length; i++) {
+                    out.write(timestampBuffer[i]);
+                }
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        /**
+         * Quote the field as RFC 4180 requires when it holds a delimiter, quote or line break.
+         */
+        private void writeField(byte[] value) throws IOException {
+            boolean quote = false;
+            for (byte b : value) {
+                if (b == ',' || b == '"' || b == '\n' || b == '\r') {
+                    quote = true;
+                    break;
+                }
+            }
+            if (!quote) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            for (byte b : value) {
+                if (b == '"') {
+                    out.write('"');
+                }
+                out.write(b);
+            }
+            out.write('"');
+        }
+        
+        private void writeAscii(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                out.write(value.charAt(i));
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -68,6 +68,9 @@ public class LeaderboardManagementController {
         if (request.getPodId() == null || request.getPodId().trim().isEmpty()) {
             throw new IllegalArgumentException("PodId cannot be null or empty");
         }
+        if (request.getHistogram() != null && !request.getHistogram().isValid()) {
+            throw new IllegalArgumentException("Histogram needs max > min and between 1 and 10000 buckets");
+        }
     }
     
     private void checkLeaderboardExists(String uuid) {
@@ -89,6 +92,9 @@ public class LeaderboardManagementController {
             .startTime(request.getStartTime() != null ? request.getStartTime() : Instant.now())
             .endTime(request.getEndTime())
             .metadata(request.getMetadata())
+            .windows(request.getWindows())
+            .histogram(request.getHistogram())
+            .podAggregate(Boolean.TRUE.equals(request.getPodAggregate()))
             .build();
         
         return leaderboardRepository.save(leaderboard);
@@ -0,0 +1,60 @@
+package com.leaderboard.platform.controller;
+
+import com.leaderboard.platform.dto.PodTopNResponse;
+import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.service.LeaderboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Controller for rankings aggregated over all opted-in leaderboards of a pod.
+ */
+@RestController
+@RequestMapping("/api/v1/pods")
+public class PodLeaderboardController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PodLeaderboardController.class);
+    
+    private final LeaderboardService leaderboardService;
+    
+    @Autowired
+    public PodLeaderboardController(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+    
+    /**
+     * Get top N users of a pod's aggregate ranking.
+     * GET /api/v1/pods/{podId}/top?limit=N
+     */
+    @GetMapping("/{podId}/top")
+    public ResponseEntity<PodTopNResponse> getPodTopN(
+            @PathVariable String podId,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        logger.info("Received GET request for pod top N users - podId: {}, limit: {}", podId, limit);
+        
+        try {
+            List<RankedUser> rankedUsers = leaderboardService.getPodTopN(podId, limit);
+            long totalUsers = leaderboardService.getPodTotalUsers(podId);
+            
+            PodTopNResponse response = PodTopNResponse.builder()
+                .podId(podId)
+                .users(rankedUsers)
+                .totalUsers(totalUsers)
+                .retrievedAt(Instant.now())
+                .build();
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error retrieving pod top N users - podId: {}, limit: {}, error: {}", 
+                podId, limit, e.getMessage(), e);
+            throw e;
+        }
+    }
+}
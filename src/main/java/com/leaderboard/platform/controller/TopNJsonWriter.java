@@ -0,0 +1,119 @@
+package com.leaderboard.platform.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.leaderboard.platform.model.RankedUserConsumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Writes a top N response straight to a {@link JsonGenerator}, producing the same JSON as
+ * {@link com.leaderboard.platform.dto.TopNResponse} without building a DTO per row.
+ * Rows are written as they arrive; timestamps are formatted into a reused buffer.
+ */
+public final class TopNJsonWriter implements RankedUserConsumer {
+    
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    
+    private final JsonGenerator generator;
+    // Character-backed generators cannot take raw UTF-8 and get the user id decoded instead
+    private final boolean utf8Output;
+    // yyyy-MM-ddTHH:mm:ss.SSSZ
+    private final char[] timestampBuffer = new char[24];
+    
+    public TopNJsonWriter(JsonGenerator generator) {
+        this.generator = generator;
+        this.utf8Output = !(generator.getOutputTarget() instanceof Writer);
+    }
+    
+    public void writeStart(String uuid, String window) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("uuid", uuid);
+        generator.writeStringField("window", window);
+        generator.writeArrayFieldStart("users");
+    }
+    
+    @Override
+    public void accept(byte[] userId, int rank, double score, long timestampMillis) {
+        try {
+            generator.writeStartObject();
+            generator.writeFieldName("userId");
+            if (utf8Output) {
+                generator.writeUTF8String(userId, 0, userId.length);
+            } else {
+                generator.writeString(new String(userId, StandardCharsets.UTF_8));
+            }
+            generator.writeNumberField("rank", rank);
+            generator.writeNumberField("score", score);
+            generator.writeFieldName("timestamp");
+            generator.writeString(timestampBuffer, 0, formatTimestamp(timestampMillis, timestampBuffer));
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    public void writeEnd(long totalUsers, Instant retrievedAt) throws IOException {
+        writeEnd(totalUsers, retrievedAt, null);
+    }
+    
+    /**
+     * @param rankedAt written only when set, like the NON_NULL field of the DTO
+     */
+    public void writeEnd(long totalUsers, Instant retrievedAt, Instant rankedAt) throws IOException {
+        generator.writeEndArray();
+        generator.writeNumberField("totalUsers", totalUsers);
+        generator.writeFieldName("retrievedAt");
+        generator.writeString(timestampBuffer, 0, formatTimestamp(retrievedAt.toEpochMilli(), timestampBuffer));
+        if (rankedAt != null) {
+            generator.writeFieldName("rankedAt");
+            generator.writeString(timestampBuffer, 0, formatTimestamp(rankedAt.toEpochMilli(), timestampBuffer));
+        }
+        generator.writeEndObject();
+    }
+    
+    /**
+     * Format epoch millis as yyyy-MM-dd'T'HH:mm:ss.SSS'Z' (UTC, years 0-9999) without allocating.
+     * Uses the days-to-civil-date conversion from Howard Hinnant's date algorithms.
+     */
+    static int formatTimestamp(long epochMillis, char[] buffer) {
+        long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+        
+        long shifted = days + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        
+        writeDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        writeDigits(buffer, 5, month, 2);
+        buffer[7] = '-';
+        writeDigits(buffer, 8, day, 2);
+        buffer[10] = 'T';
+        writeDigits(buffer, 11, millisOfDay / 3_600_000, 2);
+        buffer[13] = ':';
+        writeDigits(buffer, 14, millisOfDay / 60_000 % 60, 2);
+        buffer[16] = ':';
+        writeDigits(buffer, 17, millisOfDay / 1000 % 60, 2);
+        buffer[19] = '.';
+        writeDigits(buffer, 20, millisOfDay % 1000, 3);
+        buffer[23] = 'Z';
+        return 24;
+    }
+    
+    private static void writeDigits(char[] buffer, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
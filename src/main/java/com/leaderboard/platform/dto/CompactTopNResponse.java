@@ -0,0 +1,53 @@
+package com.leaderboard.platform.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.leaderboard.platform.model.RankedUser;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Columnar form of {@link TopNResponse} for binary encodings: one array per field instead of
+ * one object per user, and instants as epoch millis. Entry i has rank i + 1.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactTopNResponse {
+    private String uuid;
+    private String window;
+    private long totalUsers;
+    private String[] userIds;
+    private double[] scores;
+    private long[] timestamps;
+    private long retrievedAt;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long rankedAt;
+    
+    public static CompactTopNResponse from(TopNResponse response) {
+        List<RankedUser> users = response.getUsers();
+        String[] userIds = new String[users.size()];
+        double[] scores = new double[users.size()];
+        long[] timestamps = new long[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            RankedUser user = users.get(i);
+            userIds[i] = user.getUserId();
+            scores[i] = user.getScore();
+            timestamps[i] = user.getTimestamp() != null ? user.getTimestamp().toEpochMilli() : 0L;
+        }
+        return CompactTopNResponse.builder()
+            .uuid(response.getUuid())
+            .window(response.getWindow())
+            .totalUsers(response.getTotalUsers() != null ? response.getTotalUsers() : userIds.length)
+            .userIds(userIds)
+            .scores(scores)
+            .timestamps(timestamps)
+            .retrievedAt(response.getRetrievedAt().toEpochMilli())
+            .rankedAt(response.getRankedAt() != null ? response.getRankedAt().toEpochMilli() : null)
+            .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.leaderboard.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@link UpdateScoreResponse} for binary encodings, with the instant as epoch millis.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactUpdateScoreResponse {
+    private String uuid;
+    private String userId;
+    private double score;
+    private Integer rank;
+    private long updatedAt;
+    
+    public static CompactUpdateScoreResponse from(UpdateScoreResponse response) {
+        return CompactUpdateScoreResponse.builder()
+            .uuid(response.getUuid())
+            .userId(response.getUserId())
+            .score(response.getScore())
+            .rank(response.getRank())
+            .updatedAt(response.getUpdatedAt().toEpochMilli())
+            .build();
+    }
+}
@@ -1,11 +1,14 @@
 package com.leaderboard.platform.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.leaderboard.platform.model.HistogramSpec;
+import com.leaderboard.platform.model.LeaderboardWindow;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -24,6 +27,12 @@ public class CreateLeaderboardRequest {
     private Instant endTime;
     
     private Map<String, Object> metadata;
+    
+    private List<LeaderboardWindow> windows;
+    
+    private HistogramSpec histogram;
+    
+    private Boolean podAggregate;
 }
 
 
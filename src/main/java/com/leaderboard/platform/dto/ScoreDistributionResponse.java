@@ -0,0 +1,37 @@
+package com.leaderboard.platform.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreDistributionResponse {
+    private String uuid;
+    private List<Bucket> buckets;
+    private Long totalUsers;
+    
+    // Only set when a score was given: estimated share of users above it, in percent
+    private Double score;
+    private Double topPercent;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant retrievedAt;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        private double lowerBound;
+        private double upperBound;
+        private long count;
+    }
+}
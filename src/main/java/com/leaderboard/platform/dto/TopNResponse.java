@@ -1,6 +1,7 @@
 package com.leaderboard.platform.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.leaderboard.platform.model.RankedUser;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,10 +17,16 @@ import java.util.List;
 @AllArgsConstructor
 public class TopNResponse {
     private String uuid;
+    private String window;
     private List<RankedUser> users;
     private Long totalUsers;
     
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
     private Instant retrievedAt;
+    
+    // Set when the page comes from the periodically refreshed rank table: the ranking as of this instant
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant rankedAt;
 }
 
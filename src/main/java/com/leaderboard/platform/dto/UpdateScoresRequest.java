@@ -0,0 +1,26 @@
+package com.leaderboard.platform.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpdateScoresRequest {
+    @NotEmpty(message = "UUIDs cannot be empty")
+    private List<String> uuids;
+    
+    @NotBlank(message = "UserId cannot be empty")
+    private String userId;
+    
+    @NotNull(message = "Score cannot be null")
+    @Min(value = 0, message = "Score cannot be negative")
+    private Double score;
+}
@@ -0,0 +1,16 @@
+package com.leaderboard.platform.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserIdsRequest {
+    @NotEmpty(message = "UserIds cannot be empty")
+    private List<String> userIds;
+}
@@ -0,0 +1,26 @@
+package com.leaderboard.platform.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.leaderboard.platform.model.RankedUser;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserRanksResponse {
+    private String uuid;
+    // Leaderboard-wide ranks, in request order
+    private List<RankedUser> users;
+    // Requested users that have no score on the leaderboard
+    private List<String> missingUserIds;
+    
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant retrievedAt;
+}
@@ -0,0 +1,7 @@
+package com.leaderboard.platform.exception;
+
+public class IdempotencyConflictException extends LeaderboardException {
+    public IdempotencyConflictException(String message) {
+        super(message, "IDEMPOTENCY_CONFLICT");
+    }
+}
@@ -0,0 +1,14 @@
+package com.leaderboard.platform.exception;
+
+public class ServiceOverloadedException extends LeaderboardException {
+    private final long retryAfterSeconds;
+    
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message, "SERVICE_OVERLOADED");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.leaderboard.platform.exception;
+
+public class UserNotFoundException extends LeaderboardException {
+    public UserNotFoundException(String message) {
+        super(message, "USER_NOT_FOUND");
+    }
+}
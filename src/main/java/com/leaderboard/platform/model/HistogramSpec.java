@@ -0,0 +1,41 @@
+package com.leaderboard.platform.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bucket layout of a leaderboard's score histogram: {@code buckets} equal-width buckets
+ * covering [min, max). Scores outside the range are counted in the first or last bucket.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistogramSpec {
+    private double min;
+    private double max;
+    private int buckets;
+    
+    public double bucketWidth() {
+        return (max - min) / buckets;
+    }
+    
+    public int bucketOf(double score) {
+        int bucket = (int) Math.floor((score - min) / bucketWidth());
+        return Math.max(0, Math.min(buckets - 1, bucket));
+    }
+    
+    public double lowerBound(int bucket) {
+        return min + bucket * bucketWidth();
+    }
+    
+    public double upperBound(int bucket) {
+        return bucket == buckets - 1 ? max : lowerBound(bucket + 1);
+    }
+    
+    public boolean isValid() {
+        return buckets > 0 && buckets <= 10_000 && Double.isFinite(min) && Double.isFinite(max) && max > min;
+    }
+}
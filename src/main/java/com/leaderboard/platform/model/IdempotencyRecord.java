@@ -0,0 +1,26 @@
+package com.leaderboard.platform.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What is remembered about a score submission sent with an Idempotency-Key.
+ * The submitted score identifies the request; the result is null while the
+ * first submission is still being applied.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    private Double score;
+    private UserScore result;
+    
+    @JsonIgnore
+    public boolean isPending() {
+        return result == null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.leaderboard.platform.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Progress of a bulk import, kept next to its input file. The size and modification time of
+ * the input identify it, so a checkpoint is never applied to a different file.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportCheckpoint {
+    private long sourceSize;
+    private Instant sourceModified;
+    private long rowsImported;
+    private List<String> leaderboardIds;
+    private Instant updatedAt;
+}
@@ -10,6 +10,7 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 
 @Entity
@@ -58,5 +59,19 @@ public class Leaderboard {
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "metadata", columnDefinition = "jsonb")
     private Map<String, Object> metadata;
+    
+    // Bounded windows (daily, weekly) ranked alongside the all-time board, aligned to startTime
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "windows", columnDefinition = "jsonb")
+    private List<LeaderboardWindow> windows;
+    
+    // Score histogram maintained on every write, backing percentile and distribution queries
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "histogram", columnDefinition = "jsonb")
+    private HistogramSpec histogram;
+    
+    // Opt-in: every score change on this board is also summed into the pod's aggregate ranking
+    @Column(name = "pod_aggregate")
+    private Boolean podAggregate;
 }
 
@@ -0,0 +1,202 @@
+package com.leaderboard.platform.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Frozen final ranking of an archived leaderboard, stored column-wise.
+ * Entries are in rank order; {@code userIdOrder} lists entry positions sorted by userId
+ * so a user's rank is found by binary search without a per-user map.
+ * <p>
+ * Binary layout (big-endian): magic, entry count, then one column at a time - scores, timestamps
+ * (epoch millis), the userId sort order used for binary search, and finally the userIds.
+ */
+public final class LeaderboardSnapshot {
+    
+    private static final int MAGIC = 0x4C425331; // "LBS1"
+    
+    private final String[] userIds;
+    private final double[] scores;
+    private final long[] timestamps;
+    private final int[] userIdOrder;
+    
+    public LeaderboardSnapshot(String[] userIds, double[] scores, long[] timestamps, int[] userIdOrder) {
+        if (scores.length != userIds.length || timestamps.length != userIds.length || userIdOrder.length != userIds.length) {
+            throw new IllegalArgumentException("Snapshot columns must have the same length");
+        }
+        this.userIds = userIds;
+        this.scores = scores;
+        this.timestamps = timestamps;
+        this.userIdOrder = userIdOrder;
+    }
+    
+    /**
+     * Build a snapshot from scores that are already in ranking order.
+     */
+    public static LeaderboardSnapshot fromRanking(List<UserScore> rankedScores) {
+        int size = rankedScores.size();
+        String[] userIds = new String[size];
+        double[] scores = new double[size];
+        long[] timestamps = new long[size];
+        for (int i = 0; i < size; i++) {
+            UserScore userScore = rankedScores.get(i);
+            userIds[i] = userScore.getUserId();
+            scores[i] = userScore.getScore();
+            timestamps[i] = userScore.getTimestamp() != null ? userScore.getTimestamp().toEpochMilli() : 0L;
+        }
+        return fromColumns(userIds, scores, timestamps);
+    }
+    
+    private static LeaderboardSnapshot fromColumns(String[] userIds, double[] scores, long[] timestamps) {
+        int[] userIdOrder = IntStream.range(0, userIds.length)
+            .boxed()
+            .sorted(Comparator.comparing(i -> userIds[i]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        return new LeaderboardSnapshot(userIds, scores, timestamps, userIdOrder);
+    }
+    
+    /**
+     * Collects a ranking streamed in rank order straight into snapshot columns, without a
+     * UserScore per row.
+     */
+    public static final class Collector implements RankedUserConsumer {
+        
+        private String[] userIds = new String[16];
+        private double[] scores = new double[16];
+        private long[] timestamps = new long[16];
+        private int size;
+        
+        @Override
+        public void accept(byte[] userId, int rank, double score, long timestampMillis) {
+            if (size == userIds.length) {
+                int capacity = size * 2;
+                userIds = Arrays.copyOf(userIds, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+            }
+            userIds[size] = new String(userId, StandardCharsets.UTF_8);
+            scores[size] = score;
+            timestamps[size] = timestampMillis;
+            size++;
+        }
+        
+        public LeaderboardSnapshot build() {
+            return fromColumns(Arrays.copyOf(userIds, size), Arrays.copyOf(scores, size), Arrays.copyOf(timestamps, size));
+        }
+    }
+    
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(userIds.length);
+        for (double score : scores) {
+            out.writeDouble(score);
+        }
+        for (long timestamp : timestamps) {
+            out.writeLong(timestamp);
+        }
+        for (int position : userIdOrder) {
+            out.writeInt(position);
+        }
+        for (String userId : userIds) {
+            out.writeUTF(userId);
+        }
+    }
+    
+    public static LeaderboardSnapshot readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a leaderboard snapshot");
+        }
+        int size = in.readInt();
+        double[] scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            scores[i] = in.readDouble();
+        }
+        long[] timestamps = new long[size];
+        for (int i = 0; i < size; i++) {
+            timestamps[i] = in.readLong();
+        }
+        int[] userIdOrder = new int[size];
+        for (int i = 0; i < size; i++) {
+            userIdOrder[i] = in.readInt();
+        }
+        String[] userIds = new String[size];
+        for (int i = 0; i < size; i++) {
+            userIds[i] = in.readUTF();
+        }
+        return new LeaderboardSnapshot(userIds, scores, timestamps, userIdOrder);
+    }
+    
+    public int size() {
+        return userIds.length;
+    }
+    
+    public List<RankedUser> getTopN(int limit) {
+        int count = Math.min(limit, userIds.length);
+        List<RankedUser> rankedUsers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rankedUsers.add(toRankedUser(i));
+        }
+        return rankedUsers;
+    }
+    
+    public void forEachTopN(int limit, RankedUserConsumer consumer) {
+        int count = Math.min(limit, userIds.length);
+        for (int i = 0; i < count; i++) {
+            consumer.accept(userIds[i].getBytes(StandardCharsets.UTF_8), i + 1, scores[i], timestamps[i]);
+        }
+    }
+    
+    public Optional<RankedUser> getUserRank(String userId) {
+        int low = 0;
+        int high = userIdOrder.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = userIdOrder[mid];
+            int compare = userIds[position].compareTo(userId);
+            if (compare == 0) {
+                return Optional.of(toRankedUser(position));
+            }
+            if (compare < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    private RankedUser toRankedUser(int position) {
+        return RankedUser.builder()
+            .userId(userIds[position])
+            .rank(position + 1)
+            .score(scores[position])
+            .timestamp(Instant.ofEpochMilli(timestamps[position]))
+            .build();
+    }
+    
+    public String[] getUserIds() {
+        return Arrays.copyOf(userIds, userIds.length);
+    }
+    
+    public double[] getScores() {
+        return Arrays.copyOf(scores, scores.length);
+    }
+    
+    public long[] getTimestamps() {
+        return Arrays.copyOf(timestamps, timestamps.length);
+    }
+    
+    public int[] getUserIdOrder() {
+        return Arrays.copyOf(userIdOrder, userIdOrder.length);
+    }
+}
@@ -0,0 +1,37 @@
+package com.leaderboard.platform.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * The stored form of an archived leaderboard's snapshot: its binary encoding, written once by
+ * the archival job and read by every instance.
+ */
+@Entity
+@Table(name = "leaderboard_snapshots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardSnapshotRecord {
+    @Id
+    @Column(name = "leaderboard_id")
+    private String leaderboardId;
+    
+    @Column(name = "total_users", nullable = false)
+    private Integer totalUsers;
+    
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -3,6 +3,8 @@ package com.leaderboard.platform.model;
 public enum LeaderboardStatus {
     ACTIVE,
     INACTIVE,
+    // Claimed by the archival job of one instance while it writes the snapshot
+    ARCHIVING,
     ARCHIVED
 }
 
@@ -0,0 +1,67 @@
+package com.leaderboard.platform.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Time windows a leaderboard can be ranked over. Bounded windows are aligned to the
+ * leaderboard's start time, so a daily window of a board starting at 08:00 runs 08:00-08:00.
+ */
+public enum LeaderboardWindow {
+    DAILY(Duration.ofDays(1)),
+    WEEKLY(Duration.ofDays(7)),
+    ALL_TIME(null);
+    
+    private final Duration length;
+    
+    LeaderboardWindow(Duration length) {
+        this.length = length;
+    }
+    
+    public boolean isBounded() {
+        return length != null;
+    }
+    
+    /**
+     * The window instance containing the given instant.
+     *
+     * @param anchor  alignment point of the windows (the leaderboard start time)
+     * @param endTime leaderboard end time, truncates the last window; may be null
+     * @param at      instant to locate
+     */
+    public WindowBucket bucketAt(Instant anchor, Instant endTime, Instant at) {
+        if (!isBounded()) {
+            throw new IllegalStateException("ALL_TIME has no buckets");
+        }
+        long lengthMillis = length.toMillis();
+        long index = Math.floorDiv(at.toEpochMilli() - anchor.toEpochMilli(), lengthMillis);
+        Instant start = anchor.plusMillis(index * lengthMillis);
+        Instant end = start.plus(length);
+        if (endTime != null && endTime.isBefore(end)) {
+            end = endTime;
+        }
+        return WindowBucket.builder()
+            .window(this)
+            .index(index)
+            .start(start)
+            .end(end)
+            .build();
+    }
+    
+    /**
+     * Parse a window from a request parameter such as "daily" or "all-time".
+     * Returns null if the value does not name a window.
+     */
+    public static LeaderboardWindow fromValue(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim().replace('-', '_').toUpperCase();
+        for (LeaderboardWindow window : values()) {
+            if (window.name().equals(normalized)) {
+                return window;
+            }
+        }
+        return null;
+    }
+}
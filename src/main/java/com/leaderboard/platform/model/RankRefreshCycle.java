@@ -0,0 +1,36 @@
+package com.leaderboard.platform.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Shared state of the rank refresh job: which instance's cycle is running and since when
+ * boards still need a rebuild. Kept in storage so every instance and every restart agrees.
+ */
+@Entity
+@Table(name = "rank_refresh_cycles")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankRefreshCycle {
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+    
+    // Start of the last completed cycle; the next one rebuilds boards changed since then
+    @Column(name = "changed_since", nullable = false)
+    private Instant changedSince;
+    
+    // Start of the last claimed cycle, completed or not
+    @Column(name = "claimed_at", nullable = false)
+    private Instant claimedAt;
+}
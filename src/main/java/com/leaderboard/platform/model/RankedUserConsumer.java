@@ -0,0 +1,17 @@
+package com.leaderboard.platform.model;
+
+/**
+ * Receives the rows of a ranking one at a time, in rank order, as primitives.
+ * Used by streaming reads that never materialize a {@link RankedUser} per row.
+ */
+@FunctionalInterface
+public interface RankedUserConsumer {
+    
+    /**
+     * @param userId          UTF-8 bytes of the userId
+     * @param rank            1-based rank
+     * @param score           original score
+     * @param timestampMillis submission time in epoch millis
+     */
+    void accept(byte[] userId, int rank, double score, long timestampMillis);
+}
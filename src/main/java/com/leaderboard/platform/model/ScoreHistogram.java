@@ -0,0 +1,72 @@
+package com.leaderboard.platform.model;
+
+import java.util.Arrays;
+
+/**
+ * Per-bucket user counts of a leaderboard, laid out by a {@link HistogramSpec}.
+ * Each user is counted once, in the bucket of their current score, so every
+ * query here costs O(buckets) regardless of the number of users.
+ */
+public final class ScoreHistogram {
+    
+    private final HistogramSpec spec;
+    private final long[] counts;
+    
+    public ScoreHistogram(HistogramSpec spec, long[] counts) {
+        if (counts.length != spec.getBuckets()) {
+            throw new IllegalArgumentException("Histogram needs one count per bucket");
+        }
+        this.spec = spec;
+        this.counts = counts;
+    }
+    
+    /**
+     * Build a histogram by scanning scores, used when the incrementally maintained one is unavailable.
+     */
+    public static ScoreHistogram fromScores(HistogramSpec spec, double[] scores) {
+        long[] counts = new long[spec.getBuckets()];
+        for (double score : scores) {
+            counts[spec.bucketOf(score)]++;
+        }
+        return new ScoreHistogram(spec, counts);
+    }
+    
+    public HistogramSpec getSpec() {
+        return spec;
+    }
+    
+    public long[] getCounts() {
+        return Arrays.copyOf(counts, counts.length);
+    }
+    
+    public long totalUsers() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+    
+    /**
+     * Estimated percentage of users scoring above the given score, e.g. 3.0 for "top 3%".
+     * Users inside the score's bucket are assumed to be spread evenly across it.
+     * Returns null for an empty histogram.
+     */
+    public Double topPercent(double score) {
+        long total = totalUsers();
+        if (total == 0) {
+            return null;
+        }
+        
+        int bucket = spec.bucketOf(score);
+        double above = 0;
+        for (int i = bucket + 1; i < counts.length; i++) {
+            above += counts[i];
+        }
+        double lower = spec.lowerBound(bucket);
+        double upper = spec.upperBound(bucket);
+        double shareAbove = Math.max(0.0, Math.min(1.0, (upper - score) / (upper - lower)));
+        above += counts[bucket] * shareAbove;
+        return 100.0 * above / total;
+    }
+}
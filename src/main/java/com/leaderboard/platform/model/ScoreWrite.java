@@ -0,0 +1,27 @@
+package com.leaderboard.platform.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A single score submission as applied to Redis: the all-time sorted set of the
+ * leaderboard plus the window sorted sets the submission falls into, and the
+ * leaderboard's score histogram when it declares one. A non-null podId also adds the
+ * change of the user's score to that pod's aggregate ranking.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreWrite {
+    private String leaderboardId;
+    private String userId;
+    private double compositeScore;
+    private List<WindowBucket> windows;
+    private HistogramSpec histogram;
+    private String podId;
+}
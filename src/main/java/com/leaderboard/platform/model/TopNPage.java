@@ -0,0 +1,80 @@
+package com.leaderboard.platform.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * One top N page read together with the leaderboard size and version it was read at.
+ * Rows stay in the form their source returned them and are decoded on iteration, so the
+ * same page can be streamed row by row or materialized as a list.
+ */
+public final class TopNPage {
+    
+    private final Consumer<RankedUserConsumer> rows;
+    private final long totalUsers;
+    private final String version;
+    private final Instant rankedAt;
+    
+    /**
+     * @param rows       passes every row of the page to the consumer, in rank order
+     * @param totalUsers size of the leaderboard when the page was read
+     * @param version    leaderboard version the page was read at, or null if unknown
+     */
+    public TopNPage(Consumer<RankedUserConsumer> rows, long totalUsers, String version) {
+        this(rows, totalUsers, version, null);
+    }
+    
+    /**
+     * @param rankedAt when the ranking was computed, for pages served from a periodically
+     *                 refreshed ranking; null for live rankings
+     */
+    public TopNPage(Consumer<RankedUserConsumer> rows, long totalUsers, String version, Instant rankedAt) {
+        this.rows = rows;
+        this.totalUsers = totalUsers;
+        this.version = version;
+        this.rankedAt = rankedAt;
+    }
+    
+    public static TopNPage of(List<RankedUser> users, long totalUsers, String version) {
+        return of(users, totalUsers, version, null);
+    }
+    
+    public static TopNPage of(List<RankedUser> users, long totalUsers, String version, Instant rankedAt) {
+        return new TopNPage(consumer -> {
+            for (RankedUser user : users) {
+                consumer.accept(user.getUserId().getBytes(StandardCharsets.UTF_8), user.getRank(), user.getScore(),
+                    user.getTimestamp() != null ? user.getTimestamp().toEpochMilli() : 0L);
+            }
+        }, totalUsers, version, rankedAt);
+    }
+    
+    public void forEach(RankedUserConsumer consumer) {
+        rows.accept(consumer);
+    }
+    
+    public List<RankedUser> toRankedUsers() {
+        List<RankedUser> users = new ArrayList<>();
+        forEach((userId, rank, score, timestampMillis) -> users.add(RankedUser.builder()
+            .userId(new String(userId, StandardCharsets.UTF_8))
+            .rank(rank)
+            .score(score)
+            .timestamp(Instant.ofEpochMilli(timestampMillis))
+            .build()));
+        return users;
+    }
+    
+    public long getTotalUsers() {
+        return totalUsers;
+    }
+    
+    public String getVersion() {
+        return version;
+    }
+    
+    public Instant getRankedAt() {
+        return rankedAt;
+    }
+}
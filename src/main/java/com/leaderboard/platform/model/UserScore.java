@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 
+// Hash partitioned on leaderboard_id in database/create_tables.sql; the primary key includes it as Postgres requires
 @Entity
 @Table(name = "user_scores", indexes = {
     @Index(name = "idx_user_score_leaderboard_user", columnList = "leaderboard_id,user_id"),
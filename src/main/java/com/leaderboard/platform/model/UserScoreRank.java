@@ -0,0 +1,41 @@
+package com.leaderboard.platform.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A user's rank as of the last refresh of their leaderboard's materialized ranking.
+ * Rows are rewritten per leaderboard by the rank refresh job, never by score writes.
+ */
+@Entity
+@Table(name = "user_score_ranks", indexes = {
+    @Index(name = "idx_user_score_rank_position", columnList = "leaderboard_id,rank")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(UserScoreId.class)
+public class UserScoreRank {
+    @Id
+    @Column(name = "leaderboard_id", nullable = false)
+    private String leaderboardId;
+    
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+    
+    @Column(name = "rank", nullable = false)
+    private Integer rank;
+    
+    @Column(name = "score", nullable = false)
+    private Double score;
+    
+    @Column(name = "timestamp", nullable = false)
+    private Instant timestamp;
+}
@@ -0,0 +1,33 @@
+package com.leaderboard.platform.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * When a leaderboard's materialized ranking was last rebuilt and how many users it held.
+ */
+@Entity
+@Table(name = "user_score_rank_refreshes")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserScoreRankRefresh {
+    @Id
+    @Column(name = "leaderboard_id")
+    private String leaderboardId;
+    
+    @Column(name = "total_users", nullable = false)
+    private Long totalUsers;
+    
+    @Column(name = "refreshed_at", nullable = false)
+    private Instant refreshedAt;
+}
@@ -0,0 +1,27 @@
+package com.leaderboard.platform.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One concrete instance of a bounded leaderboard window, e.g. the third daily window.
+ * Scores written inside [start, end) belong to it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WindowBucket {
+    private LeaderboardWindow window;
+    private long index;
+    private Instant start;
+    private Instant end;
+    
+    public boolean contains(Instant instant) {
+        return instant != null && !instant.isBefore(start) && instant.isBefore(end);
+    }
+}
@@ -0,0 +1,11 @@
+package com.leaderboard.platform.repository;
+
+import com.leaderboard.platform.model.IdempotencyRecord;
+
+import java.util.Optional;
+
+public interface IdempotencyRepository {
+    Optional<IdempotencyRecord> claim(String key, IdempotencyRecord pending);
+    void complete(String key, IdempotencyRecord completed);
+    void release(String key);
+}
@@ -1,13 +1,21 @@
 package com.leaderboard.platform.repository;
 
 import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardStatus;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LeaderboardRepository {
     Leaderboard save(Leaderboard leaderboard);
     Optional<Leaderboard> findByUuid(String uuid);
+    List<Leaderboard> findByUuidIn(Collection<String> uuids);
+    List<Leaderboard> findByPodId(String podId);
     Optional<Leaderboard> findByLeaderboardId(String leaderboardId);
     boolean existsByUuid(String uuid);
+    List<Leaderboard> findByStatusAndEndTimeBefore(LeaderboardStatus status, Instant endTime);
+    boolean updateStatus(String leaderboardId, LeaderboardStatus expected, LeaderboardStatus status);
 }
 
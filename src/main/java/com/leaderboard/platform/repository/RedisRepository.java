@@ -1,17 +1,45 @@
 package com.leaderboard.platform.repository;
 
+import com.leaderboard.platform.model.HistogramSpec;
 import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.ScoreWrite;
+import com.leaderboard.platform.model.TopNPage;
+import com.leaderboard.platform.model.WindowBucket;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public interface RedisRepository {
     void updateScore(String leaderboardId, String userId, double compositeScore);
+    Long writeScore(ScoreWrite write);
+    List<Long> writeScores(List<ScoreWrite> writes);
+    void loadScores(List<ScoreWrite> writes);
     Optional<RankedUser> getUserRank(String leaderboardId, String userId);
+    Map<String, Optional<RankedUser>> getUserRanks(String leaderboardId, Collection<String> userIds);
     List<RankedUser> getTopN(String leaderboardId, int limit);
+    List<RankedUser> getTopN(String leaderboardId, WindowBucket window, int limit);
+    TopNPage getTopNPage(String leaderboardId, WindowBucket window, int limit);
+    List<RankedUser> getScores(String leaderboardId, Collection<String> userIds);
     Long getUserRankPosition(String leaderboardId, String userId);
     Long getTotalUsers(String leaderboardId);
+    Long getTotalUsers(String leaderboardId, WindowBucket window);
+    List<RankedUser> getPodTopN(String podId, int limit);
+    Long getPodTotalUsers(String podId);
+    Set<String> getStalePodAggregates();
+    boolean isPodAggregateStale(String podId);
+    boolean rebuildPodAggregate(String podId, Supplier<Map<String, Double>> totals);
+    String getVersion(String leaderboardId, WindowBucket window);
+    String claimIdempotencyKey(String key, String record, long ttlMillis);
+    void completeIdempotencyKey(String key, String record, long ttlMillis);
+    void releaseIdempotencyKey(String key);
+    ScoreHistogram getScoreHistogram(String leaderboardId, HistogramSpec spec);
     boolean isAvailable();
     void initializeLeaderboard(String leaderboardId);
+    void deleteLeaderboard(String leaderboardId, Collection<WindowBucket> windows);
 }
 
@@ -0,0 +1,10 @@
+package com.leaderboard.platform.repository;
+
+import com.leaderboard.platform.model.LeaderboardSnapshot;
+
+import java.util.Optional;
+
+public interface SnapshotRepository {
+    void save(String leaderboardId, LeaderboardSnapshot snapshot);
+    Optional<LeaderboardSnapshot> findByLeaderboardId(String leaderboardId);
+}
@@ -0,0 +1,21 @@
+package com.leaderboard.platform.repository;
+
+import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.TopNPage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserScoreRankRepository {
+    List<String> findLeaderboardIdsToRefresh(Instant changedSince);
+    Optional<Instant> claimRefreshCycle(Instant cycleStart, Duration lease);
+    void completeRefreshCycle(Instant cycleStart);
+    long refresh(String leaderboardId);
+    Optional<RankedUser> findRank(String leaderboardId, String userId);
+    Map<String, RankedUser> findRanks(String leaderboardId, Collection<String> userIds);
+    TopNPage findTopNPage(String leaderboardId, int limit);
+}
@@ -1,13 +1,29 @@
 package com.leaderboard.platform.repository;
 
+import com.leaderboard.platform.model.HistogramSpec;
+import com.leaderboard.platform.model.RankedUserConsumer;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.TopNPage;
 import com.leaderboard.platform.model.UserScore;
+import com.leaderboard.platform.model.WindowBucket;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserScoreRepository {
     UserScore save(UserScore userScore);
+    List<UserScore> saveAll(List<UserScore> userScores);
+    long importScores(List<UserScore> userScores);
     Optional<UserScore> findByLeaderboardIdAndUserId(String leaderboardId, String userId);
+    List<UserScore> findByLeaderboardIdAndUserIdIn(String leaderboardId, Collection<String> userIds);
     List<UserScore> findByLeaderboardId(String leaderboardId);
+    TopNPage findTopNPage(String leaderboardId, WindowBucket window, int limit);
+    long countRankedAbove(String leaderboardId, double score, Instant timestamp);
+    long forEachRanked(String leaderboardId, RankedUserConsumer consumer);
+    ScoreHistogram findScoreHistogram(String leaderboardId, HistogramSpec spec);
+    Map<String, Double> sumScoresByUser(Collection<String> leaderboardIds);
 }
 
@@ -0,0 +1,104 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.leaderboard.platform.model.LeaderboardSnapshot;
+import com.leaderboard.platform.repository.SnapshotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores archived leaderboard rankings as compact binary files, one per leaderboard, on the
+ * local disk. Only suits a single instance; deployments with several instances keep snapshots
+ * in Postgres (JdbcSnapshotRepository) where every instance can read them.
+ * <p>
+ * Files are written once to a temp file and moved into place, so readers never see a
+ * partial snapshot; loaded snapshots are immutable and cached.
+ */
+@Repository
+public class FileSnapshotRepository implements SnapshotRepository {
+    
+    private static final String EXTENSION = ".snapshot";
+    
+    private final String dataDirectory;
+    private final Map<String, LeaderboardSnapshot> cache = new ConcurrentHashMap<>();
+    
+    public FileSnapshotRepository(@Value("${leaderboard.storage.snapshots:./data/snapshots}") String dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        initializeDirectory();
+    }
+    
+    private void initializeDirectory() {
+        try {
+            Path path = Paths.get(dataDirectory);
+            if (!Files.exists(path)) {
+                Files.createDirectories(path);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create data directory: " + dataDirectory, e);
+        }
+    }
+    
+    @Override
+    public void save(String leaderboardId, LeaderboardSnapshot snapshot) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
+            throw new IllegalArgumentException("LeaderboardId cannot be null or empty");
+        }
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Snapshot cannot be null");
+        }
+        
+        Path target = getSnapshotFile(leaderboardId);
+        try {
+            Path temp = Files.createTempFile(target.getParent(), leaderboardId, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                snapshot.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            cache.put(leaderboardId, snapshot);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to save snapshot for leaderboard " + leaderboardId, e);
+        }
+    }
+    
+    @Override
+    public Optional<LeaderboardSnapshot> findByLeaderboardId(String leaderboardId) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        
+        LeaderboardSnapshot cached = cache.get(leaderboardId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        Path file = getSnapshotFile(leaderboardId);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            LeaderboardSnapshot snapshot = LeaderboardSnapshot.readFrom(in);
+            cache.put(leaderboardId, snapshot);
+            return Optional.of(snapshot);
+        } catch (IOException e) {
+            System.err.println("Failed to load snapshot from file: " + file + ", error: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private Path getSnapshotFile(String leaderboardId) {
+        return Paths.get(dataDirectory, leaderboardId + EXTENSION);
+    }
+}
@@ -0,0 +1,91 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.leaderboard.platform.model.LeaderboardSnapshot;
+import com.leaderboard.platform.repository.SnapshotRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores archived leaderboard rankings in leaderboard_snapshots, so every instance can serve an
+ * archived board whichever instance archived it. A save joins the caller's transaction and only
+ * becomes visible together with the archived status. Loaded snapshots are immutable and cached.
+ */
+@Repository
+@Primary
+public class JdbcSnapshotRepository implements SnapshotRepository {
+    
+    private static final String UPSERT_SNAPSHOT =
+        "INSERT INTO leaderboard_snapshots (leaderboard_id, total_users, data, created_at) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (leaderboard_id) DO UPDATE SET total_users = EXCLUDED.total_users, data = EXCLUDED.data, " +
+        "created_at = EXCLUDED.created_at";
+    private static final String SELECT_SNAPSHOT = "SELECT data FROM leaderboard_snapshots WHERE leaderboard_id = ?";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, LeaderboardSnapshot> cache = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public JdbcSnapshotRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public void save(String leaderboardId, LeaderboardSnapshot snapshot) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
+            throw new IllegalArgumentException("LeaderboardId cannot be null or empty");
+        }
+        if (snapshot == null) {
+            throw new IllegalArgumentException("Snapshot cannot be null");
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            snapshot.writeTo(out);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode snapshot for leaderboard " + leaderboardId, e);
+        }
+        // Not cached here: the enclosing transaction may still roll back
+        jdbcTemplate.update(UPSERT_SNAPSHOT, leaderboardId, snapshot.size(), bytes.toByteArray(), Timestamp.from(Instant.now()));
+    }
+    
+    @Override
+    public Optional<LeaderboardSnapshot> findByLeaderboardId(String leaderboardId) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        
+        LeaderboardSnapshot cached = cache.get(leaderboardId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        LeaderboardSnapshot snapshot = jdbcTemplate.query(SELECT_SNAPSHOT, rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(rs.getBinaryStream("data")))) {
+                return LeaderboardSnapshot.readFrom(in);
+            } catch (IOException e) {
+                System.err.println("Failed to decode snapshot of leaderboard " + leaderboardId + ", error: " + e.getMessage());
+                return null;
+            }
+        }, leaderboardId);
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        cache.put(leaderboardId, snapshot);
+        return Optional.of(snapshot);
+    }
+}
@@ -0,0 +1,219 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.TopNPage;
+import com.leaderboard.platform.model.UserScoreRankRefresh;
+import com.leaderboard.platform.repository.UserScoreRankRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Materialized per-leaderboard ranks in user_score_ranks, rebuilt with a window function for
+ * boards whose scores changed. Lookups are primary key or (leaderboard_id, rank) index reads;
+ * rankings older than the configured staleness bound are not served.
+ */
+@Repository
+public class JdbcUserScoreRankRepository implements UserScoreRankRepository {
+    
+    // Boards with a score written since the cutoff (idx_user_score_timestamp) and not rebuilt after it
+    private static final String CHANGED_LEADERBOARDS =
+        "SELECT s.leaderboard_id FROM user_scores s " +
+        "LEFT JOIN user_score_rank_refreshes r ON r.leaderboard_id = s.leaderboard_id " +
+        "WHERE s.timestamp >= ? " +
+        "GROUP BY s.leaderboard_id, r.refreshed_at " +
+        "HAVING r.refreshed_at IS NULL OR MAX(s.timestamp) >= r.refreshed_at - ? * INTERVAL '1 millisecond'";
+    // Serializes rebuilds of one board across instances until the rebuilding transaction ends
+    private static final String LOCK_LEADERBOARD = "SELECT pg_advisory_xact_lock(hashtext(?))";
+    private static final String DELETE_RANKS = "DELETE FROM user_score_ranks WHERE leaderboard_id = ?";
+    private static final String INSERT_RANKS =
+        "INSERT INTO user_score_ranks (leaderboard_id, user_id, rank, score, timestamp) " +
+        "SELECT leaderboard_id, user_id, ROW_NUMBER() OVER (ORDER BY score DESC, timestamp ASC), score, timestamp " +
+        "FROM user_scores WHERE leaderboard_id = ?";
+    private static final String UPSERT_REFRESH =
+        "INSERT INTO user_score_rank_refreshes (leaderboard_id, total_users, refreshed_at) VALUES (?, ?, ?) " +
+        "ON CONFLICT (leaderboard_id) DO UPDATE SET total_users = EXCLUDED.total_users, refreshed_at = EXCLUDED.refreshed_at";
+    private static final String CLAIM_CYCLE =
+        "UPDATE rank_refresh_cycles SET claimed_at = ? WHERE job_name = ? AND claimed_at <= ? RETURNING changed_since";
+    private static final String INSERT_CYCLE =
+        "INSERT INTO rank_refresh_cycles (job_name, changed_since, claimed_at) VALUES (?, ?, ?) " +
+        "ON CONFLICT (job_name) DO NOTHING";
+    private static final String COMPLETE_CYCLE =
+        "UPDATE rank_refresh_cycles SET changed_since = ? WHERE job_name = ? AND claimed_at = ?";
+    private static final String SELECT_RANK =
+        "SELECT k.rank, k.score, k.timestamp, r.refreshed_at FROM user_score_ranks k " +
+        "JOIN user_score_rank_refreshes r ON r.leaderboard_id = k.leaderboard_id " +
+        "WHERE k.leaderboard_id = ? AND k.user_id = ? AND r.refreshed_at >= ?";
+    private static final String SELECT_RANKS =
+        "SELECT k.user_id, k.rank, k.score, k.timestamp, r.refreshed_at FROM user_score_ranks k " +
+        "JOIN user_score_rank_refreshes r ON r.leaderboard_id = k.leaderboard_id " +
+        "WHERE k.leaderboard_id = ? AND r.refreshed_at >= ? AND k.user_id IN (%s)";
+    private static final String SELECT_REFRESH =
+        "SELECT total_users, refreshed_at FROM user_score_rank_refreshes WHERE leaderboard_id = ? AND refreshed_at >= ?";
+    private static final String SELECT_TOP_N =
+        "SELECT user_id, rank, score, timestamp FROM user_score_ranks " +
+        "WHERE leaderboard_id = ? AND rank <= ? ORDER BY rank";
+    
+    private static final String REFRESH_JOB = "materialized-ranks";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Rankings refreshed longer ago than this are ignored and readers fall back to live storage
+    @Value("${leaderboard.ranks.max-staleness-ms:300000}")
+    private long maxStalenessMillis;
+    
+    // Allowance for clock skew between instances and for writes that commit after their timestamp
+    @Value("${leaderboard.ranks.change-margin-ms:10000}")
+    private long changeMarginMillis;
+    
+    @Autowired
+    public JdbcUserScoreRankRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public List<String> findLeaderboardIdsToRefresh(Instant changedSince) {
+        return jdbcTemplate.queryForList(CHANGED_LEADERBOARDS, String.class,
+            Timestamp.from(changedSince.minusMillis(changeMarginMillis)), changeMarginMillis);
+    }
+    
+    /**
+     * Claim the next refresh cycle unless another instance claimed one within the lease.
+     * Returns the instant boards changed since need a rebuild; the very first cycle looks at
+     * every board. An unfinished cycle's claim simply runs out and its range is retried.
+     */
+    @Override
+    @Transactional
+    public Optional<Instant> claimRefreshCycle(Instant cycleStart, Duration lease) {
+        Timestamp claimedAt = cycleTimestamp(cycleStart);
+        List<Timestamp> changedSince = jdbcTemplate.queryForList(CLAIM_CYCLE, Timestamp.class,
+            claimedAt, REFRESH_JOB, cycleTimestamp(cycleStart.minus(lease)));
+        if (!changedSince.isEmpty()) {
+            return Optional.of(changedSince.get(0).toInstant());
+        }
+        boolean first = jdbcTemplate.update(INSERT_CYCLE, REFRESH_JOB, Timestamp.from(Instant.EPOCH), claimedAt) > 0;
+        return first ? Optional.of(Instant.EPOCH) : Optional.empty();
+    }
+    
+    /**
+     * Move the watermark to the start of a completed cycle, unless its claim was taken over.
+     */
+    @Override
+    public void completeRefreshCycle(Instant cycleStart) {
+        Timestamp claimedAt = cycleTimestamp(cycleStart);
+        jdbcTemplate.update(COMPLETE_CYCLE, claimedAt, REFRESH_JOB, claimedAt);
+    }
+    
+    /**
+     * Rebuild one board's ranks in a single transaction; readers keep seeing the previous
+     * ranking until it commits, and a concurrent rebuild of the same board on another
+     * instance waits for it. Returns the number of ranked users.
+     */
+    @Override
+    @Transactional
+    public long refresh(String leaderboardId) {
+        jdbcTemplate.query(LOCK_LEADERBOARD, rs -> { }, leaderboardId);
+        // Taken before the ranking is read, so the recorded time never overstates freshness
+        Instant refreshedAt = Instant.now();
+        jdbcTemplate.update(DELETE_RANKS, leaderboardId);
+        long totalUsers = jdbcTemplate.update(INSERT_RANKS, leaderboardId);
+        jdbcTemplate.update(UPSERT_REFRESH, leaderboardId, totalUsers, Timestamp.from(refreshedAt));
+        return totalUsers;
+    }
+    
+    @Override
+    public Optional<RankedUser> findRank(String leaderboardId, String userId) {
+        List<RankedUser> ranks = jdbcTemplate.query(SELECT_RANK, (rs, rowNum) -> RankedUser.builder()
+            .userId(userId)
+            .rank(rs.getInt("rank"))
+            .score(rs.getDouble("score"))
+            .timestamp(rs.getTimestamp("timestamp").toInstant())
+            .rankedAt(rs.getTimestamp("refreshed_at").toInstant())
+            .build(), leaderboardId, userId, freshnessCutoff());
+        return ranks.stream().findFirst();
+    }
+    
+    /**
+     * Materialized ranks of many users with one primary key lookup; users without a fresh
+     * rank are left out of the result.
+     */
+    @Override
+    public Map<String, RankedUser> findRanks(String leaderboardId, Collection<String> userIds) {
+        Map<String, RankedUser> ranks = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return ranks;
+        }
+        
+        List<Object> args = new ArrayList<>(userIds.size() + 2);
+        args.add(leaderboardId);
+        args.add(freshnessCutoff());
+        args.addAll(userIds);
+        String sql = String.format(SELECT_RANKS, String.join(", ", Collections.nCopies(userIds.size(), "?")));
+        jdbcTemplate.query(sql, rs -> {
+            String userId = rs.getString("user_id");
+            ranks.put(userId, RankedUser.builder()
+                .userId(userId)
+                .rank(rs.getInt("rank"))
+                .score(rs.getDouble("score"))
+                .timestamp(rs.getTimestamp("timestamp").toInstant())
+                .rankedAt(rs.getTimestamp("refreshed_at").toInstant())
+                .build());
+        }, args.toArray());
+        return ranks;
+    }
+    
+    /**
+     * Top N of the materialized ranking, or null if the board has no fresh enough ranking.
+     * Both statements run in one read-only transaction, so the page matches the recorded total.
+     * A failure here must not mark an enclosing read-only transaction rollback-only: the caller
+     * falls back to live storage within it.
+     */
+    @Override
+    @Transactional(readOnly = true, noRollbackFor = Exception.class)
+    public TopNPage findTopNPage(String leaderboardId, int limit) {
+        UserScoreRankRefresh refresh = jdbcTemplate.query(SELECT_REFRESH, rs -> rs.next()
+            ? UserScoreRankRefresh.builder()
+                .leaderboardId(leaderboardId)
+                .totalUsers(rs.getLong("total_users"))
+                .refreshedAt(rs.getTimestamp("refreshed_at").toInstant())
+                .build()
+            : null, leaderboardId, freshnessCutoff());
+        if (refresh == null) {
+            return null;
+        }
+        
+        List<RankedUser> users = new ArrayList<>(Math.min(limit, 1024));
+        jdbcTemplate.query(SELECT_TOP_N, rs -> {
+            users.add(RankedUser.builder()
+                .userId(rs.getString("user_id"))
+                .rank(rs.getInt("rank"))
+                .score(rs.getDouble("score"))
+                .timestamp(rs.getTimestamp("timestamp").toInstant())
+                .build());
+        }, leaderboardId, limit);
+        return TopNPage.of(users, refresh.getTotalUsers(), null, refresh.getRefreshedAt());
+    }
+    
+    // Claims are matched by value, so keep them within what a TIMESTAMP column stores exactly
+    private static Timestamp cycleTimestamp(Instant instant) {
+        return Timestamp.from(instant.truncatedTo(ChronoUnit.MILLIS));
+    }
+    
+    private Timestamp freshnessCutoff() {
+        return Timestamp.from(Instant.now().minusMillis(maxStalenessMillis));
+    }
+}
@@ -1,33 +1,194 @@
 package com.leaderboard.platform.repository.impl;
 
+import com.leaderboard.platform.model.HistogramSpec;
 import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.RankedUserConsumer;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.ScoreWrite;
+import com.leaderboard.platform.model.TopNPage;
+import com.leaderboard.platform.model.WindowBucket;
 import com.leaderboard.platform.repository.RedisRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.ConnectionPoolConfig;
 import redis.clients.jedis.DefaultJedisClientConfig;
-import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
 import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.providers.ClusterConnectionProvider;
+import redis.clients.jedis.resps.ScanResult;
 import redis.clients.jedis.resps.Tuple;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Repository
 public class JedisRedisRepository implements RedisRepository {
     
     private static final String LEADERBOARD_KEY_PREFIX = "leaderboard:";
+    private static final String POD_KEY_PREFIX = "pod:";
+    // Hash of pod aggregates that missed a score change: podId -> count of misses so far
+    private static final String STALE_POD_AGGREGATES_KEY = POD_KEY_PREFIX + "stale-aggregates";
+    private static final String IDEMPOTENCY_KEY_PREFIX = "idempotency:";
     private static final long MAX_TIMESTAMP = 9999999999999L; // Year 2286 in milliseconds
     private static final long SCORE_MULTIPLIER = 10_000_000_000_000_000L; // 10^16 to ensure score takes precedence
+    // Written to the primary and read back from each replica to measure replication staleness
+    private static final String REPLICATION_HEARTBEAT_KEY_PREFIX = "replication:heartbeat:";
+    private static final long HEARTBEAT_MIN_TTL_MILLIS = 60_000;
+    // Members per ZADD when bulk loading; keeps each command well below Redis' argument limits
+    private static final int ZADD_BATCH_SIZE = 1000;
     
-    private JedisPool jedisPool;
+    /**
+     * Bumps a leaderboard version (versionKey) to the larger of its successor and the server time
+     * in microseconds, so the version keeps increasing even when a failover loses the latest
+     * bumps. A version key that has to be created gets a new epoch token (epochKey): a counter
+     * reset by a flush never repeats a version that was handed out before.
+     */
+    private static final String BUMP_VERSION_FUNCTION =
+        "local function bumpVersion(versionKey, epochKey, epoch) " +
+        "  local time = redis.call('TIME') " +
+        "  local now = tonumber(time[1]) * 1000000 + tonumber(time[2]) " +
+        "  local current = tonumber(redis.call('GET', versionKey) or '0') " +
+        "  redis.call('SET', versionKey, string.format('%.0f', math.max(current + 1, now))) " +
+        "  if current == 0 or redis.call('EXISTS', epochKey) == 0 then " +
+        "    redis.call('SET', epochKey, epoch) " +
+        "  end " +
+        "end ";
+    
+    /**
+     * Applies one score submission to the all-time sorted set (KEYS[1]), moves the user between
+     * buckets of the score histogram (KEYS[2]), bumps the leaderboard version (KEYS[3], epoch in
+     * KEYS[4]) and writes every window sorted set it falls into (KEYS[5..n]), refreshing each
+     * window's expiry. In standalone mode the pod aggregate the board feeds comes first among
+     * those keys and gets the change of the user's score in the same step. Returns the 0-based
+     * rank on the all-time board and that change, which cluster mode applies to the aggregate.
+     * ARGV[1] = member, ARGV[2] = composite score, ARGV[3] = histogram bucket count (0 = none),
+     * ARGV[4] = histogram min, ARGV[5] = bucket width, ARGV[6] = epoch token for a new version,
+     * ARGV[7] = '1' if KEYS[5] is the pod aggregate, ARGV[8..] = expire-at millis per window key.
+     */
+    private static final String WRITE_SCORE_SCRIPT = BUMP_VERSION_FUNCTION +
+        "local previous = redis.call('ZSCORE', KEYS[1], ARGV[1]) " +
+        "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) " +
+        "local buckets = tonumber(ARGV[3]) " +
+        "if buckets > 0 then " +
+        "  local function bucket(composite) " +
+        "    local score = math.floor(tonumber(composite) / 1e16) " +
+        "    local b = math.floor((score - tonumber(ARGV[4])) / tonumber(ARGV[5])) " +
+        "    return math.max(0, math.min(buckets - 1, b)) " +
+        "  end " +
+        "  local current = bucket(ARGV[2]) " +
+        "  if not previous then " +
+        "    redis.call('HINCRBY', KEYS[2], current, 1) " +
+        "  elseif bucket(previous) ~= current then " +
+        "    redis.call('HINCRBY', KEYS[2], bucket(previous), -1) " +
+        "    redis.call('HINCRBY', KEYS[2], current, 1) " +
+        "  end " +
+        "end " +
+        "bumpVersion(KEYS[3], KEYS[4], ARGV[6]) " +
+        "local delta = math.floor(tonumber(ARGV[2]) / 1e16) " +
+        "if previous then delta = delta - math.floor(tonumber(previous) / 1e16) end " +
+        "local firstWindow = 5 " +
+        "if ARGV[7] == '1' then " +
+        "  firstWindow = 6 " +
+        "  if delta ~= 0 then redis.call('ZINCRBY', KEYS[5], delta, ARGV[1]) end " +
+        "end " +
+        "for i = firstWindow, #KEYS do " +
+        "  redis.call('ZADD', KEYS[i], ARGV[2], ARGV[1]) " +
+        "  redis.call('PEXPIREAT', KEYS[i], ARGV[i + 8 - firstWindow]) " +
+        "end " +
+        "return {redis.call('ZREVRANK', KEYS[1], ARGV[1]), delta}";
+    
+    private static final String BUMP_VERSION_SCRIPT = BUMP_VERSION_FUNCTION + "bumpVersion(KEYS[1], KEYS[2], ARGV[1])";
+    
+    /**
+     * Adds ARGV[1] to member ARGV[2] of a pod aggregate (KEYS[1]) unless a rebuild holds the
+     * aggregate's lock (KEYS[2]). Returns 0 when the change was skipped.
+     */
+    private static final String APPLY_POD_DELTA_SCRIPT =
+        "if redis.call('EXISTS', KEYS[2]) == 1 then return 0 end " +
+        "redis.call('ZINCRBY', KEYS[1], ARGV[1], ARGV[2]) " +
+        "return 1";
+    
+    /**
+     * Moves a rebuilt pod aggregate (KEYS[2]) over the live one (KEYS[1]), or deletes the live one
+     * if ARGV[2] is '1' (nothing to rebuild), and releases the rebuild lock (KEYS[3]), all only
+     * while the lock still holds token ARGV[1]. Returns 0 if the lock was lost.
+     */
+    private static final String FINISH_POD_REBUILD_SCRIPT =
+        "if redis.call('GET', KEYS[3]) ~= ARGV[1] then " +
+        "  redis.call('DEL', KEYS[2]) " +
+        "  return 0 " +
+        "end " +
+        "if ARGV[2] == '1' then redis.call('DEL', KEYS[1], KEYS[2]) else redis.call('RENAME', KEYS[2], KEYS[1]) end " +
+        "redis.call('DEL', KEYS[3]) " +
+        "return 1";
+    
+    // Deletes a rebuild lock (KEYS[1]) only if it still holds token ARGV[1]
+    private static final String RELEASE_POD_REBUILD_LOCK_SCRIPT =
+        "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+        "return 0";
+    
+    // Clears a stale mark (KEYS[1] field ARGV[1]) only if no further miss was counted (ARGV[2])
+    private static final String CLEAR_STALE_MARK_SCRIPT =
+        "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then return redis.call('HDEL', KEYS[1], ARGV[1]) end " +
+        "return 0";
+    
+    /**
+     * Reads the top ARGV[1] members with scores of KEYS[1], its size, the leaderboard version
+     * (KEYS[2]) and its epoch (KEYS[3]) in one atomic step; version and epoch are nil before
+     * the first write.
+     */
+    private static final byte[] READ_TOP_N_PAGE_SCRIPT = (
+        "return {redis.call('ZREVRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1, 'WITHSCORES'), " +
+        "redis.call('ZCARD', KEYS[1]), " +
+        "redis.call('GET', KEYS[2]), redis.call('GET', KEYS[3])}").getBytes(StandardCharsets.UTF_8);
+    
+    // JedisPooled in standalone mode, JedisCluster in cluster mode
+    private UnifiedJedis jedis;
+    private ClusterConnectionProvider clusterConnectionProvider;
+    private ScheduledExecutorService topologyRefresher;
     private volatile boolean available = false;
     
+    // Stale pod aggregates whose mark could not be recorded in Redis yet
+    private final Set<String> unrecordedStalePodAggregates = ConcurrentHashMap.newKeySet();
+    
+    // This instance's replication heartbeat, e.g. "replication:heartbeat:{<uuid>}"
+    private final String heartbeatKey = REPLICATION_HEARTBEAT_KEY_PREFIX + "{" + UUID.randomUUID() + "}";
+    
+    // Read-only replicas of the standalone primary, used by read paths while they are fresh enough
+    private final List<ReplicaEndpoint> replicas = new ArrayList<>();
+    private final AtomicInteger replicaCursor = new AtomicInteger();
+    private ScheduledExecutorService replicaLagMonitor;
+    
+    // Set when members are stored as dictionary-encoded integer ids instead of raw userIds
+    private RedisMemberDictionary memberDictionary;
+    
     @Value("${redis.host:localhost}")
     private String redisHost;
     
@@ -43,18 +204,53 @@ public class JedisRedisRepository implements RedisRepository {
     @Value("${redis.timeout:2000}")
     private int timeout;
     
+    @Value("${redis.cluster.enabled:false}")
+    private boolean clusterEnabled;
+    
+    // Comma separated host:port seed nodes, e.g. "redis-0:6379,redis-1:6379"
+    @Value("${redis.cluster.nodes:}")
+    private String clusterNodes;
+    
+    @Value("${redis.cluster.max-attempts:5}")
+    private int clusterMaxAttempts;
+    
+    @Value("${redis.cluster.topology-refresh-ms:30000}")
+    private long topologyRefreshMillis;
+    
+    // Comma separated host:port replica endpoints; empty routes all reads to the primary
+    @Value("${redis.replicas.nodes:}")
+    private String replicaNodes;
+    
+    @Value("${redis.replicas.max-staleness-ms:1000}")
+    private long replicaMaxStalenessMillis;
+    
+    @Value("${redis.replicas.lag-check-ms:500}")
+    private long replicaLagCheckMillis;
+    
+    // One-off rename of keys written before they were hash-tagged; scans the whole keyspace
+    @Value("${redis.migrate-legacy-keys:false}")
+    private boolean migrateLegacyKeys;
+    
+    // How long a pod aggregate rebuild may hold its lock
+    @Value("${redis.pod-rebuild-lease-ms:60000}")
+    private long podRebuildLeaseMillis;
+    
+    @Value("${redis.member-dictionary.enabled:false}")
+    private boolean memberDictionaryEnabled;
+    
+    @Value("${redis.member-dictionary.cache-size:100000}")
+    private int memberDictionaryCacheSize;
+    
     @PostConstruct
     public void init() {
         try {
-            JedisPoolConfig poolConfig = new JedisPoolConfig();
+            ConnectionPoolConfig poolConfig = new ConnectionPoolConfig();
             poolConfig.setMaxTotal(128);
             poolConfig.setMaxIdle(32);
             poolConfig.setMinIdle(8);
             poolConfig.setTestOnBorrow(true);
             poolConfig.setTestOnReturn(true);
             
-            HostAndPort hostAndPort = new HostAndPort(redisHost, redisPort);
-            
             // Configure client with SSL and password if needed
             DefaultJedisClientConfig.Builder clientConfigBuilder = DefaultJedisClientConfig.builder()
                 .connectionTimeoutMillis(timeout)
@@ -69,15 +265,25 @@ public class JedisRedisRepository implements RedisRepository {
             }
             
             DefaultJedisClientConfig clientConfig = clientConfigBuilder.build();
-            jedisPool = new JedisPool(poolConfig, hostAndPort, clientConfig);
+            if (clusterEnabled) {
+                jedis = createClusterClient(poolConfig, clientConfig);
+            } else {
+                jedis = new JedisPooled(new HostAndPort(redisHost, redisPort), clientConfig, poolConfig);
+            }
             
             // Test connection
-            try (Jedis jedis = jedisPool.getResource()) {
-                jedis.ping();
-                available = true;
-                System.out.println("Successfully connected to Redis at " + redisHost + ":" + redisPort + 
-                    (redisSsl ? " (SSL enabled)" : ""));
+            jedis.ping();
+            available = true;
+            if (migrateLegacyKeys && !clusterEnabled) {
+                migrateLegacyKeys();
+            }
+            if (memberDictionaryEnabled) {
+                memberDictionary = new RedisMemberDictionary(jedis, memberDictionaryCacheSize);
             }
+            System.out.println("Successfully connected to Redis " + describeEndpoint() +
+                (redisSsl ? " (SSL enabled)" : ""));
+            
+            initReplicas(poolConfig, clientConfig);
         } catch (Exception e) {
             System.err.println("Failed to initialize Redis connection: " + e.getMessage());
             e.printStackTrace();
@@ -85,10 +291,174 @@ public class JedisRedisRepository implements RedisRepository {
         }
     }
     
+    /**
+     * Build a cluster client over the configured seed nodes. Slot ownership is refreshed
+     * in the background so resharding and failovers are picked up without waiting for
+     * MOVED redirections on the request path.
+     */
+    private UnifiedJedis createClusterClient(ConnectionPoolConfig poolConfig, DefaultJedisClientConfig clientConfig) {
+        Set<HostAndPort> seedNodes = parseClusterNodes();
+        clusterConnectionProvider = new ClusterConnectionProvider(seedNodes, clientConfig, poolConfig);
+        
+        if (topologyRefreshMillis > 0) {
+            topologyRefresher = newDaemonScheduler("redis-topology-refresh");
+            topologyRefresher.scheduleWithFixedDelay(this::refreshClusterTopology,
+                topologyRefreshMillis, topologyRefreshMillis, TimeUnit.MILLISECONDS);
+        }
+        
+        return new JedisCluster(clusterConnectionProvider, clusterMaxAttempts,
+            Duration.ofMillis((long) timeout * clusterMaxAttempts));
+    }
+    
+    private Set<HostAndPort> parseClusterNodes() {
+        Set<HostAndPort> nodes = parseNodes(clusterNodes);
+        if (nodes.isEmpty()) {
+            nodes.add(new HostAndPort(redisHost, redisPort));
+        }
+        return nodes;
+    }
+    
+    private static Set<HostAndPort> parseNodes(String nodeList) {
+        Set<HostAndPort> nodes = new LinkedHashSet<>();
+        if (nodeList != null && !nodeList.trim().isEmpty()) {
+            Arrays.stream(nodeList.split(","))
+                .map(String::trim)
+                .filter(node -> !node.isEmpty())
+                .map(HostAndPort::from)
+                .forEach(nodes::add);
+        }
+        return nodes;
+    }
+    
+    private static ScheduledExecutorService newDaemonScheduler(String threadName) {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Connect to the configured read replicas. A replica only serves reads while its measured
+     * staleness is within redis.replicas.max-staleness-ms; until the first lag check passes,
+     * and whenever it falls behind, reads go to the primary.
+     */
+    private void initReplicas(ConnectionPoolConfig poolConfig, DefaultJedisClientConfig clientConfig) {
+        Set<HostAndPort> replicaEndpoints = parseNodes(replicaNodes);
+        if (replicaEndpoints.isEmpty()) {
+            return;
+        }
+        if (clusterEnabled) {
+            System.err.println("Ignoring redis.replicas.nodes: replica reads are only supported in standalone mode");
+            return;
+        }
+        
+        for (HostAndPort endpoint : replicaEndpoints) {
+            addReplica(endpoint, new JedisPooled(endpoint, clientConfig, poolConfig));
+        }
+        
+        replicaLagMonitor = newDaemonScheduler("redis-replica-lag-monitor");
+        replicaLagMonitor.scheduleWithFixedDelay(this::checkReplicaLag,
+            0, replicaLagCheckMillis, TimeUnit.MILLISECONDS);
+        System.out.println("Routing Redis reads to replicas " + replicaEndpoints +
+            " (max staleness " + replicaMaxStalenessMillis + "ms)");
+    }
+    
+    void addReplica(HostAndPort endpoint, JedisPooled client) {
+        replicas.add(new ReplicaEndpoint(endpoint, client));
+    }
+    
+    /**
+     * Measure each replica's staleness by writing a heartbeat timestamp to the primary and
+     * reading back the value the replica currently holds. Staleness seen by a read is therefore
+     * bounded by the measured lag plus one check interval. Each instance uses its own heartbeat
+     * key, so instances never overwrite each other's timestamps or compare against another
+     * host's clock; the key expires once its instance is gone.
+     */
+    void checkReplicaLag() {
+        long now = System.currentTimeMillis();
+        try {
+            jedis.set(heartbeatKey, Long.toString(now),
+                SetParams.setParams().px(Math.max(HEARTBEAT_MIN_TTL_MILLIS, replicaLagCheckMillis * 10)));
+        } catch (Exception e) {
+            // Without a fresh heartbeat we cannot bound staleness, so stop using replicas
+            replicas.forEach(replica -> replica.fresh = false);
+            return;
+        }
+        
+        for (ReplicaEndpoint replica : replicas) {
+            try {
+                String heartbeat = replica.client.get(heartbeatKey);
+                long lag = heartbeat == null ? Long.MAX_VALUE : System.currentTimeMillis() - Long.parseLong(heartbeat);
+                boolean fresh = lag <= replicaMaxStalenessMillis;
+                if (fresh != replica.fresh) {
+                    System.out.println("Redis replica " + replica.endpoint + (fresh ? " is serving reads" :
+                        " lags the primary beyond " + replicaMaxStalenessMillis + "ms, reading from primary"));
+                }
+                replica.fresh = fresh;
+            } catch (Exception e) {
+                replica.fresh = false;
+            }
+        }
+    }
+    
+    /**
+     * Client for read-only commands: the next fresh replica in round-robin order,
+     * or the primary when no replica is within the staleness bound.
+     */
+    private UnifiedJedis readClient() {
+        int size = replicas.size();
+        for (int i = 0; i < size; i++) {
+            ReplicaEndpoint replica = replicas.get(Math.floorMod(replicaCursor.getAndIncrement(), size));
+            if (replica.fresh) {
+                return replica.client;
+            }
+        }
+        return jedis;
+    }
+    
+    private void refreshClusterTopology() {
+        try {
+            clusterConnectionProvider.renewSlotCache();
+        } catch (Exception e) {
+            System.err.println("Failed to refresh Redis cluster topology: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Rename sorted sets written before keys were hash-tagged ("leaderboard:<id>") to their
+     * tagged form. Only needed once, on standalone deployments upgraded from the old layout;
+     * cluster deployments start empty.
+     */
+    private void migrateLegacyKeys() {
+        ScanParams params = new ScanParams().match(LEADERBOARD_KEY_PREFIX + "*").count(1000);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        do {
+            ScanResult<String> page = jedis.scan(cursor, params);
+            for (String key : page.getResult()) {
+                if (!key.contains("{")) {
+                    jedis.renamenx(key, leaderboardKey(key.substring(LEADERBOARD_KEY_PREFIX.length())));
+                }
+            }
+            cursor = page.getCursor();
+        } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+    }
+    
+    private String describeEndpoint() {
+        return clusterEnabled ? "cluster via " + parseClusterNodes() : "at " + redisHost + ":" + redisPort;
+    }
+    
     @PreDestroy
     public void destroy() {
-        if (jedisPool != null && !jedisPool.isClosed()) {
-            jedisPool.close();
+        if (topologyRefresher != null) {
+            topologyRefresher.shutdownNow();
+        }
+        if (replicaLagMonitor != null) {
+            replicaLagMonitor.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.client.close());
+        if (jedis != null) {
+            jedis.close();
         }
     }
     
@@ -98,7 +468,7 @@ public class JedisRedisRepository implements RedisRepository {
             return false;
         }
         
-        try (Jedis jedis = jedisPool.getResource()) {
+        try {
             jedis.ping();
             return true;
         } catch (Exception e) {
@@ -117,8 +487,8 @@ public class JedisRedisRepository implements RedisRepository {
             throw new RuntimeException("Redis is not available");
         }
         
-        String key = LEADERBOARD_KEY_PREFIX + leaderboardId;
-        try (Jedis jedis = jedisPool.getResource()) {
+        String key = leaderboardKey(leaderboardId);
+        try {
             // Create empty sorted set if it doesn't exist
             jedis.zcard(key);
         } catch (Exception e) {
@@ -127,24 +497,419 @@ public class JedisRedisRepository implements RedisRepository {
     }
     
     @Override
-    public void updateScore(String leaderboardId, String userId, double compositeScore) {
+    public void deleteLeaderboard(String leaderboardId, Collection<WindowBucket> windows) {
         if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
             throw new IllegalArgumentException("LeaderboardId cannot be null or empty");
         }
-        if (userId == null || userId.trim().isEmpty()) {
-            throw new IllegalArgumentException("UserId cannot be null or empty");
+        
+        if (!isAvailable()) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        // Every key is known up front, so no keyspace scan; the shared hash tag keeps them on one node
+        List<String> keys = new ArrayList<>();
+        keys.add(leaderboardKey(leaderboardId));
+        keys.add(histogramKey(leaderboardId));
+        keys.add(versionKey(leaderboardId));
+        keys.add(epochKey(leaderboardId));
+        for (WindowBucket window : windows) {
+            keys.add(leaderboardKey(leaderboardId, window));
+        }
+        try {
+            jedis.del(keys.toArray(new String[0]));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to delete leaderboard from Redis", e);
+        }
+    }
+    
+    @Override
+    public void updateScore(String leaderboardId, String userId, double compositeScore) {
+        // Through the write script so the leaderboard version is bumped as well
+        writeScore(ScoreWrite.builder()
+            .leaderboardId(leaderboardId)
+            .userId(userId)
+            .compositeScore(compositeScore)
+            .build());
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public Long writeScore(ScoreWrite write) {
+        validateScoreWrite(write);
+        
+        if (!isAvailable()) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        List<Object> reply;
+        try {
+            reply = (List<Object>) jedis.eval(WRITE_SCORE_SCRIPT, writeScoreKeys(write), writeScoreArgs(write));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to write score to Redis", e);
+        }
+        
+        Long rank = (Long) reply.get(0);
+        applyPodAggregateDelta(write, (Long) reply.get(1));
+        return rank != null ? rank + 1 : null; // Convert to 1-based ranking
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Long> writeScores(List<ScoreWrite> writes) {
+        if (writes == null || writes.isEmpty()) {
+            return new ArrayList<>();
         }
+        writes.forEach(this::validateScoreWrite);
         
         if (!isAvailable()) {
             throw new RuntimeException("Redis is not available");
         }
         
-        String key = LEADERBOARD_KEY_PREFIX + leaderboardId;
-        try (Jedis jedis = jedisPool.getResource()) {
-            jedis.zadd(key, compositeScore, userId);
+        // In cluster mode this is a ClusterPipeline, which groups commands per slot owner
+        List<Long> ranks = new ArrayList<>(writes.size());
+        List<Long> deltas = new ArrayList<>(writes.size());
+        try (AbstractPipeline pipeline = jedis.pipelined()) {
+            List<Response<Object>> responses = new ArrayList<>(writes.size());
+            for (ScoreWrite write : writes) {
+                responses.add(pipeline.eval(WRITE_SCORE_SCRIPT, writeScoreKeys(write), writeScoreArgs(write)));
+            }
+            pipeline.sync();
+            
+            for (Response<Object> response : responses) {
+                List<Object> reply = (List<Object>) response.get();
+                Long rank = (Long) reply.get(0);
+                ranks.add(rank != null ? rank + 1 : null);
+                deltas.add((Long) reply.get(1));
+            }
         } catch (Exception e) {
-            throw new RuntimeException("Failed to update score in Redis", e);
+            throw new RuntimeException("Failed to write scores to Redis", e);
         }
+        
+        applyPodAggregateDeltas(writes, deltas);
+        return ranks;
+    }
+    
+    /**
+     * Load many scores without reading ranks back, as bulk imports do. Boards whose writes feed
+     * no histogram, window or pod aggregate get pipelined multi-member ZADDs and one version bump;
+     * the others go through the write script so those structures stay consistent.
+     */
+    @Override
+    public void loadScores(List<ScoreWrite> writes) {
+        if (writes == null || writes.isEmpty()) {
+            return;
+        }
+        writes.forEach(this::validateScoreWrite);
+        
+        if (!isAvailable()) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        Map<String, List<ScoreWrite>> byLeaderboard = new LinkedHashMap<>();
+        for (ScoreWrite write : writes) {
+            byLeaderboard.computeIfAbsent(write.getLeaderboardId(), k -> new ArrayList<>()).add(write);
+        }
+        for (Map.Entry<String, List<ScoreWrite>> entry : byLeaderboard.entrySet()) {
+            if (entry.getValue().stream().allMatch(JedisRedisRepository::isPlainScoreWrite)) {
+                zaddScores(entry.getKey(), entry.getValue());
+            } else {
+                writeScores(entry.getValue());
+            }
+        }
+    }
+    
+    private static boolean isPlainScoreWrite(ScoreWrite write) {
+        return write.getHistogram() == null
+            && (write.getWindows() == null || write.getWindows().isEmpty())
+            && write.getPodId() == null;
+    }
+    
+    private void zaddScores(String leaderboardId, List<ScoreWrite> writes) {
+        String key = leaderboardKey(leaderboardId);
+        try (AbstractPipeline pipeline = jedis.pipelined()) {
+            Map<String, Double> members = new HashMap<>();
+            for (ScoreWrite write : writes) {
+                // A later write of the same user replaces the earlier one, as it would one by one
+                members.put(memberForWrite(write.getUserId()), write.getCompositeScore());
+                if (members.size() == ZADD_BATCH_SIZE) {
+                    pipeline.zadd(key, members);
+                    members = new HashMap<>();
+                }
+            }
+            if (!members.isEmpty()) {
+                pipeline.zadd(key, members);
+            }
+            pipeline.eval(BUMP_VERSION_SCRIPT, List.of(versionKey(leaderboardId), epochKey(leaderboardId)),
+                List.of(newEpoch()));
+            pipeline.sync();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load scores into Redis", e);
+        }
+    }
+    
+    /**
+     * In standalone mode every key lives on one node, so the write script updates the pod
+     * aggregate itself. In cluster mode the aggregate lives in the pod's own slot and cannot
+     * join the board's script.
+     */
+    private boolean podAggregateInScript(ScoreWrite write) {
+        return write.getPodId() != null && !clusterEnabled;
+    }
+    
+    /**
+     * Add a board's score change to its pod aggregate in cluster mode. The delta is computed
+     * atomically by the script and applied here, and concurrent increments commute. The board
+     * write has already succeeded, so a failure marks the aggregate stale until it is rebuilt
+     * from storage instead of failing the write. So does a change skipped because a rebuild
+     * holds the aggregate.
+     */
+    private void applyPodAggregateDelta(ScoreWrite write, Long delta) {
+        if (!clusterEnabled || write.getPodId() == null || delta == null || delta == 0) {
+            return;
+        }
+        try {
+            Object applied = jedis.eval(APPLY_POD_DELTA_SCRIPT, podDeltaKeys(write.getPodId()), podDeltaArgs(write, delta));
+            if (Long.valueOf(0).equals(applied)) {
+                markPodAggregateStale(write.getPodId());
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to update pod aggregate " + write.getPodId() + ": " + e.getMessage());
+            markPodAggregateStale(write.getPodId());
+        }
+    }
+    
+    private void applyPodAggregateDeltas(List<ScoreWrite> writes, List<Long> deltas) {
+        if (!clusterEnabled) {
+            return;
+        }
+        Set<String> podIds = new LinkedHashSet<>();
+        for (int i = 0; i < writes.size(); i++) {
+            Long delta = deltas.get(i);
+            if (writes.get(i).getPodId() != null && delta != null && delta != 0) {
+                podIds.add(writes.get(i).getPodId());
+            }
+        }
+        if (podIds.isEmpty()) {
+            return;
+        }
+        
+        Set<String> skipped = new LinkedHashSet<>();
+        try (AbstractPipeline pipeline = jedis.pipelined()) {
+            List<Response<Object>> responses = new ArrayList<>();
+            List<String> responsePodIds = new ArrayList<>();
+            for (int i = 0; i < writes.size(); i++) {
+                ScoreWrite write = writes.get(i);
+                Long delta = deltas.get(i);
+                if (write.getPodId() != null && delta != null && delta != 0) {
+                    responses.add(pipeline.eval(APPLY_POD_DELTA_SCRIPT, podDeltaKeys(write.getPodId()), podDeltaArgs(write, delta)));
+                    responsePodIds.add(write.getPodId());
+                }
+            }
+            pipeline.sync();
+            
+            for (int i = 0; i < responses.size(); i++) {
+                if (Long.valueOf(0).equals(responses.get(i).get())) {
+                    skipped.add(responsePodIds.get(i));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to update pod aggregates: " + e.getMessage());
+            skipped = podIds;
+        }
+        skipped.forEach(this::markPodAggregateStale);
+    }
+    
+    private static List<String> podDeltaKeys(String podId) {
+        return List.of(podAggregateKey(podId), podRebuildLockKey(podId));
+    }
+    
+    private List<String> podDeltaArgs(ScoreWrite write, long delta) {
+        return List.of(Long.toString(delta), memberForWrite(write.getUserId()));
+    }
+    
+    /**
+     * Count a miss of a pod aggregate in Redis, where every instance sees it and it survives
+     * restarts. If Redis cannot take the mark either, it is kept here and recorded later.
+     */
+    private void markPodAggregateStale(String podId) {
+        try {
+            jedis.hincrBy(STALE_POD_AGGREGATES_KEY, podId, 1);
+        } catch (Exception e) {
+            System.err.println("Failed to mark pod aggregate " + podId + " stale in Redis: " + e.getMessage());
+            unrecordedStalePodAggregates.add(podId);
+        }
+    }
+    
+    private void recordStaleMarks() {
+        for (String podId : unrecordedStalePodAggregates) {
+            jedis.hincrBy(STALE_POD_AGGREGATES_KEY, podId, 1);
+            unrecordedStalePodAggregates.remove(podId);
+        }
+    }
+    
+    /**
+     * Pod aggregates that missed a score change since they were last rebuilt, on any instance.
+     */
+    @Override
+    public Set<String> getStalePodAggregates() {
+        if (!isAvailable()) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        try {
+            recordStaleMarks();
+            return jedis.hkeys(STALE_POD_AGGREGATES_KEY);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read stale pod aggregates from Redis", e);
+        }
+    }
+    
+    /**
+     * Whether a pod aggregate is behind storage. Answers true if Redis cannot tell, so callers
+     * fall back to storage rather than serve a possibly stale aggregate.
+     */
+    @Override
+    public boolean isPodAggregateStale(String podId) {
+        if (unrecordedStalePodAggregates.contains(podId)) {
+            return true;
+        }
+        try {
+            return jedis.hexists(STALE_POD_AGGREGATES_KEY, podId);
+        } catch (Exception e) {
+            System.err.println("Failed to check pod aggregate " + podId + " for staleness: " + e.getMessage());
+            return true;
+        }
+    }
+    
+    /**
+     * Replace a pod aggregate with totals rebuilt from storage. The rebuild holds a lock under the
+     * pod's hash tag from before storage is read until the new set is in place; score changes
+     * arriving meanwhile skip the aggregate and mark it stale again, since the totals may or may
+     * not include them. Storage is written before Redis, so every change applied before the lock
+     * is in the totals. The new set is built under a temporary key and renamed over the old one,
+     * so readers never see it half-built, and the stale mark is only cleared if no further change
+     * was missed during the rebuild. Returns false if another rebuild of the pod holds the lock.
+     */
+    @Override
+    public boolean rebuildPodAggregate(String podId, Supplier<Map<String, Double>> totals) {
+        if (podId == null || podId.trim().isEmpty()) {
+            throw new IllegalArgumentException("PodId cannot be null or empty");
+        }
+        
+        if (!isAvailable()) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        String key = podAggregateKey(podId);
+        String rebuildKey = key + ":rebuild";
+        String lockKey = podRebuildLockKey(podId);
+        String token = UUID.randomUUID().toString();
+        String mark;
+        try {
+            if (jedis.set(lockKey, token, SetParams.setParams().nx().px(podRebuildLeaseMillis)) == null) {
+                return false;
+            }
+            mark = jedis.hget(STALE_POD_AGGREGATES_KEY, podId);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to lock pod aggregate " + podId + " for rebuild", e);
+        }
+        
+        Map<String, Double> rebuilt;
+        try {
+            rebuilt = totals.get();
+        } catch (RuntimeException e) {
+            releasePodRebuildLock(lockKey, token);
+            throw e;
+        }
+        try (AbstractPipeline pipeline = jedis.pipelined()) {
+            pipeline.del(rebuildKey);
+            Map<String, Double> members = new HashMap<>();
+            for (Map.Entry<String, Double> total : rebuilt.entrySet()) {
+                members.put(memberForWrite(total.getKey()), total.getValue());
+                if (members.size() == ZADD_BATCH_SIZE) {
+                    pipeline.zadd(rebuildKey, members);
+                    members = new HashMap<>();
+                }
+            }
+            if (!members.isEmpty()) {
+                pipeline.zadd(rebuildKey, members);
+            }
+            Response<Object> finished = pipeline.eval(FINISH_POD_REBUILD_SCRIPT, List.of(key, rebuildKey, lockKey),
+                List.of(token, rebuilt.isEmpty() ? "1" : "0"));
+            pipeline.sync();
+            if (!Long.valueOf(1).equals(finished.get())) {
+                throw new IllegalStateException("rebuild lock expired");
+            }
+        } catch (Exception e) {
+            releasePodRebuildLock(lockKey, token);
+            throw new RuntimeException("Failed to rebuild pod aggregate " + podId, e);
+        }
+        
+        if (mark != null) {
+            try {
+                jedis.eval(CLEAR_STALE_MARK_SCRIPT, List.of(STALE_POD_AGGREGATES_KEY), List.of(podId, mark));
+            } catch (Exception e) {
+                // Still marked, so it is rebuilt once more
+                System.err.println("Failed to clear stale mark of pod aggregate " + podId + ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+    
+    private void releasePodRebuildLock(String lockKey, String token) {
+        try {
+            jedis.eval(RELEASE_POD_REBUILD_LOCK_SCRIPT, List.of(lockKey), List.of(token));
+        } catch (Exception e) {
+            // Expires with its lease
+            System.err.println("Failed to release pod rebuild lock " + lockKey + ": " + e.getMessage());
+        }
+    }
+    
+    private void validateScoreWrite(ScoreWrite write) {
+        if (write == null) {
+            throw new IllegalArgumentException("ScoreWrite cannot be null");
+        }
+        if (write.getLeaderboardId() == null || write.getLeaderboardId().trim().isEmpty()) {
+            throw new IllegalArgumentException("LeaderboardId cannot be null or empty");
+        }
+        if (write.getUserId() == null || write.getUserId().trim().isEmpty()) {
+            throw new IllegalArgumentException("UserId cannot be null or empty");
+        }
+    }
+    
+    private List<String> writeScoreKeys(ScoreWrite write) {
+        List<String> keys = new ArrayList<>();
+        keys.add(leaderboardKey(write.getLeaderboardId()));
+        keys.add(histogramKey(write.getLeaderboardId()));
+        keys.add(versionKey(write.getLeaderboardId()));
+        keys.add(epochKey(write.getLeaderboardId()));
+        if (podAggregateInScript(write)) {
+            keys.add(podAggregateKey(write.getPodId()));
+        }
+        if (write.getWindows() != null) {
+            for (WindowBucket window : write.getWindows()) {
+                keys.add(leaderboardKey(write.getLeaderboardId(), window));
+            }
+        }
+        return keys;
+    }
+    
+    private List<String> writeScoreArgs(ScoreWrite write) {
+        List<String> args = new ArrayList<>();
+        args.add(memberForWrite(write.getUserId()));
+        args.add(Double.toString(write.getCompositeScore()));
+        HistogramSpec histogram = write.getHistogram();
+        args.add(Integer.toString(histogram != null ? histogram.getBuckets() : 0));
+        args.add(Double.toString(histogram != null ? histogram.getMin() : 0.0));
+        args.add(Double.toString(histogram != null ? histogram.bucketWidth() : 1.0));
+        args.add(newEpoch());
+        args.add(podAggregateInScript(write) ? "1" : "0");
+        if (write.getWindows() != null) {
+            for (WindowBucket window : write.getWindows()) {
+                args.add(Long.toString(window.getEnd().toEpochMilli()));
+            }
+        }
+        return args;
     }
     
     @Override
@@ -157,14 +922,20 @@ public class JedisRedisRepository implements RedisRepository {
             return Optional.empty();
         }
         
-        String key = LEADERBOARD_KEY_PREFIX + leaderboardId;
-        try (Jedis jedis = jedisPool.getResource()) {
-            Double compositeScore = jedis.zscore(key, userId);
+        String key = leaderboardKey(leaderboardId);
+        try {
+            String member = memberForRead(userId);
+            if (member == null) {
+                return Optional.empty();
+            }
+            
+            UnifiedJedis client = readClient();
+            Double compositeScore = client.zscore(key, member);
             if (compositeScore == null) {
                 return Optional.empty();
             }
             
-            Long rank = jedis.zrevrank(key, userId);
+            Long rank = client.zrevrank(key, member);
             if (rank == null) {
                 return Optional.empty();
             }
@@ -186,8 +957,64 @@ public class JedisRedisRepository implements RedisRepository {
         }
     }
     
+    /**
+     * Ranks of many users in one pipeline flush: a ZSCORE and a ZREVRANK per user, all sent to
+     * the same client. Skips the PING of isAvailable() to keep it to one round trip.
+     * Every requested userId is present in the result, empty when the user has no score.
+     * Returns null if Redis could not answer.
+     */
+    @Override
+    public Map<String, Optional<RankedUser>> getUserRanks(String leaderboardId, Collection<String> userIds) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty() || userIds == null) {
+            return null;
+        }
+        
+        if (!available) {
+            return null;
+        }
+        
+        String key = leaderboardKey(leaderboardId);
+        Map<String, Optional<RankedUser>> ranks = new LinkedHashMap<>();
+        Map<String, Response<Double>> scores = new LinkedHashMap<>();
+        Map<String, Response<Long>> positions = new LinkedHashMap<>();
+        try (AbstractPipeline pipeline = readClient().pipelined()) {
+            for (String userId : userIds) {
+                String member = memberForRead(userId);
+                ranks.put(userId, Optional.empty());
+                if (member != null) {
+                    scores.put(userId, pipeline.zscore(key, member));
+                    positions.put(userId, pipeline.zrevrank(key, member));
+                }
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            System.err.println("Failed to get user ranks from Redis: " + e.getMessage());
+            return null;
+        }
+        
+        for (Map.Entry<String, Response<Double>> entry : scores.entrySet()) {
+            Double compositeScore = entry.getValue().get();
+            Long rank = positions.get(entry.getKey()).get();
+            if (compositeScore == null || rank == null) {
+                continue;
+            }
+            ranks.put(entry.getKey(), Optional.of(RankedUser.builder()
+                .userId(entry.getKey())
+                .rank(rank.intValue() + 1) // Redis ranks are 0-based
+                .score(Math.floor(compositeScore / SCORE_MULTIPLIER))
+                .timestamp(Instant.ofEpochMilli(extractTimestampFromComposite(compositeScore)))
+                .build()));
+        }
+        return ranks;
+    }
+    
     @Override
     public List<RankedUser> getTopN(String leaderboardId, int limit) {
+        return getTopN(leaderboardId, null, limit);
+    }
+    
+    @Override
+    public List<RankedUser> getTopN(String leaderboardId, WindowBucket window, int limit) {
         if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
             return new ArrayList<>();
         }
@@ -199,16 +1026,17 @@ public class JedisRedisRepository implements RedisRepository {
             return new ArrayList<>();
         }
         
-        String key = LEADERBOARD_KEY_PREFIX + leaderboardId;
-        try (Jedis jedis = jedisPool.getResource()) {
+        String key = leaderboardKey(leaderboardId, window);
+        try {
             // Get top N with scores (descending order)
-            List<Tuple> tuples = jedis.zrevrangeWithScores(key, 0, limit - 1);
+            List<Tuple> tuples = readClient().zrevrangeWithScores(key, 0, limit - 1);
+            List<String> userIds = userIdsForMembers(tuples.stream().map(Tuple::getElement).toList());
             
             List<RankedUser> rankedUsers = new ArrayList<>();
             int rank = 1;
-            for (Tuple tuple : tuples) {
-                String userId = tuple.getElement();
-                double compositeScore = tuple.getScore();
+            for (int i = 0; i < tuples.size(); i++) {
+                String userId = userIds.get(i);
+                double compositeScore = tuples.get(i).getScore();
                 
                 // Extract original score and timestamp
                 double originalScore = Math.floor(compositeScore / SCORE_MULTIPLIER);
@@ -230,6 +1058,110 @@ public class JedisRedisRepository implements RedisRepository {
         }
     }
     
+    /**
+     * Scores of the given users with one ZMSCORE; users without a score are left out.
+     * The returned users carry no rank, callers rank them among themselves.
+     */
+    @Override
+    public List<RankedUser> getScores(String leaderboardId, Collection<String> userIds) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty() || userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        if (!isAvailable()) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        try {
+            List<String> requested = new ArrayList<>(userIds.size());
+            List<String> members = new ArrayList<>(userIds.size());
+            for (String userId : userIds) {
+                String member = memberForRead(userId);
+                if (member != null) {
+                    requested.add(userId);
+                    members.add(member);
+                }
+            }
+            if (members.isEmpty()) {
+                return new ArrayList<>();
+            }
+            
+            List<Double> compositeScores = readClient().zmscore(leaderboardKey(leaderboardId), members.toArray(new String[0]));
+            List<RankedUser> scoredUsers = new ArrayList<>();
+            for (int i = 0; i < compositeScores.size(); i++) {
+                Double compositeScore = compositeScores.get(i);
+                if (compositeScore != null) {
+                    scoredUsers.add(RankedUser.builder()
+                        .userId(requested.get(i))
+                        .score(Math.floor(compositeScore / SCORE_MULTIPLIER))
+                        .timestamp(Instant.ofEpochMilli(extractTimestampFromComposite(compositeScore)))
+                        .build());
+                }
+            }
+            return scoredUsers;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get scores from Redis", e);
+        }
+    }
+    
+    /**
+     * Read a top N page, the size of the sorted set and the leaderboard version in one read-only
+     * script, so all three describe the same moment even while scores are being written. Rows are
+     * kept as the raw reply and decoded when the page is iterated: no Tuple, boxed score or
+     * RankedUser is created per row unless the caller asks for a list.
+     * Returns null if Redis could not answer.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public TopNPage getTopNPage(String leaderboardId, WindowBucket window, int limit) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty() || limit <= 0) {
+            return null;
+        }
+        
+        if (!isAvailable()) {
+            return null;
+        }
+        
+        List<Object> reply;
+        try {
+            List<byte[]> keys = List.of(
+                leaderboardKey(leaderboardId, window).getBytes(StandardCharsets.UTF_8),
+                versionKey(leaderboardId).getBytes(StandardCharsets.UTF_8),
+                epochKey(leaderboardId).getBytes(StandardCharsets.UTF_8));
+            List<byte[]> args = List.of(Integer.toString(limit).getBytes(StandardCharsets.US_ASCII));
+            // EVAL_RO, so a fresh replica can answer it
+            reply = (List<Object>) readClient().evalReadonly(READ_TOP_N_PAGE_SCRIPT, keys, args);
+        } catch (Exception e) {
+            System.err.println("Failed to get top N page from Redis: " + e.getMessage());
+            return null;
+        }
+        
+        List<byte[]> rows = (List<byte[]>) reply.get(0);
+        long totalUsers = (Long) reply.get(1);
+        String version = formatVersion(asString((byte[]) reply.get(3)), asString((byte[]) reply.get(2)), window);
+        
+        List<String> userIds = null;
+        if (memberDictionary != null) {
+            List<String> members = new ArrayList<>(rows.size() / 2);
+            for (int i = 0; i < rows.size(); i += 2) {
+                members.add(new String(rows.get(i), StandardCharsets.UTF_8));
+            }
+            userIds = memberDictionary.decode(members);
+        }
+        
+        List<String> decodedUserIds = userIds;
+        return new TopNPage(consumer -> forEachRow(rows, decodedUserIds, consumer), totalUsers, version);
+    }
+    
+    private void forEachRow(List<byte[]> rows, List<String> userIds, RankedUserConsumer consumer) {
+        for (int i = 0, rank = 1; i < rows.size(); i += 2, rank++) {
+            byte[] userId = userIds == null ? rows.get(i) : userIds.get(rank - 1).getBytes(StandardCharsets.UTF_8);
+            double compositeScore = Double.parseDouble(new String(rows.get(i + 1), StandardCharsets.US_ASCII));
+            consumer.accept(userId, rank, Math.floor(compositeScore / SCORE_MULTIPLIER),
+                extractTimestampFromComposite(compositeScore));
+        }
+    }
+    
     @Override
     public Long getUserRankPosition(String leaderboardId, String userId) {
         if (leaderboardId == null || leaderboardId.trim().isEmpty() || userId == null || userId.trim().isEmpty()) {
@@ -240,9 +1172,14 @@ public class JedisRedisRepository implements RedisRepository {
             return null;
         }
         
-        String key = LEADERBOARD_KEY_PREFIX + leaderboardId;
-        try (Jedis jedis = jedisPool.getResource()) {
-            Long rank = jedis.zrevrank(key, userId);
+        String key = leaderboardKey(leaderboardId);
+        try {
+            String member = memberForRead(userId);
+            if (member == null) {
+                return null;
+            }
+            // Always the primary: callers use this to read back their own write
+            Long rank = jedis.zrevrank(key, member);
             return rank != null ? rank + 1 : null; // Convert to 1-based ranking
         } catch (Exception e) {
             System.err.println("Failed to get user rank position from Redis: " + e.getMessage());
@@ -252,6 +1189,11 @@ public class JedisRedisRepository implements RedisRepository {
     
     @Override
     public Long getTotalUsers(String leaderboardId) {
+        return getTotalUsers(leaderboardId, null);
+    }
+    
+    @Override
+    public Long getTotalUsers(String leaderboardId, WindowBucket window) {
         if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
             return 0L;
         }
@@ -260,15 +1202,259 @@ public class JedisRedisRepository implements RedisRepository {
             return 0L;
         }
         
-        String key = LEADERBOARD_KEY_PREFIX + leaderboardId;
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.zcard(key);
+        String key = leaderboardKey(leaderboardId, window);
+        try {
+            return readClient().zcard(key);
         } catch (Exception e) {
             System.err.println("Failed to get total users from Redis: " + e.getMessage());
             return 0L;
         }
     }
     
+    @Override
+    public List<RankedUser> getPodTopN(String podId, int limit) {
+        if (podId == null || podId.trim().isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        
+        if (!isAvailable()) {
+            return new ArrayList<>();
+        }
+        
+        try {
+            // Aggregate scores are plain sums, not composite scores
+            List<Tuple> tuples = readClient().zrevrangeWithScores(podAggregateKey(podId), 0, limit - 1);
+            List<String> userIds = userIdsForMembers(tuples.stream().map(Tuple::getElement).toList());
+            
+            List<RankedUser> rankedUsers = new ArrayList<>(tuples.size());
+            for (int i = 0; i < tuples.size(); i++) {
+                rankedUsers.add(RankedUser.builder()
+                    .userId(userIds.get(i))
+                    .rank(i + 1)
+                    .score(tuples.get(i).getScore())
+                    .build());
+            }
+            return rankedUsers;
+        } catch (Exception e) {
+            System.err.println("Failed to get pod top N from Redis: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    @Override
+    public Long getPodTotalUsers(String podId) {
+        if (podId == null || podId.trim().isEmpty()) {
+            return 0L;
+        }
+        
+        if (!isAvailable()) {
+            return 0L;
+        }
+        
+        try {
+            return readClient().zcard(podAggregateKey(podId));
+        } catch (Exception e) {
+            System.err.println("Failed to get pod total users from Redis: " + e.getMessage());
+            return 0L;
+        }
+    }
+    
+    /**
+     * Current version of what reads of a leaderboard, or of one window bucket of it, return.
+     * Read from the primary, so it is never older than what the primary serves.
+     * Returns null before the first write or if Redis could not answer.
+     */
+    @Override
+    public String getVersion(String leaderboardId, WindowBucket window) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
+            return null;
+        }
+        
+        if (!available) {
+            return null;
+        }
+        
+        try {
+            // Both keys share the leaderboard's hash tag, so this is one MGET in cluster mode too
+            List<String> values = jedis.mget(versionKey(leaderboardId), epochKey(leaderboardId));
+            return formatVersion(values.get(1), values.get(0), window);
+        } catch (Exception e) {
+            System.err.println("Failed to get leaderboard version from Redis: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Version string for conditional requests: the epoch, the counter and, for a window, the
+     * bucket it was read from, so a rollover to the next bucket changes it as well.
+     * Null unless both epoch and counter are known.
+     */
+    static String formatVersion(String epoch, String counter, WindowBucket window) {
+        if (epoch == null || counter == null) {
+            return null;
+        }
+        String version = epoch + "-" + counter;
+        if (window == null) {
+            return version;
+        }
+        return version + "-" + window.getWindow().name().toLowerCase() + "-" + window.getStart().toEpochMilli();
+    }
+    
+    private static String asString(byte[] value) {
+        return value != null ? new String(value, StandardCharsets.UTF_8) : null;
+    }
+    
+    private static String newEpoch() {
+        return Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+    
+    /**
+     * Claim an idempotency key with a single SET NX PX GET (Redis 7+): returns null when this
+     * call stored the record, otherwise the record already held under the key.
+     */
+    @Override
+    public String claimIdempotencyKey(String key, String record, long ttlMillis) {
+        if (!available) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        try {
+            return jedis.setGet(IDEMPOTENCY_KEY_PREFIX + key, record, SetParams.setParams().nx().px(ttlMillis));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to claim idempotency key in Redis", e);
+        }
+    }
+    
+    /**
+     * Store the completed record whether or not the pending claim is still there: the caller
+     * made the write, so its result must be replayed even if the claim expired meanwhile.
+     */
+    @Override
+    public void completeIdempotencyKey(String key, String record, long ttlMillis) {
+        if (!available) {
+            throw new RuntimeException("Redis is not available");
+        }
+        
+        try {
+            String previous = jedis.setGet(IDEMPOTENCY_KEY_PREFIX + key, record, SetParams.setParams().px(ttlMillis));
+            if (previous == null) {
+                System.err.println("Idempotency claim for " + key + " expired before completion; stored the result anyway");
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to complete idempotency key in Redis", e);
+        }
+    }
+    
+    @Override
+    public void releaseIdempotencyKey(String key) {
+        if (!available) {
+            return;
+        }
+        
+        try {
+            jedis.del(IDEMPOTENCY_KEY_PREFIX + key);
+        } catch (Exception e) {
+            System.err.println("Failed to release idempotency key in Redis: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public ScoreHistogram getScoreHistogram(String leaderboardId, HistogramSpec spec) {
+        if (leaderboardId == null || leaderboardId.trim().isEmpty() || spec == null) {
+            return null;
+        }
+        
+        if (!isAvailable()) {
+            return null;
+        }
+        
+        try {
+            Map<String, String> fields = readClient().hgetAll(histogramKey(leaderboardId));
+            long[] counts = new long[spec.getBuckets()];
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                int bucket = Integer.parseInt(field.getKey());
+                if (bucket >= 0 && bucket < counts.length) {
+                    counts[bucket] = Long.parseLong(field.getValue());
+                }
+            }
+            return new ScoreHistogram(spec, counts);
+        } catch (Exception e) {
+            System.err.println("Failed to get score histogram from Redis: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Key of a leaderboard's sorted set. The leaderboardId is wrapped in a hash tag so that
+     * every key derived from it lands in the same cluster slot and multi-key scripts keep working.
+     */
+    static String leaderboardKey(String leaderboardId) {
+        return LEADERBOARD_KEY_PREFIX + "{" + leaderboardId + "}";
+    }
+    
+    /**
+     * Key of one window's sorted set, e.g. "leaderboard:{id}:daily:42".
+     * A null window stands for the all-time sorted set.
+     */
+    static String leaderboardKey(String leaderboardId, WindowBucket window) {
+        if (window == null) {
+            return leaderboardKey(leaderboardId);
+        }
+        return leaderboardKey(leaderboardId) + ":" + window.getWindow().name().toLowerCase() + ":" + window.getIndex();
+    }
+    
+    /**
+     * Key of a leaderboard's score histogram: a hash of bucket index to user count.
+     */
+    static String histogramKey(String leaderboardId) {
+        return leaderboardKey(leaderboardId) + ":histogram";
+    }
+    
+    /**
+     * Key of a leaderboard's version counter, bumped by the write script.
+     */
+    static String versionKey(String leaderboardId) {
+        return leaderboardKey(leaderboardId) + ":version";
+    }
+    
+    /**
+     * Key of the random token that tells apart version counters recreated after a reset.
+     */
+    static String epochKey(String leaderboardId) {
+        return leaderboardKey(leaderboardId) + ":epoch";
+    }
+    
+    /**
+     * Key of a pod's aggregate sorted set: each user's summed score over the pod's opted-in boards.
+     * Hash-tagged by podId, so it usually lives in a different slot than the boards feeding it.
+     */
+    static String podAggregateKey(String podId) {
+        return POD_KEY_PREFIX + "{" + podId + "}:aggregate";
+    }
+    
+    /**
+     * Key held while a pod aggregate is being rebuilt; in the aggregate's slot, so score changes
+     * can check it in the same script that applies them.
+     */
+    static String podRebuildLockKey(String podId) {
+        return POD_KEY_PREFIX + "{" + podId + "}:rebuild-lock";
+    }
+    
+    private String memberForWrite(String userId) {
+        return memberDictionary != null ? memberDictionary.encode(userId) : userId;
+    }
+    
+    /**
+     * Sorted set member of a userId for reads; null if the dictionary has never seen the user.
+     */
+    private String memberForRead(String userId) {
+        return memberDictionary != null ? memberDictionary.lookup(userId) : userId;
+    }
+    
+    private List<String> userIdsForMembers(List<String> members) {
+        return memberDictionary != null ? memberDictionary.decode(members) : members;
+    }
+    
     /**
      * Extract timestamp from composite score.
      * Validates and ensures the extracted timestamp is within reasonable bounds.
@@ -313,5 +1499,15 @@ public class JedisRedisRepository implements RedisRepository {
         }
         return (score * SCORE_MULTIPLIER) + (MAX_TIMESTAMP - timestampMillis);
     }
+    
+    private static final class ReplicaEndpoint {
+        private final HostAndPort endpoint;
+        private final JedisPooled client;
+        private volatile boolean fresh = false;
+        
+        private ReplicaEndpoint(HostAndPort endpoint, JedisPooled client) {
+            this.endpoint = endpoint;
+            this.client = client;
+        }
+    }
 }
-
@@ -1,12 +1,34 @@
 package com.leaderboard.platform.repository.impl;
 
 import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Declared finders run on the primary, so write paths always see the latest leaderboards.
+ * Called from a read-only service transaction they join it and read from the replica.
+ */
 @Repository
+@Transactional
 public interface JpaLeaderboardRepository extends JpaRepository<Leaderboard, String> {
     Optional<Leaderboard> findByUuid(String uuid);
+    List<Leaderboard> findByUuidIn(Collection<String> uuids);
+    List<Leaderboard> findByPodId(String podId);
+    List<Leaderboard> findByStatusAndEndTimeBefore(LeaderboardStatus status, Instant endTime);
+    
+    // Compare-and-set: only one of several concurrent callers sees 1
+    @Modifying
+    @Query("UPDATE Leaderboard l SET l.status = :status WHERE l.leaderboardId = :leaderboardId AND l.status = :expected")
+    int updateStatus(@Param("leaderboardId") String leaderboardId, @Param("expected") LeaderboardStatus expected,
+                     @Param("status") LeaderboardStatus status);
 }
@@ -1,11 +1,15 @@
 package com.leaderboard.platform.repository.impl;
 
 import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardStatus;
 import com.leaderboard.platform.repository.LeaderboardRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -29,6 +33,16 @@ public class JpaLeaderboardRepositoryImpl implements LeaderboardRepository {
         return jpaRepository.findByUuid(uuid);
     }
     
+    @Override
+    public List<Leaderboard> findByUuidIn(Collection<String> uuids) {
+        return jpaRepository.findByUuidIn(uuids);
+    }
+    
+    @Override
+    public List<Leaderboard> findByPodId(String podId) {
+        return jpaRepository.findByPodId(podId);
+    }
+    
     @Override
     public Optional<Leaderboard> findByLeaderboardId(String leaderboardId) {
         return jpaRepository.findById(leaderboardId);
@@ -38,4 +52,14 @@ public class JpaLeaderboardRepositoryImpl implements LeaderboardRepository {
     public boolean existsByUuid(String uuid) {
         return jpaRepository.findByUuid(uuid).isPresent();
     }
+    
+    @Override
+    public List<Leaderboard> findByStatusAndEndTimeBefore(LeaderboardStatus status, Instant endTime) {
+        return jpaRepository.findByStatusAndEndTimeBefore(status, endTime);
+    }
+    
+    @Override
+    public boolean updateStatus(String leaderboardId, LeaderboardStatus expected, LeaderboardStatus status) {
+        return jpaRepository.updateStatus(leaderboardId, expected, status) > 0;
+    }
 }
@@ -4,12 +4,21 @@ import com.leaderboard.platform.model.UserScore;
 import com.leaderboard.platform.model.UserScoreId;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Every query is keyed by leaderboard_id, the partition key of user_scores, so Postgres
+ * prunes each one to a single partition. Declared finders run on the primary unless called
+ * from a read-only service transaction, which routes them to the replica.
+ */
 @Repository
+@Transactional
 public interface JpaUserScoreRepository extends JpaRepository<UserScore, UserScoreId> {
     Optional<UserScore> findByLeaderboardIdAndUserId(String leaderboardId, String userId);
+    List<UserScore> findByLeaderboardIdAndUserIdIn(String leaderboardId, Collection<String> userIds);
     List<UserScore> findByLeaderboardIdOrderByScoreDescTimestampAsc(String leaderboardId);
 }
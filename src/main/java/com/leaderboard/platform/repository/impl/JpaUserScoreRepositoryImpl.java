@@ -1,23 +1,86 @@
 package com.leaderboard.platform.repository.impl;
 
+import com.leaderboard.platform.model.HistogramSpec;
+import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.RankedUserConsumer;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.TopNPage;
 import com.leaderboard.platform.model.UserScore;
+import com.leaderboard.platform.model.WindowBucket;
 import com.leaderboard.platform.repository.UserScoreRepository;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.StringJoiner;
 
 @Repository
 @Primary
 public class JpaUserScoreRepositoryImpl implements UserScoreRepository {
     
+    private static final String UPSERT_PREFIX =
+        "INSERT INTO user_scores (user_id, leaderboard_id, score, timestamp) VALUES ";
+    private static final String UPSERT_SUFFIX =
+        " ON CONFLICT (user_id, leaderboard_id) DO UPDATE SET score = EXCLUDED.score, timestamp = EXCLUDED.timestamp";
+    // COUNT(*) OVER () is evaluated before LIMIT, so every row carries the size of the whole board
+    private static final String TOP_N_PAGE_SELECT =
+        "SELECT user_id, score, timestamp, COUNT(*) OVER () AS total_users FROM user_scores WHERE leaderboard_id = ?";
+    private static final String TOP_N_PAGE_WINDOW = " AND timestamp >= ? AND timestamp < ?";
+    private static final String TOP_N_PAGE_ORDER = " ORDER BY score DESC, timestamp ASC LIMIT ?";
+    private static final String COUNT_RANKED_ABOVE =
+        "SELECT COUNT(*) FROM user_scores WHERE leaderboard_id = ? AND (score > ? OR (score = ? AND timestamp < ?))";
+    // width_bucket numbers buckets from 1 and puts out-of-range scores in 0 and buckets + 1;
+    // clamped to 0..buckets-1 like HistogramSpec.bucketOf
+    private static final String HISTOGRAM_SELECT =
+        "SELECT LEAST(GREATEST(width_bucket(score, ?, ?, ?) - 1, 0), ? - 1) AS bucket, COUNT(*) AS users " +
+        "FROM user_scores WHERE leaderboard_id = ? GROUP BY bucket";
+    // Scores are truncated before summing, like the per-board deltas Redis adds to pod aggregates
+    private static final String SUM_BY_USER_SELECT =
+        "SELECT user_id, SUM(FLOOR(score)) AS total FROM user_scores WHERE leaderboard_id IN (%s) GROUP BY user_id";
+    private static final String RANKING_SELECT =
+        "SELECT user_id, score, timestamp FROM user_scores WHERE leaderboard_id = ? ORDER BY score DESC, timestamp ASC";
+    private static final String CREATE_IMPORT_TABLE =
+        "CREATE TEMP TABLE user_scores_import (user_id VARCHAR(255), leaderboard_id VARCHAR(255), " +
+        "score DOUBLE PRECISION, timestamp TIMESTAMPTZ) ON COMMIT DROP";
+    private static final String COPY_IMPORT =
+        "COPY user_scores_import (user_id, leaderboard_id, score, timestamp) FROM STDIN (FORMAT csv)";
+    // TIMESTAMPTZ is stored into the TIMESTAMP column in the session time zone, as bound Timestamps are
+    private static final String MERGE_IMPORT =
+        "INSERT INTO user_scores (user_id, leaderboard_id, score, timestamp) " +
+        "SELECT user_id, leaderboard_id, score, timestamp FROM user_scores_import" + UPSERT_SUFFIX;
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+    
     private final JpaUserScoreRepository jpaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    
+    // Rows pulled per round trip by ranking cursors; bounds the memory of a full export
+    @Value("${leaderboard.export.fetch-size:1000}")
+    private int exportFetchSize;
     
     @Autowired
-    public JpaUserScoreRepositoryImpl(JpaUserScoreRepository jpaRepository) {
+    public JpaUserScoreRepositoryImpl(JpaUserScoreRepository jpaRepository, JdbcTemplate jdbcTemplate) {
         this.jpaRepository = jpaRepository;
+        this.jdbcTemplate = jdbcTemplate;
     }
     
     @Override
@@ -25,13 +88,205 @@ public class JpaUserScoreRepositoryImpl implements UserScoreRepository {
         return jpaRepository.save(userScore);
     }
     
+    /**
+     * Upsert all scores with one multi-row INSERT ... ON CONFLICT statement, so a batch
+     * costs a single round trip and commits or fails as a whole.
+     */
+    @Override
+    @Transactional
+    public List<UserScore> saveAll(List<UserScore> userScores) {
+        if (userScores.isEmpty()) {
+            return userScores;
+        }
+        
+        StringJoiner rows = new StringJoiner(", ", UPSERT_PREFIX, UPSERT_SUFFIX);
+        List<Object> args = new ArrayList<>(userScores.size() * 4);
+        for (UserScore userScore : userScores) {
+            rows.add("(?, ?, ?, ?)");
+            args.add(userScore.getUserId());
+            args.add(userScore.getLeaderboardId());
+            args.add(userScore.getScore());
+            args.add(Timestamp.from(userScore.getTimestamp()));
+        }
+        jdbcTemplate.update(rows.toString(), args.toArray());
+        return userScores;
+    }
+    
+    /**
+     * Upsert a bulk import chunk: COPY streams the rows into a temporary table and a single
+     * INSERT ... ON CONFLICT merges them into user_scores. COPY cannot upsert by itself, and a
+     * multi-row INSERT would need a bind parameter per value. The chunk must hold each user of a
+     * board at most once. Returns the number of rows copied.
+     */
+    @Override
+    @Transactional
+    public long importScores(List<UserScore> userScores) {
+        if (userScores.isEmpty()) {
+            return 0L;
+        }
+        
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_IMPORT_TABLE);
+            }
+            long rows = copyRows(connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_IMPORT), userScores);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(MERGE_IMPORT);
+            }
+            return rows;
+        });
+        return copied != null ? copied : 0L;
+    }
+    
+    private long copyRows(CopyIn copyIn, List<UserScore> userScores) throws SQLException {
+        try {
+            StringBuilder rows = new StringBuilder(COPY_BUFFER_CHARS + 1024);
+            for (UserScore userScore : userScores) {
+                appendCsvField(rows, userScore.getUserId());
+                rows.append(',');
+                appendCsvField(rows, userScore.getLeaderboardId());
+                rows.append(',').append(userScore.getScore());
+                rows.append(',').append(userScore.getTimestamp()).append('\n');
+                if (rows.length() >= COPY_BUFFER_CHARS) {
+                    writeToCopy(copyIn, rows);
+                }
+            }
+            writeToCopy(copyIn, rows);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+    
+    private static void appendCsvField(StringBuilder rows, String value) {
+        rows.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                rows.append('"');
+            }
+            rows.append(c);
+        }
+        rows.append('"');
+    }
+    
+    private static void writeToCopy(CopyIn copyIn, StringBuilder rows) throws SQLException {
+        if (rows.length() == 0) {
+            return;
+        }
+        byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        rows.setLength(0);
+    }
+    
     @Override
     public Optional<UserScore> findByLeaderboardIdAndUserId(String leaderboardId, String userId) {
         return jpaRepository.findByLeaderboardIdAndUserId(leaderboardId, userId);
     }
     
+    @Override
+    public List<UserScore> findByLeaderboardIdAndUserIdIn(String leaderboardId, Collection<String> userIds) {
+        return jpaRepository.findByLeaderboardIdAndUserIdIn(leaderboardId, userIds);
+    }
+    
     @Override
     public List<UserScore> findByLeaderboardId(String leaderboardId) {
         return jpaRepository.findByLeaderboardIdOrderByScoreDescTimestampAsc(leaderboardId);
     }
+    
+    /**
+     * Page and board size from a single statement, so both come from the same snapshot.
+     * The ordering matches idx_user_score_leaderboard_score.
+     */
+    @Override
+    public TopNPage findTopNPage(String leaderboardId, WindowBucket window, int limit) {
+        List<Object> args = new ArrayList<>(4);
+        args.add(leaderboardId);
+        String sql = TOP_N_PAGE_SELECT;
+        if (window != null) {
+            sql += TOP_N_PAGE_WINDOW;
+            args.add(Timestamp.from(window.getStart()));
+            args.add(Timestamp.from(window.getEnd()));
+        }
+        sql += TOP_N_PAGE_ORDER;
+        args.add(limit);
+        
+        List<RankedUser> users = new ArrayList<>();
+        long[] totalUsers = {0L};
+        jdbcTemplate.query(sql, rs -> {
+            totalUsers[0] = rs.getLong("total_users");
+            users.add(RankedUser.builder()
+                .userId(rs.getString("user_id"))
+                .rank(users.size() + 1)
+                .score(rs.getDouble("score"))
+                .timestamp(rs.getTimestamp("timestamp").toInstant())
+                .build());
+        }, args.toArray());
+        return TopNPage.of(users, totalUsers[0], null);
+    }
+    
+    /**
+     * Users ranked above the given score, counted with a range scan of
+     * idx_user_score_leaderboard_score instead of sorting the board.
+     */
+    @Override
+    public long countRankedAbove(String leaderboardId, double score, Instant timestamp) {
+        Long count = jdbcTemplate.queryForObject(COUNT_RANKED_ABOVE, Long.class,
+            leaderboardId, score, score, Timestamp.from(timestamp));
+        return count != null ? count : 0L;
+    }
+    
+    /**
+     * Count users per histogram bucket in the database, so only one row per bucket is read back.
+     */
+    @Override
+    public ScoreHistogram findScoreHistogram(String leaderboardId, HistogramSpec spec) {
+        long[] counts = new long[spec.getBuckets()];
+        jdbcTemplate.query(HISTOGRAM_SELECT, rs -> {
+            counts[rs.getInt("bucket")] = rs.getLong("users");
+        }, spec.getMin(), spec.getMax(), spec.getBuckets(), spec.getBuckets(), leaderboardId);
+        return new ScoreHistogram(spec, counts);
+    }
+    
+    /**
+     * Each user's score summed over the given boards, grouped in the database so one row per
+     * user comes back instead of one per board entry.
+     */
+    @Override
+    public Map<String, Double> sumScoresByUser(Collection<String> leaderboardIds) {
+        Map<String, Double> totals = new HashMap<>();
+        if (leaderboardIds.isEmpty()) {
+            return totals;
+        }
+        String sql = String.format(SUM_BY_USER_SELECT, String.join(", ", Collections.nCopies(leaderboardIds.size(), "?")));
+        jdbcTemplate.query(sql, rs -> {
+            totals.put(rs.getString("user_id"), rs.getDouble("total"));
+        }, leaderboardIds.toArray());
+        return totals;
+    }
+    
+    /**
+     * Walk the whole board in rank order through a forward-only cursor. The PostgreSQL driver
+     * only fetches in batches of the fetch size inside a transaction; without one it reads the
+     * entire result into memory. Returns the number of rows walked.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long forEachRanked(String leaderboardId, RankedUserConsumer consumer) {
+        int[] rank = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                RANKING_SELECT, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(exportFetchSize);
+            statement.setString(1, leaderboardId);
+            return statement;
+        }, rs -> {
+            rank[0]++;
+            consumer.accept(rs.getString("user_id").getBytes(StandardCharsets.UTF_8), rank[0],
+                rs.getDouble("score"), rs.getTimestamp("timestamp").getTime());
+        });
+        return rank[0];
+    }
 }
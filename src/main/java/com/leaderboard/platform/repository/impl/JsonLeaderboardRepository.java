@@ -1,8 +1,10 @@
 package com.leaderboard.platform.repository.impl;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardStatus;
 import com.leaderboard.platform.repository.LeaderboardRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
@@ -12,25 +14,41 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
+/**
+ * One JSON file per leaderboard, named after its uuid. A persistent index file maps
+ * leaderboardId to uuid, so a lookup by leaderboardId reads at most one leaderboard file.
+ * When the index exists, startup reads only the index; leaderboard files are read on first
+ * use, and all of them (in parallel) only once a query has to scan every leaderboard.
+ */
 @Repository
 public class JsonLeaderboardRepository implements LeaderboardRepository {
     
+    private static final String INDEX_FILE = "leaderboard-index.json";
+    
     private final String dataDirectory;
     private final ObjectMapper objectMapper;
     private final Map<String, Leaderboard> cache = new ConcurrentHashMap<>();
     // Per-leaderboard locks to prevent race conditions on file writes
     private final Map<String, ReentrantLock> leaderboardLocks = new ConcurrentHashMap<>();
+    // leaderboardId -> uuid, mirrored in INDEX_FILE
+    private final Map<String, String> uuidByLeaderboardId = new ConcurrentHashMap<>();
+    private final ReentrantLock indexLock = new ReentrantLock();
+    private volatile boolean fullyLoaded = false;
     
     public JsonLeaderboardRepository(@Value("${leaderboard.storage.leaderboards:./data/leaderboards}") String dataDirectory) {
         this.dataDirectory = dataDirectory;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         initializeDirectory();
-        loadAllLeaderboards();
+        loadIndexOrLeaderboards();
     }
     
     private void initializeDirectory() {
@@ -44,24 +62,107 @@ public class JsonLeaderboardRepository implements LeaderboardRepository {
         }
     }
     
-    private void loadAllLeaderboards() {
+    private void loadIndexOrLeaderboards() {
+        Map<String, String> index = readIndex();
+        if (index.isEmpty()) {
+            loadAllLeaderboards();
+            return;
+        }
+        uuidByLeaderboardId.putAll(index);
+        System.out.println("Loaded leaderboard index with " + index.size() + " entries, leaderboards load on first use");
+    }
+    
+    private void ensureAllLoaded() {
+        if (fullyLoaded) {
+            return;
+        }
+        indexLock.lock();
         try {
-            Path path = Paths.get(dataDirectory);
-            if (Files.exists(path)) {
-                Files.list(path)
-                    .filter(p -> p.toString().endsWith(".json"))
-                    .forEach(this::loadLeaderboard);
+            if (!fullyLoaded) {
+                loadAllLeaderboards();
             }
+        } finally {
+            indexLock.unlock();
+        }
+    }
+    
+    /**
+     * Parse every leaderboard file in parallel on the common pool, then bring the leaderboardId
+     * index in line with what was loaded. Files written before the index existed get indexed here.
+     */
+    private void loadAllLeaderboards() {
+        long start = System.nanoTime();
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(Paths.get(dataDirectory))) {
+            files = paths.filter(p -> p.toString().endsWith(".json")).toList();
         } catch (IOException e) {
             throw new RuntimeException("Failed to load leaderboards from directory", e);
         }
+        
+        files.parallelStream().forEach(this::loadLeaderboard);
+        
+        Map<String, String> persistedIndex = readIndex();
+        cache.values().stream()
+            .filter(l -> l.getLeaderboardId() != null)
+            .forEach(l -> uuidByLeaderboardId.put(l.getLeaderboardId(), l.getUuid()));
+        if (!uuidByLeaderboardId.equals(persistedIndex)) {
+            writeIndex();
+        }
+        fullyLoaded = true;
+        
+        System.out.println("Loaded " + uuidByLeaderboardId.size() + " leaderboards from " + files.size() +
+            " files in " + (System.nanoTime() - start) / 1_000_000 + "ms (parallelism " +
+            ForkJoinPool.getCommonPoolParallelism() + ")");
+    }
+    
+    private Map<String, String> readIndex() {
+        File indexFile = new File(dataDirectory, INDEX_FILE);
+        if (!indexFile.exists()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(indexFile, new TypeReference<Map<String, String>>() {});
+        } catch (IOException e) {
+            System.err.println("Failed to read leaderboard index, rebuilding it: " + e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+    
+    /**
+     * Record a leaderboard in the index, rewriting the index file only when the entry changed.
+     */
+    private void indexLeaderboard(Leaderboard leaderboard) {
+        if (leaderboard.getLeaderboardId() == null || leaderboard.getUuid() == null
+                || leaderboard.getUuid().equals(uuidByLeaderboardId.get(leaderboard.getLeaderboardId()))) {
+            return;
+        }
+        uuidByLeaderboardId.put(leaderboard.getLeaderboardId(), leaderboard.getUuid());
+        writeIndex();
+    }
+    
+    /**
+     * Write the index to a temporary file and move it into place, so readers never see a partial index.
+     */
+    private void writeIndex() {
+        indexLock.lock();
+        try {
+            Path indexPath = Paths.get(dataDirectory, INDEX_FILE);
+            Path tempPath = Paths.get(dataDirectory, INDEX_FILE + ".tmp");
+            objectMapper.writeValue(tempPath.toFile(), new TreeMap<>(uuidByLeaderboardId));
+            Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Not fatal: the index is rebuilt from the leaderboard files on the next start
+            System.err.println("Failed to write leaderboard index: " + e.getMessage());
+        } finally {
+            indexLock.unlock();
+        }
     }
     
     private void loadLeaderboard(Path filePath) {
         try {
-            // Skip retry-queue.json and other non-leaderboard files
+            // Skip retry-queue.json, the index and other non-leaderboard files
             String fileName = filePath.getFileName().toString();
-            if (fileName.equals("retry-queue.json")) {
+            if (fileName.equals("retry-queue.json") || fileName.equals(INDEX_FILE)) {
                 return;
             }
             
@@ -71,9 +172,10 @@ public class JsonLeaderboardRepository implements LeaderboardRepository {
                 return; // Skip invalid leaderboard files
             }
             
-            cache.put(leaderboard.getUuid(), leaderboard);
+            // A leaderboard saved while the files were being read is already cached and newer
+            cache.putIfAbsent(leaderboard.getUuid(), leaderboard);
             if (leaderboard.getLeaderboardId() != null) {
-                cache.put(leaderboard.getLeaderboardId(), leaderboard);
+                cache.putIfAbsent(leaderboard.getLeaderboardId(), leaderboard);
             }
         } catch (Exception e) {
             // Silently skip files that don't match Leaderboard format
@@ -105,6 +207,7 @@ public class JsonLeaderboardRepository implements LeaderboardRepository {
             if (leaderboard.getLeaderboardId() != null) {
                 cache.put(leaderboard.getLeaderboardId(), leaderboard);
             }
+            indexLeaderboard(leaderboard);
             
             return leaderboard;
         } catch (IOException e) {
@@ -135,6 +238,7 @@ public class JsonLeaderboardRepository implements LeaderboardRepository {
                 if (leaderboard.getLeaderboardId() != null) {
                     cache.put(leaderboard.getLeaderboardId(), leaderboard);
                 }
+                indexLeaderboard(leaderboard);
                 return Optional.of(leaderboard);
             } catch (IOException e) {
                 System.err.println("Failed to load leaderboard from file: " + file + ", error: " + e.getMessage());
@@ -144,6 +248,23 @@ public class JsonLeaderboardRepository implements LeaderboardRepository {
         return Optional.empty();
     }
     
+    @Override
+    public List<Leaderboard> findByUuidIn(Collection<String> uuids) {
+        return uuids.stream()
+            .map(this::findByUuid)
+            .flatMap(Optional::stream)
+            .toList();
+    }
+    
+    @Override
+    public List<Leaderboard> findByPodId(String podId) {
+        ensureAllLoaded();
+        return cache.values().stream()
+            .distinct()
+            .filter(l -> podId.equals(l.getPodId()))
+            .toList();
+    }
+    
     @Override
     public Optional<Leaderboard> findByLeaderboardId(String leaderboardId) {
         if (leaderboardId == null || leaderboardId.trim().isEmpty()) {
@@ -155,43 +276,52 @@ public class JsonLeaderboardRepository implements LeaderboardRepository {
             return Optional.of(leaderboard);
         }
         
-        // Search through all files if not in cache
-        try {
-            Path path = Paths.get(dataDirectory);
-            if (Files.exists(path)) {
-                Optional<Leaderboard> found = Files.list(path)
-                    .filter(p -> p.toString().endsWith(".json"))
-                    .map(this::loadLeaderboardSafely)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .filter(l -> leaderboardId.equals(l.getLeaderboardId()))
-                    .findFirst();
-                
-                if (found.isPresent()) {
-                    Leaderboard lb = found.get();
-                    cache.put(lb.getUuid(), lb);
-                    cache.put(lb.getLeaderboardId(), lb);
-                    return found;
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Failed to search for leaderboard by ID: " + e.getMessage());
-        }
-        
-        return Optional.empty();
-    }
-    
-    private Optional<Leaderboard> loadLeaderboardSafely(Path filePath) {
-        try {
-            return Optional.of(objectMapper.readValue(filePath.toFile(), Leaderboard.class));
-        } catch (IOException e) {
+        // The index names the one file that can hold this leaderboard
+        String uuid = uuidByLeaderboardId.get(leaderboardId);
+        if (uuid == null) {
             return Optional.empty();
         }
+        return findByUuid(uuid)
+            .filter(l -> leaderboardId.equals(l.getLeaderboardId()));
     }
     
     @Override
     public boolean existsByUuid(String uuid) {
         return findByUuid(uuid).isPresent();
     }
+    
+    @Override
+    public List<Leaderboard> findByStatusAndEndTimeBefore(LeaderboardStatus status, Instant endTime) {
+        ensureAllLoaded();
+        // The cache holds every leaderboard twice (by uuid and by leaderboardId)
+        return cache.values().stream()
+            .distinct()
+            .filter(l -> l.getStatus() == status)
+            .filter(l -> l.getEndTime() != null && l.getEndTime().isBefore(endTime))
+            .toList();
+    }
+    
+    @Override
+    public boolean updateStatus(String leaderboardId, LeaderboardStatus expected, LeaderboardStatus status) {
+        Optional<Leaderboard> found = findByLeaderboardId(leaderboardId);
+        if (found.isEmpty()) {
+            return false;
+        }
+        
+        // The same lock as save, so the status check and the write cannot interleave with another update
+        ReentrantLock lock = leaderboardLocks.computeIfAbsent(found.get().getUuid(), k -> new ReentrantLock());
+        lock.lock();
+        try {
+            Leaderboard leaderboard = findByLeaderboardId(leaderboardId).orElse(null);
+            if (leaderboard == null || leaderboard.getStatus() != expected) {
+                return false;
+            }
+            leaderboard.setStatus(status);
+            save(leaderboard);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
 }
 
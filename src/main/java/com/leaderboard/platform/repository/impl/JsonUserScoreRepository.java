@@ -3,13 +3,20 @@ package com.leaderboard.platform.repository.impl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.leaderboard.platform.model.HistogramSpec;
+import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.RankedUserConsumer;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.TopNPage;
 import com.leaderboard.platform.model.UserScore;
+import com.leaderboard.platform.model.WindowBucket;
 import com.leaderboard.platform.repository.UserScoreRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -19,13 +26,18 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+/**
+ * Keeps every leaderboard as an immutable, versioned snapshot that writers replace after each
+ * write or batch of writes. Readers use the current snapshot without locking or copying, so the
+ * scores they get back are shared and must not be modified.
+ */
 @Repository
 public class JsonUserScoreRepository implements UserScoreRepository {
     
     private final String dataDirectory;
     private final ObjectMapper objectMapper;
-    private final Map<String, Map<String, UserScore>> cache = new ConcurrentHashMap<>();
-    // Per-leaderboard locks to prevent race conditions on file writes
+    private final Map<String, BoardSnapshot> snapshots = new ConcurrentHashMap<>();
+    // Per-leaderboard locks serialize the writers of a board; readers never take them
     private final Map<String, ReentrantLock> leaderboardLocks = new ConcurrentHashMap<>();
     
     public JsonUserScoreRepository(@Value("${leaderboard.storage.userScores:./data/user-scores}") String dataDirectory) {
@@ -85,14 +97,7 @@ public class JsonUserScoreRepository implements UserScoreRepository {
                 return; // Skip files that don't match UserScore format
             }
             
-            Map<String, UserScore> scoreMap = scores.stream()
-                .collect(Collectors.toMap(
-                    UserScore::getUserId,
-                    score -> score,
-                    (existing, replacement) -> replacement
-                ));
-            
-            cache.put(leaderboardId, scoreMap);
+            snapshots.put(leaderboardId, BoardSnapshot.of(1, toScoreMap(scores)));
         } catch (Exception e) {
             // Silently skip files that don't match UserScore format
             // This allows other JSON files to coexist
@@ -108,8 +113,9 @@ public class JsonUserScoreRepository implements UserScoreRepository {
         lock.lock();
         try {
             UserScore scoreWithTimestamp = ensureTimestamp(userScore);
-            updateCacheAndPersist(leaderboardId, scoreWithTimestamp);
-            return scoreWithTimestamp;
+            publish(leaderboardId, List.of(scoreWithTimestamp));
+            // Callers set the rank on what they get back, so they must not get the snapshot's instance
+            return copyUserScore(scoreWithTimestamp);
         } catch (IOException e) {
             throw new RuntimeException("Failed to save user score to file", e);
         } finally {
@@ -117,6 +123,43 @@ public class JsonUserScoreRepository implements UserScoreRepository {
         }
     }
     
+    /**
+     * Save scores of several leaderboards. Every score is validated before any file is written;
+     * each leaderboard then gets one new snapshot and one file rewrite for all of its scores.
+     */
+    @Override
+    public List<UserScore> saveAll(List<UserScore> userScores) {
+        userScores.forEach(this::validateUserScore);
+        List<UserScore> withTimestamps = userScores.stream()
+            .map(this::ensureTimestamp)
+            .toList();
+        Map<String, List<UserScore>> byLeaderboard = withTimestamps.stream()
+            .collect(Collectors.groupingBy(UserScore::getLeaderboardId, LinkedHashMap::new, Collectors.toList()));
+        
+        for (Map.Entry<String, List<UserScore>> entry : byLeaderboard.entrySet()) {
+            ReentrantLock lock = getOrCreateLock(entry.getKey());
+            lock.lock();
+            try {
+                publish(entry.getKey(), entry.getValue());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to save user scores to file", e);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return withTimestamps.stream()
+            .map(this::copyUserScore)
+            .toList();
+    }
+    
+    /**
+     * Bulk imports go through the batch path, so each board of the chunk is rewritten once.
+     */
+    @Override
+    public long importScores(List<UserScore> userScores) {
+        return saveAll(userScores).size();
+    }
+    
     private void validateUserScore(UserScore userScore) {
         if (userScore == null) {
             throw new IllegalArgumentException("UserScore cannot be null");
@@ -155,16 +198,25 @@ public class JsonUserScoreRepository implements UserScoreRepository {
             .build();
     }
     
-    private void updateCacheAndPersist(String leaderboardId, UserScore userScore) throws IOException {
-        Map<String, UserScore> scoreMap = cache.computeIfAbsent(leaderboardId, k -> new ConcurrentHashMap<>());
-        scoreMap.put(userScore.getUserId(), userScore);
-        persistToFile(leaderboardId, scoreMap);
+    /**
+     * Build the board's next snapshot with the given scores applied, write it to the file and only
+     * then make it visible, so readers never see scores that failed to persist.
+     * The caller must hold the board's lock.
+     */
+    private void publish(String leaderboardId, List<UserScore> changes) throws IOException {
+        BoardSnapshot current = loadSnapshotLocked(leaderboardId);
+        Map<String, UserScore> next = new HashMap<>(current.byUserId);
+        for (UserScore userScore : changes) {
+            next.put(userScore.getUserId(), userScore);
+        }
+        BoardSnapshot snapshot = BoardSnapshot.of(current.version + 1, next);
+        persistToFile(leaderboardId, snapshot.scores);
+        snapshots.put(leaderboardId, snapshot);
     }
     
-    private void persistToFile(String leaderboardId, Map<String, UserScore> scoreMap) throws IOException {
+    private void persistToFile(String leaderboardId, List<UserScore> allScores) throws IOException {
         String filename = leaderboardId + ".json";
         File file = new File(dataDirectory, filename);
-        List<UserScore> allScores = new ArrayList<>(scoreMap.values());
         objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, allScores);
     }
     
@@ -174,42 +226,28 @@ public class JsonUserScoreRepository implements UserScoreRepository {
             return Optional.empty();
         }
         
-        Optional<UserScore> fromCache = findFromCache(leaderboardId, userId);
-        if (fromCache.isPresent()) {
-            return fromCache;
+        return Optional.ofNullable(getSnapshot(leaderboardId).byUserId.get(userId));
+    }
+    
+    @Override
+    public List<UserScore> findByLeaderboardIdAndUserIdIn(String leaderboardId, Collection<String> userIds) {
+        if (!isValidId(leaderboardId) || userIds == null || userIds.isEmpty()) {
+            return Collections.emptyList();
         }
         
-        return loadFromFileAndFind(leaderboardId, userId);
+        Map<String, UserScore> byUserId = getSnapshot(leaderboardId).byUserId;
+        return userIds.stream()
+            .distinct()
+            .filter(this::isValidId)
+            .map(byUserId::get)
+            .filter(Objects::nonNull)
+            .toList();
     }
     
     private boolean isValidId(String id) {
         return id != null && !id.trim().isEmpty();
     }
     
-    private Optional<UserScore> findFromCache(String leaderboardId, String userId) {
-        Map<String, UserScore> scoreMap = cache.get(leaderboardId);
-        if (scoreMap != null) {
-            return Optional.ofNullable(scoreMap.get(userId));
-        }
-        return Optional.empty();
-    }
-    
-    private Optional<UserScore> loadFromFileAndFind(String leaderboardId, String userId) {
-        File file = getLeaderboardFile(leaderboardId);
-        if (!file.exists()) {
-            return Optional.empty();
-        }
-        
-        try {
-            Map<String, UserScore> loadedMap = loadScoresFromFile(file);
-            cache.put(leaderboardId, loadedMap);
-            return Optional.ofNullable(loadedMap.get(userId));
-        } catch (IOException e) {
-            System.err.println("Failed to load user scores from file: " + file + ", error: " + e.getMessage());
-            return Optional.empty();
-        }
-    }
-    
     private File getLeaderboardFile(String leaderboardId) {
         String filename = leaderboardId + ".json";
         return new File(dataDirectory, filename);
@@ -221,6 +259,10 @@ public class JsonUserScoreRepository implements UserScoreRepository {
             new TypeReference<List<UserScore>>() {}
         );
         
+        return toScoreMap(scores);
+    }
+    
+    private Map<String, UserScore> toScoreMap(List<UserScore> scores) {
         return scores.stream()
             .collect(Collectors.toMap(
                 UserScore::getUserId,
@@ -235,45 +277,117 @@ public class JsonUserScoreRepository implements UserScoreRepository {
             return Collections.emptyList();
         }
         
-        List<UserScore> fromCache = findFromCacheWithLock(leaderboardId);
-        if (fromCache != null) {
-            return fromCache;
-        }
+        return getSnapshot(leaderboardId).scores;
+    }
+    
+    /**
+     * Page and total come from the same snapshot of the leaderboard, so they always agree.
+     */
+    @Override
+    public TopNPage findTopNPage(String leaderboardId, WindowBucket window, int limit) {
+        List<UserScore> userScores = findByLeaderboardId(leaderboardId).stream()
+            .filter(userScore -> window == null || window.contains(userScore.getTimestamp()))
+            .toList();
         
-        return loadFromFileAndCache(leaderboardId);
+        List<UserScore> top = userScores.stream()
+            .sorted(Comparator.comparing(UserScore::getScore, Comparator.reverseOrder())
+                .thenComparing(UserScore::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder())))
+            .limit(limit)
+            .toList();
+        List<RankedUser> users = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            users.add(RankedUser.builder()
+                .userId(top.get(i).getUserId())
+                .rank(i + 1)
+                .score(top.get(i).getScore())
+                .timestamp(top.get(i).getTimestamp())
+                .build());
+        }
+        return TopNPage.of(users, userScores.size(), null);
     }
     
-    private List<UserScore> findFromCacheWithLock(String leaderboardId) {
-        ReentrantLock lock = leaderboardLocks.get(leaderboardId);
-        if (lock != null) {
-            return findFromCacheWithLock(leaderboardId, lock);
+    @Override
+    public long countRankedAbove(String leaderboardId, double score, Instant timestamp) {
+        return findByLeaderboardId(leaderboardId).stream()
+            .filter(userScore -> userScore.getScore() > score
+                || (userScore.getScore() == score && userScore.getTimestamp() != null && userScore.getTimestamp().isBefore(timestamp)))
+            .count();
+    }
+    
+    /**
+     * Boards of this store are already held in memory, so the ranking is walked over one sorted
+     * view of the current snapshot.
+     */
+    @Override
+    public long forEachRanked(String leaderboardId, RankedUserConsumer consumer) {
+        List<UserScore> ranked = findByLeaderboardId(leaderboardId).stream()
+            .sorted(Comparator.comparing(UserScore::getScore, Comparator.reverseOrder())
+                .thenComparing(UserScore::getTimestamp, Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+        for (int i = 0; i < ranked.size(); i++) {
+            UserScore userScore = ranked.get(i);
+            long timestampMillis = userScore.getTimestamp() != null ? userScore.getTimestamp().toEpochMilli() : 0L;
+            consumer.accept(userScore.getUserId().getBytes(StandardCharsets.UTF_8), i + 1, userScore.getScore(), timestampMillis);
         }
-        
-        return findFromCacheWithoutLock(leaderboardId);
+        return ranked.size();
+    }
+    
+    @Override
+    public ScoreHistogram findScoreHistogram(String leaderboardId, HistogramSpec spec) {
+        return ScoreHistogram.fromScores(spec, findByLeaderboardId(leaderboardId).stream()
+            .mapToDouble(UserScore::getScore)
+            .toArray());
+    }
+    
+    @Override
+    public Map<String, Double> sumScoresByUser(Collection<String> leaderboardIds) {
+        Map<String, Double> totals = new HashMap<>();
+        for (String leaderboardId : leaderboardIds) {
+            for (UserScore userScore : findByLeaderboardId(leaderboardId)) {
+                totals.merge(userScore.getUserId(), Math.floor(userScore.getScore()), Double::sum);
+            }
+        }
+        return totals;
     }
     
-    private List<UserScore> findFromCacheWithLock(String leaderboardId, ReentrantLock lock) {
+    /**
+     * The board's current snapshot, loaded from its file on first use. Unknown boards read as empty
+     * without being cached, so a later write still starts from the file if one appears.
+     */
+    private BoardSnapshot getSnapshot(String leaderboardId) {
+        BoardSnapshot snapshot = snapshots.get(leaderboardId);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        
+        ReentrantLock lock = getOrCreateLock(leaderboardId);
         lock.lock();
         try {
-            return createDefensiveCopy(leaderboardId);
+            return loadSnapshotLocked(leaderboardId);
         } finally {
             lock.unlock();
         }
     }
     
-    private List<UserScore> findFromCacheWithoutLock(String leaderboardId) {
-        return createDefensiveCopy(leaderboardId);
-    }
-    
-    private List<UserScore> createDefensiveCopy(String leaderboardId) {
-        Map<String, UserScore> scoreMap = cache.get(leaderboardId);
-        if (scoreMap == null) {
-            return null;
+    private BoardSnapshot loadSnapshotLocked(String leaderboardId) {
+        BoardSnapshot snapshot = snapshots.get(leaderboardId);
+        if (snapshot != null) {
+            return snapshot;
         }
         
-        return scoreMap.values().stream()
-            .map(this::copyUserScore)
-            .toList();
+        File file = getLeaderboardFile(leaderboardId);
+        if (!file.exists()) {
+            return BoardSnapshot.EMPTY;
+        }
+        
+        try {
+            snapshot = BoardSnapshot.of(1, loadScoresFromFile(file));
+            snapshots.put(leaderboardId, snapshot);
+            return snapshot;
+        } catch (IOException e) {
+            System.err.println("Failed to load user scores from file: " + file + ", error: " + e.getMessage());
+            return BoardSnapshot.EMPTY;
+        }
     }
     
     private UserScore copyUserScore(UserScore score) {
@@ -286,31 +400,34 @@ public class JsonUserScoreRepository implements UserScoreRepository {
             .build();
     }
     
-    private List<UserScore> loadFromFileAndCache(String leaderboardId) {
-        File file = getLeaderboardFile(leaderboardId);
-        if (!file.exists()) {
-            return Collections.emptyList();
-        }
-        
-        try {
-            Map<String, UserScore> loadedMap = loadScoresFromFile(file);
-            cacheWithLock(leaderboardId, loadedMap);
-            return loadedMap.values().stream()
-                .map(this::copyUserScore)
-                .toList();
-        } catch (IOException e) {
-            System.err.println("Failed to load user scores from file: " + file + ", error: " + e.getMessage());
-            return Collections.emptyList();
-        }
+    /**
+     * Version of the board's current snapshot; 0 until the board is loaded or first written.
+     */
+    long getSnapshotVersion(String leaderboardId) {
+        BoardSnapshot snapshot = snapshots.get(leaderboardId);
+        return snapshot != null ? snapshot.version : 0;
     }
     
-    private void cacheWithLock(String leaderboardId, Map<String, UserScore> loadedMap) {
-        ReentrantLock writeLock = leaderboardLocks.computeIfAbsent(leaderboardId, k -> new ReentrantLock());
-        writeLock.lock();
-        try {
-            cache.put(leaderboardId, loadedMap);
-        } finally {
-            writeLock.unlock();
+    /**
+     * One published state of a leaderboard. Never modified after construction; a write replaces
+     * the whole snapshot, so a reader sees either all of a batch or none of it.
+     */
+    private static final class BoardSnapshot {
+        
+        static final BoardSnapshot EMPTY = new BoardSnapshot(0, Collections.emptyMap(), Collections.emptyList());
+        
+        final long version;
+        final Map<String, UserScore> byUserId;
+        final List<UserScore> scores;
+        
+        private BoardSnapshot(long version, Map<String, UserScore> byUserId, List<UserScore> scores) {
+            this.version = version;
+            this.byUserId = byUserId;
+            this.scores = scores;
+        }
+        
+        static BoardSnapshot of(long version, Map<String, UserScore> byUserId) {
+            return new BoardSnapshot(version, Collections.unmodifiableMap(byUserId), List.copyOf(byUserId.values()));
         }
     }
 }
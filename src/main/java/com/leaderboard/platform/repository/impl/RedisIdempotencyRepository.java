@@ -0,0 +1,135 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.leaderboard.platform.model.IdempotencyRecord;
+import com.leaderboard.platform.repository.IdempotencyRepository;
+import com.leaderboard.platform.repository.RedisRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Idempotency records kept in Redis with an expiry, shared by every instance. While Redis is
+ * unavailable (or not deployed at all in embedded mode) records are kept in a bounded
+ * in-process map instead, which only dedupes retries that reach the same instance.
+ * A claim expires after the short pending TTL unless it is completed, so a crash between
+ * claim and completion does not block retries for the full TTL. Completion stores the result
+ * even when the claim has already expired.
+ */
+@Repository
+public class RedisIdempotencyRepository implements IdempotencyRepository {
+    
+    private final RedisRepository redisRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, LocalEntry> localEntries;
+    
+    @Value("${leaderboard.idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+    
+    @Value("${leaderboard.idempotency.pending-ttl-ms:30000}")
+    private long pendingTtlMillis;
+    
+    public RedisIdempotencyRepository(
+            RedisRepository redisRepository,
+            @Value("${leaderboard.idempotency.local-max-entries:10000}") int localMaxEntries) {
+        this.redisRepository = redisRepository;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        // Insertion ordered, so the oldest claim is evicted first once the map is full
+        this.localEntries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                return size() > localMaxEntries;
+            }
+        };
+    }
+    
+    @Override
+    public Optional<IdempotencyRecord> claim(String key, IdempotencyRecord pending) {
+        try {
+            String existing = redisRepository.claimIdempotencyKey(key, write(pending), pendingTtlMillis);
+            return existing == null ? Optional.empty() : Optional.of(read(existing));
+        } catch (RuntimeException e) {
+            return claimLocally(key, pending);
+        }
+    }
+    
+    @Override
+    public void complete(String key, IdempotencyRecord completed) {
+        try {
+            redisRepository.completeIdempotencyKey(key, write(completed), ttlMillis);
+            completeLocally(key, completed, false);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to complete idempotency key in Redis: " + e.getMessage());
+            completeLocally(key, completed, true);
+        }
+    }
+    
+    @Override
+    public void release(String key) {
+        redisRepository.releaseIdempotencyKey(key);
+        synchronized (localEntries) {
+            localEntries.remove(key);
+        }
+    }
+    
+    private Optional<IdempotencyRecord> claimLocally(String key, IdempotencyRecord pending) {
+        long now = System.currentTimeMillis();
+        synchronized (localEntries) {
+            LocalEntry existing = localEntries.get(key);
+            if (existing != null && existing.expiresAt > now) {
+                return Optional.of(existing.record);
+            }
+            localEntries.remove(key);
+            localEntries.put(key, new LocalEntry(pending, now + pendingTtlMillis));
+            return Optional.empty();
+        }
+    }
+    
+    /**
+     * @param force store the record even if the local claim was evicted or expired, as Redis does;
+     *              otherwise only claims made here are completed
+     */
+    private void completeLocally(String key, IdempotencyRecord completed, boolean force) {
+        LocalEntry entry = new LocalEntry(completed, System.currentTimeMillis() + ttlMillis);
+        synchronized (localEntries) {
+            if (force) {
+                localEntries.remove(key);
+                localEntries.put(key, entry);
+            } else {
+                localEntries.computeIfPresent(key, (k, existing) -> entry);
+            }
+        }
+    }
+    
+    private String write(IdempotencyRecord record) {
+        try {
+            return objectMapper.writeValueAsString(record);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize idempotency record", e);
+        }
+    }
+    
+    private IdempotencyRecord read(String value) {
+        try {
+            return objectMapper.readValue(value, IdempotencyRecord.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to deserialize idempotency record", e);
+        }
+    }
+    
+    private static final class LocalEntry {
+        private final IdempotencyRecord record;
+        private final long expiresAt;
+        
+        private LocalEntry(IdempotencyRecord record, long expiresAt) {
+            this.record = record;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
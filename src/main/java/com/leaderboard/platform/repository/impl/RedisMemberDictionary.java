@@ -0,0 +1,122 @@
+package com.leaderboard.platform.repository.impl;
+
+import redis.clients.jedis.UnifiedJedis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Global dictionary between userIds and compact integer member ids, so sorted sets store
+ * a few-byte number per entry instead of a full userId (often a 36 character UUID).
+ * <p>
+ * The mapping lives in two Redis hashes (userId to id and back) sharing the "{members}" hash
+ * tag. Ids are never reassigned, so both directions can be cached in-process without
+ * invalidation; the caches are bounded LRUs.
+ */
+class RedisMemberDictionary {
+    
+    private static final String IDS_KEY = "leaderboard:{members}:ids";
+    private static final String USER_IDS_KEY = "leaderboard:{members}:user-ids";
+    private static final String SEQUENCE_KEY = "leaderboard:{members}:seq";
+    
+    /**
+     * Returns the id of ARGV[1], assigning the next sequence value if it has none yet.
+     * KEYS[1] = userId -> id hash, KEYS[2] = id -> userId hash, KEYS[3] = id sequence.
+     */
+    private static final String ASSIGN_SCRIPT =
+        "local id = redis.call('HGET', KEYS[1], ARGV[1]) " +
+        "if not id then " +
+        "  id = tostring(redis.call('INCR', KEYS[3])) " +
+        "  redis.call('HSET', KEYS[1], ARGV[1], id) " +
+        "  redis.call('HSET', KEYS[2], id, ARGV[1]) " +
+        "end " +
+        "return id";
+    
+    private final UnifiedJedis jedis;
+    private final Map<String, String> idsByUserId;
+    private final Map<String, String> userIdsById;
+    
+    RedisMemberDictionary(UnifiedJedis jedis, int cacheSize) {
+        this.jedis = jedis;
+        this.idsByUserId = lruCache(cacheSize);
+        this.userIdsById = lruCache(cacheSize);
+    }
+    
+    private static Map<String, String> lruCache(int maxEntries) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+    
+    /**
+     * Member id for a userId that is about to be written, assigning one if needed.
+     */
+    String encode(String userId) {
+        String id = idsByUserId.get(userId);
+        if (id != null) {
+            return id;
+        }
+        
+        id = String.valueOf(jedis.eval(ASSIGN_SCRIPT, List.of(IDS_KEY, USER_IDS_KEY, SEQUENCE_KEY), List.of(userId)));
+        remember(userId, id);
+        return id;
+    }
+    
+    /**
+     * Member id for a userId on the read path, or null if the user was never written.
+     */
+    String lookup(String userId) {
+        String id = idsByUserId.get(userId);
+        if (id != null) {
+            return id;
+        }
+        
+        id = jedis.hget(IDS_KEY, userId);
+        if (id != null) {
+            remember(userId, id);
+        }
+        return id;
+    }
+    
+    /**
+     * Translate a page of member ids back to userIds with at most one HMGET for cache misses.
+     */
+    List<String> decode(List<String> memberIds) {
+        List<String> userIds = new ArrayList<>(memberIds.size());
+        List<Integer> missingPositions = new ArrayList<>();
+        for (String memberId : memberIds) {
+            String userId = userIdsById.get(memberId);
+            if (userId == null) {
+                missingPositions.add(userIds.size());
+            }
+            userIds.add(userId);
+        }
+        
+        if (!missingPositions.isEmpty()) {
+            String[] missingIds = missingPositions.stream()
+                .map(memberIds::get)
+                .toArray(String[]::new);
+            List<String> resolved = jedis.hmget(USER_IDS_KEY, missingIds);
+            for (int i = 0; i < missingIds.length; i++) {
+                String userId = resolved.get(i);
+                if (userId != null) {
+                    remember(userId, missingIds[i]);
+                }
+                // Fall back to the raw member so an unmapped entry is still visible
+                userIds.set(missingPositions.get(i), userId != null ? userId : missingIds[i]);
+            }
+        }
+        return userIds;
+    }
+    
+    private void remember(String userId, String id) {
+        idsByUserId.put(userId, id);
+        userIdsById.put(id, userId);
+    }
+}
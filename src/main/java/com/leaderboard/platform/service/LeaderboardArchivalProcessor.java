@@ -0,0 +1,50 @@
+package com.leaderboard.platform.service;
+
+import com.leaderboard.platform.model.Leaderboard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class LeaderboardArchivalProcessor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardArchivalProcessor.class);
+    
+    private final LeaderboardService leaderboardService;
+    
+    @Autowired
+    public LeaderboardArchivalProcessor(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+    
+    /**
+     * Archive ended leaderboards every minute by default. Each leaderboard is archived in its
+     * own transaction, so a failing one does not hold back the others.
+     */
+    @Scheduled(fixedRateString = "${leaderboard.archival.interval-ms:60000}")
+    public void archiveEndedLeaderboards() {
+        List<Leaderboard> ended;
+        try {
+            ended = leaderboardService.findLeaderboardsToArchive();
+        } catch (Exception e) {
+            logger.error("Error archiving ended leaderboards", e);
+            return;
+        }
+        if (ended.isEmpty()) {
+            return;
+        }
+        
+        logger.info("Archiving {} ended leaderboards", ended.size());
+        for (Leaderboard leaderboard : ended) {
+            try {
+                leaderboardService.archiveLeaderboard(leaderboard);
+            } catch (Exception e) {
+                logger.error("Failed to archive leaderboard {}", leaderboard.getLeaderboardId(), e);
+            }
+        }
+    }
+}
@@ -1,44 +1,112 @@
 package com.leaderboard.platform.service;
 
+import com.leaderboard.platform.model.HistogramSpec;
+import com.leaderboard.platform.model.IdempotencyRecord;
 import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardSnapshot;
+import com.leaderboard.platform.model.LeaderboardStatus;
+import com.leaderboard.platform.model.LeaderboardWindow;
 import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.RankedUserConsumer;
 import com.leaderboard.platform.model.RetryQueueItem;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.ScoreWrite;
+import com.leaderboard.platform.model.TopNPage;
 import com.leaderboard.platform.model.UserScore;
+import com.leaderboard.platform.model.WindowBucket;
+import com.leaderboard.platform.exception.IdempotencyConflictException;
 import com.leaderboard.platform.exception.InvalidRequestException;
 import com.leaderboard.platform.exception.LeaderboardNotFoundException;
+import com.leaderboard.platform.exception.UserNotFoundException;
+import com.leaderboard.platform.repository.IdempotencyRepository;
 import com.leaderboard.platform.repository.LeaderboardRepository;
 import com.leaderboard.platform.repository.RedisRepository;
 import com.leaderboard.platform.repository.RetryQueueRepository;
+import com.leaderboard.platform.repository.SnapshotRepository;
+import com.leaderboard.platform.repository.UserScoreRankRepository;
 import com.leaderboard.platform.repository.UserScoreRepository;
 import com.leaderboard.platform.repository.impl.JedisRedisRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class LeaderboardService {
     
     private static final Logger logger = LoggerFactory.getLogger(LeaderboardService.class);
+    private static final int MAX_FAN_OUT = 100;
+    private static final int MAX_USER_IDS = 1000;
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    // Version of archived leaderboards, which never change
+    private static final String ARCHIVED_VERSION = "archived";
     
     private final LeaderboardRepository leaderboardRepository;
     private final UserScoreRepository userScoreRepository;
     private final RedisRepository redisRepository;
     private final RetryQueueRepository retryQueueRepository;
+    private final SnapshotRepository snapshotRepository;
+    private final IdempotencyRepository idempotencyRepository;
+    private final UserScoreRankRepository userScoreRankRepository;
+    
+    @Value("${leaderboard.write-combining.enabled:false}")
+    private boolean writeCombiningEnabled;
+    
+    // Longest a score write waits for others to the same leaderboard before its batch is written
+    @Value("${leaderboard.write-combining.max-delay-ms:5}")
+    private long writeCombiningMaxDelayMillis;
+    
+    @Value("${leaderboard.write-combining.max-batch-size:500}")
+    private int writeCombiningMaxBatchSize;
+    
+    // Set when concurrent score writes to one leaderboard are combined into batches
+    private ScoreWriteCombiner scoreWriteCombiner;
     
     @Autowired
     public LeaderboardService(
             LeaderboardRepository leaderboardRepository,
             UserScoreRepository userScoreRepository,
             RedisRepository redisRepository,
-            RetryQueueRepository retryQueueRepository) {
+            RetryQueueRepository retryQueueRepository,
+            SnapshotRepository snapshotRepository,
+            IdempotencyRepository idempotencyRepository,
+            UserScoreRankRepository userScoreRankRepository) {
         this.leaderboardRepository = leaderboardRepository;
         this.userScoreRepository = userScoreRepository;
         this.redisRepository = redisRepository;
         this.retryQueueRepository = retryQueueRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.idempotencyRepository = idempotencyRepository;
+        this.userScoreRankRepository = userScoreRankRepository;
+    }
+    
+    @PostConstruct
+    public void init() {
+        if (writeCombiningEnabled) {
+            scoreWriteCombiner = new ScoreWriteCombiner(
+                writeCombiningMaxDelayMillis, writeCombiningMaxBatchSize, this::writeCombinedScores);
+            logger.info("Combining concurrent score writes per leaderboard (max delay {}ms, max batch {})",
+                writeCombiningMaxDelayMillis, writeCombiningMaxBatchSize);
+        }
     }
     
     /**
@@ -49,11 +117,73 @@ public class LeaderboardService {
     public UserScore updateScore(String uuid, String userId, Double score) {
         validateUpdateScoreRequest(uuid, userId, score);
         Leaderboard leaderboard = findActiveLeaderboard(uuid);
+        if (scoreWriteCombiner != null) {
+            return scoreWriteCombiner.write(leaderboard, UserScore.builder()
+                .userId(userId)
+                .leaderboardId(leaderboard.getLeaderboardId())
+                .score(score)
+                .timestamp(Instant.now())
+                .build());
+        }
         UserScore userScore = persistScoreUpdate(leaderboard.getLeaderboardId(), userId, score);
-        updateRedisOrQueueForRetry(leaderboard.getLeaderboardId(), userId, score, userScore);
+        updateRedisOrQueueForRetry(leaderboard, userId, score, userScore);
+        return userScore;
+    }
+    
+    /**
+     * Update a user's score at most once per idempotency key. The first submission claims the key
+     * before anything is written; retries with the same key get the original result back without
+     * touching storage or Redis, so they cannot move the user's tiebreak timestamp either.
+     * A retry that arrives while the first submission is still being applied is rejected.
+     * A null key behaves like {@link #updateScore(String, String, Double)}.
+     */
+    public UserScore updateScore(String uuid, String userId, Double score, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return updateScore(uuid, userId, score);
+        }
+        validateUpdateScoreRequest(uuid, userId, score);
+        validateIdempotencyKey(idempotencyKey);
+        
+        // Scoped to the leaderboard and user, so clients only need keys unique per submission
+        String key = uuid + ":" + userId + ":" + idempotencyKey;
+        Optional<IdempotencyRecord> existing = idempotencyRepository.claim(key,
+            IdempotencyRecord.builder().score(score).build());
+        if (existing.isPresent()) {
+            return replay(existing.get(), score, idempotencyKey);
+        }
+        
+        UserScore userScore;
+        try {
+            userScore = updateScore(uuid, userId, score);
+        } catch (RuntimeException e) {
+            // Nothing was recorded, let the client retry with the same key
+            idempotencyRepository.release(key);
+            throw e;
+        }
+        idempotencyRepository.complete(key, IdempotencyRecord.builder().score(score).result(userScore).build());
         return userScore;
     }
     
+    private UserScore replay(IdempotencyRecord record, Double score, String idempotencyKey) {
+        if (!score.equals(record.getScore())) {
+            throw new InvalidRequestException("Idempotency-Key " + idempotencyKey + " was already used with a different score");
+        }
+        if (record.isPending()) {
+            throw new IdempotencyConflictException("A request with Idempotency-Key " + idempotencyKey + " is still in progress");
+        }
+        logger.info("Replaying score update for Idempotency-Key {}", idempotencyKey);
+        return record.getResult();
+    }
+    
+    private void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey.trim().isEmpty()) {
+            throw new InvalidRequestException("Idempotency-Key cannot be empty");
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new InvalidRequestException("Idempotency-Key cannot exceed " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+    }
+    
     private void validateUpdateScoreRequest(String uuid, String userId, Double score) {
         if (uuid == null || uuid.trim().isEmpty()) {
             throw new InvalidRequestException("UUID cannot be null or empty");
@@ -72,14 +202,98 @@ public class LeaderboardService {
     private Leaderboard findActiveLeaderboard(String uuid) {
         Leaderboard leaderboard = leaderboardRepository.findByUuid(uuid)
             .orElseThrow(() -> new LeaderboardNotFoundException("Leaderboard not found with UUID: " + uuid));
-        
-        if (leaderboard.getStatus() != com.leaderboard.platform.model.LeaderboardStatus.ACTIVE) {
+        return requireAcceptingScores(leaderboard);
+    }
+    
+    private Leaderboard requireAcceptingScores(Leaderboard leaderboard) {
+        if (leaderboard.getStatus() != LeaderboardStatus.ACTIVE) {
             throw new InvalidRequestException("Leaderboard is not active");
         }
+        // Ended leaderboards are read-only even before the archival job has picked them up
+        if (leaderboard.getEndTime() != null && !Instant.now().isBefore(leaderboard.getEndTime())) {
+            throw new InvalidRequestException("Leaderboard has ended");
+        }
         
         return leaderboard;
     }
     
+    /**
+     * Apply one score to several leaderboards at once, e.g. a match result that counts towards a
+     * global, a regional and a pod board. The boards are loaded with one query, storage is written
+     * with one multi-row upsert and Redis with one pipeline. Returns one score per distinct UUID,
+     * in request order, each carrying its board's rank.
+     */
+    public List<UserScore> updateScores(List<String> uuids, String userId, Double score) {
+        validateUpdateScoresRequest(uuids, userId, score);
+        List<Leaderboard> leaderboards = findActiveLeaderboards(new LinkedHashSet<>(uuids));
+        
+        Instant timestamp = Instant.now();
+        List<UserScore> userScores = leaderboards.stream()
+            .map(leaderboard -> UserScore.builder()
+                .userId(userId)
+                .leaderboardId(leaderboard.getLeaderboardId())
+                .score(score)
+                .timestamp(timestamp)
+                .build())
+            .toList();
+        try {
+            userScores = userScoreRepository.saveAll(userScores);
+            logger.info("Successfully persisted score update for user {} in {} leaderboards", userId, userScores.size());
+        } catch (Exception e) {
+            logger.error("Failed to persist score updates to storage", e);
+            throw new RuntimeException("Failed to update scores: " + e.getMessage(), e);
+        }
+        
+        updateRedisOrQueueForRetry(leaderboards, userScores);
+        return userScores;
+    }
+    
+    /**
+     * Write a combined batch of one leaderboard's score updates: a single storage batch, then a
+     * single Redis pipeline whose ranks are assigned to the scores.
+     */
+    private List<UserScore> writeCombinedScores(Leaderboard leaderboard, List<UserScore> userScores) {
+        List<UserScore> saved;
+        try {
+            saved = userScoreRepository.saveAll(userScores);
+            logger.info("Successfully persisted {} combined score updates in leaderboard {}",
+                saved.size(), leaderboard.getLeaderboardId());
+        } catch (Exception e) {
+            logger.error("Failed to persist combined score updates to storage", e);
+            throw new RuntimeException("Failed to update scores: " + e.getMessage(), e);
+        }
+        
+        updateRedisOrQueueForRetry(Collections.nCopies(saved.size(), leaderboard), saved);
+        return saved;
+    }
+    
+    private void validateUpdateScoresRequest(List<String> uuids, String userId, Double score) {
+        if (uuids == null || uuids.isEmpty()) {
+            throw new InvalidRequestException("UUIDs cannot be null or empty");
+        }
+        if (uuids.size() > MAX_FAN_OUT) {
+            throw new InvalidRequestException("Cannot update more than " + MAX_FAN_OUT + " leaderboards at once");
+        }
+        for (String uuid : uuids) {
+            validateUpdateScoreRequest(uuid, userId, score);
+        }
+    }
+    
+    private List<Leaderboard> findActiveLeaderboards(Collection<String> uuids) {
+        Map<String, Leaderboard> byUuid = leaderboardRepository.findByUuidIn(uuids).stream()
+            .collect(Collectors.toMap(Leaderboard::getUuid, leaderboard -> leaderboard));
+        
+        List<Leaderboard> leaderboards = new ArrayList<>(uuids.size());
+        for (String uuid : uuids) {
+            Leaderboard leaderboard = byUuid.get(uuid);
+            if (leaderboard == null) {
+                throw new LeaderboardNotFoundException("Leaderboard not found with UUID: " + uuid);
+            }
+            leaderboards.add(requireAcceptingScores(leaderboard));
+        }
+        return leaderboards;
+    }
+    
     private UserScore persistScoreUpdate(String leaderboardId, String userId, Double score) {
         try {
             UserScore userScore = UserScore.builder()
@@ -88,7 +302,7 @@ public class LeaderboardService {
                 .score(score)
                 .timestamp(Instant.now())
                 .build();
-
+            
             userScore = userScoreRepository.save(userScore);
             logger.info("Successfully persisted score update for user {} in leaderboard {}", userId, leaderboardId);
             return userScore;
@@ -98,88 +312,390 @@ public class LeaderboardService {
         }
     }
     
-    private void updateRedisOrQueueForRetry(String leaderboardId, String userId, Double score, UserScore userScore) {
+    private void updateRedisOrQueueForRetry(Leaderboard leaderboard, String userId, Double score, UserScore userScore) {
+        String leaderboardId = leaderboard.getLeaderboardId();
         if (!redisRepository.isAvailable()) {
             logger.warn("Redis is not available, queueing update for retry");
-            calculateAndPersistRankFromStorage(leaderboardId, userId, userScore);
+            assignRankFromStorage(leaderboardId, userId, userScore);
             queueRedisUpdate(leaderboardId, userId, score, userScore.getTimestamp());
             return;
         }
         
         try {
-            updateRedisScore(leaderboardId, userId, score, userScore);
+            updateRedisScore(leaderboard, userId, score, userScore);
             logger.info("Successfully updated Redis for user {} in leaderboard {}", userId, leaderboardId);
         } catch (Exception e) {
             logger.error("Failed to update Redis, queueing for retry", e);
-            calculateAndPersistRankFromStorage(leaderboardId, userId, userScore);
+            assignRankFromStorage(leaderboardId, userId, userScore);
             queueRedisUpdate(leaderboardId, userId, score, userScore.getTimestamp());
         }
     }
     
-    private void updateRedisScore(String leaderboardId, String userId, Double score, UserScore userScore) {
-        double compositeScore = JedisRedisRepository.calculateCompositeScore(score, userScore.getTimestamp());
-        redisRepository.updateScore(leaderboardId, userId, compositeScore);
+    /**
+     * Apply stored scores to Redis in one pipeline; each score is written to the leaderboard at the
+     * same position. Scores whose write fails fall back to storage ranks and are queued for retry.
+     */
+    private void updateRedisOrQueueForRetry(List<Leaderboard> leaderboards, List<UserScore> userScores) {
+        if (!redisRepository.isAvailable()) {
+            logger.warn("Redis is not available, queueing {} updates for retry", userScores.size());
+            userScores.forEach(this::fallBackAndQueueForRetry);
+            return;
+        }
         
-        Long rank = redisRepository.getUserRankPosition(leaderboardId, userId);
+        try {
+            List<ScoreWrite> writes = new ArrayList<>(leaderboards.size());
+            for (int i = 0; i < leaderboards.size(); i++) {
+                UserScore userScore = userScores.get(i);
+                writes.add(buildScoreWrite(leaderboards.get(i), userScore.getUserId(), userScore.getScore(), userScore.getTimestamp()));
+            }
+            // One pipeline across all boards; each board lives in its own slot in cluster mode
+            List<Long> ranks = redisRepository.writeScores(writes);
+            for (int i = 0; i < userScores.size(); i++) {
+                UserScore userScore = userScores.get(i);
+                Long rank = ranks.get(i);
+                if (rank != null) {
+                    userScore.setRank(rank.intValue());
+                } else {
+                    assignRankFromStorage(userScore.getLeaderboardId(), userScore.getUserId(), userScore);
+                }
+            }
+            logger.info("Successfully updated Redis with {} score writes", userScores.size());
+        } catch (Exception e) {
+            logger.error("Failed to update Redis, queueing for retry", e);
+            userScores.forEach(this::fallBackAndQueueForRetry);
+        }
+    }
+    
+    private void fallBackAndQueueForRetry(UserScore userScore) {
+        assignRankFromStorage(userScore.getLeaderboardId(), userScore.getUserId(), userScore);
+        queueRedisUpdate(userScore.getLeaderboardId(), userScore.getUserId(), userScore.getScore(), userScore.getTimestamp());
+    }
+    
+    private void updateRedisScore(Leaderboard leaderboard, String userId, Double score, UserScore userScore) {
+        String leaderboardId = leaderboard.getLeaderboardId();
+        // The rank is read back inside the same script, so it always reflects this write
+        Long rank = redisRepository.writeScore(buildScoreWrite(leaderboard, userId, score, userScore.getTimestamp()));
         if (rank != null) {
             userScore.setRank(rank.intValue());
-            persistRankUpdate(leaderboardId, userId, rank.intValue());
         } else {
             // Fallback to calculating from storage if Redis doesn't have it
-            calculateAndPersistRankFromStorage(leaderboardId, userId, userScore);
+            assignRankFromStorage(leaderboardId, userId, userScore);
         }
     }
     
-    private void calculateAndPersistRankFromStorage(String leaderboardId, String userId, UserScore userScore) {
-        try {
-            int rank = calculateRankFromStorage(leaderboardId, userId, userScore);
-            userScore.setRank(rank);
-            persistRankUpdate(leaderboardId, userId, rank);
-        } catch (Exception e) {
-            logger.warn("Failed to calculate rank from storage for user {} in leaderboard {}", userId, leaderboardId, e);
-        }
+    /**
+     * Describe a score submission for Redis: the all-time board plus every declared window
+     * the submission's timestamp falls into.
+     */
+    private ScoreWrite buildScoreWrite(Leaderboard leaderboard, String userId, Double score, Instant timestamp) {
+        return ScoreWrite.builder()
+            .leaderboardId(leaderboard.getLeaderboardId())
+            .userId(userId)
+            .compositeScore(JedisRedisRepository.calculateCompositeScore(score, timestamp))
+            .windows(openWindowBuckets(leaderboard, timestamp))
+            .histogram(leaderboard.getHistogram())
+            .podId(Boolean.TRUE.equals(leaderboard.getPodAggregate()) ? leaderboard.getPodId() : null)
+            .build();
     }
     
-    private int calculateRankFromStorage(String leaderboardId, String userId, UserScore userScore) {
-        List<UserScore> allScores = userScoreRepository.findByLeaderboardId(leaderboardId);
-        List<UserScore> sortedScores = sortScores(allScores);
-        
-        for (int i = 0; i < sortedScores.size(); i++) {
-            if (sortedScores.get(i).getUserId().equals(userId)) {
-                return i + 1;
-            }
+    private List<WindowBucket> openWindowBuckets(Leaderboard leaderboard, Instant timestamp) {
+        if (leaderboard.getWindows() == null || leaderboard.getWindows().isEmpty() || timestamp == null) {
+            return List.of();
         }
         
-        return sortedScores.size() + 1;
+        Instant now = Instant.now();
+        Instant anchor = windowAnchor(leaderboard);
+        return leaderboard.getWindows().stream()
+            .filter(LeaderboardWindow::isBounded)
+            .distinct()
+            .map(window -> window.bucketAt(anchor, leaderboard.getEndTime(), timestamp))
+            // A replayed write may belong to a window that has already expired in Redis
+            .filter(bucket -> bucket.getEnd().isAfter(now))
+            .toList();
     }
     
-    private List<UserScore> sortScores(List<UserScore> userScores) {
-        return userScores.stream()
-            .sorted(this::compareScoresForRanking)
+    /**
+     * The last bucket of each window of an ended board, the only ones whose keys may not have
+     * expired yet.
+     */
+    private List<WindowBucket> lastWindowBuckets(Leaderboard leaderboard) {
+        if (leaderboard.getWindows() == null || leaderboard.getWindows().isEmpty()) {
+            return List.of();
+        }
+        
+        Instant anchor = windowAnchor(leaderboard);
+        Instant last = leaderboard.getEndTime() != null ? leaderboard.getEndTime().minusMillis(1) : Instant.now();
+        return leaderboard.getWindows().stream()
+            .filter(LeaderboardWindow::isBounded)
+            .distinct()
+            .map(window -> window.bucketAt(anchor, leaderboard.getEndTime(), last))
             .toList();
     }
     
-    private void persistRankUpdate(String leaderboardId, String userId, int rank) {
-        // Rank is not persisted to storage - it's calculated on-the-fly
-        // This method is kept for API response purposes only
-        // The rank is set on the UserScore object for the response, but not saved
+    private Instant windowAnchor(Leaderboard leaderboard) {
+        if (leaderboard.getStartTime() != null) {
+            return leaderboard.getStartTime();
+        }
+        return leaderboard.getCreatedAt() != null ? leaderboard.getCreatedAt() : Instant.EPOCH;
+    }
+    
+    private void assignRankFromStorage(String leaderboardId, String userId, UserScore userScore) {
+        try {
+            userScore.setRank(calculateRankFromStorage(leaderboardId, userScore));
+        } catch (Exception e) {
+            logger.warn("Failed to calculate rank from storage for user {} in leaderboard {}", userId, leaderboardId, e);
+        }
+    }
+    
+    /**
+     * Exact rank of a stored score: one plus the users ranked above it, counted by the
+     * repository without loading or sorting the board.
+     */
+    private int calculateRankFromStorage(String leaderboardId, UserScore userScore) {
+        return (int) userScoreRepository.countRankedAbove(leaderboardId, userScore.getScore(), userScore.getTimestamp()) + 1;
     }
     
     /**
      * Get top N users from a leaderboard.
      * Reads from Redis if available, otherwise falls back to persistent storage.
      */
+    @Transactional(readOnly = true)
     public List<RankedUser> getTopN(String uuid, int limit) {
+        return getTopN(uuid, limit, null);
+    }
+    
+    /**
+     * Get top N users from one window of a leaderboard ("daily", "weekly" or "all-time").
+     * A null window selects the all-time board.
+     */
+    @Transactional(readOnly = true)
+    public List<RankedUser> getTopN(String uuid, int limit, String window) {
         validateGetTopNRequest(uuid, limit);
         Leaderboard leaderboard = findLeaderboardByUuid(uuid);
         String leaderboardId = leaderboard.getLeaderboardId();
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            return findArchivedSnapshot(leaderboard, window).getTopN(limit);
+        }
+        WindowBucket bucket = resolveWindowBucket(leaderboard, window);
         
-        List<RankedUser> result = tryGetTopNFromRedis(leaderboardId, limit);
+        List<RankedUser> result = isEnded(bucket) ? null : tryGetTopNFromRedis(leaderboardId, bucket, limit);
         if (result != null) {
             return result;
         }
         
-        return getTopNFromStorage(leaderboardId, limit);
+        return getTopNFromStorage(leaderboardId, bucket, limit);
+    }
+    
+    /**
+     * Get a top N page together with the leaderboard size and version it was read at, with a
+     * single leaderboard lookup. Redis answers all three from one atomic script and storage
+     * from one query, so the page and the count never disagree under concurrent writes.
+     * Storage pages carry no version.
+     */
+    @Transactional(readOnly = true)
+    public TopNPage getTopNPage(String uuid, int limit, String window) {
+        validateGetTopNRequest(uuid, limit);
+        Leaderboard leaderboard = findLeaderboardByUuid(uuid);
+        String leaderboardId = leaderboard.getLeaderboardId();
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            LeaderboardSnapshot snapshot = findArchivedSnapshot(leaderboard, window);
+            return new TopNPage(consumer -> snapshot.forEachTopN(limit, consumer), snapshot.size(), ARCHIVED_VERSION);
+        }
+        WindowBucket bucket = resolveWindowBucket(leaderboard, window);
+        
+        if (!isEnded(bucket)) {
+            try {
+                TopNPage page = redisRepository.getTopNPage(leaderboardId, bucket, limit);
+                // Without a version Redis has never seen the board (or lost it); an empty versioned page is a hit
+                if (page != null && page.getVersion() != null) {
+                    return page;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to get top N page from Redis, falling back to persistent storage", e);
+            }
+        }
+        
+        if (bucket == null) {
+            TopNPage materialized = findMaterializedTopNPage(leaderboardId, limit);
+            if (materialized != null) {
+                return materialized;
+            }
+        }
+        return userScoreRepository.findTopNPage(leaderboardId, bucket, limit);
+    }
+    
+    /**
+     * Look up a leaderboard for a full export, so an unknown UUID is rejected before any
+     * of the export is streamed.
+     */
+    @Transactional(readOnly = true)
+    public Leaderboard findLeaderboardForExport(String uuid) {
+        if (uuid == null || uuid.trim().isEmpty()) {
+            throw new InvalidRequestException("UUID cannot be null or empty");
+        }
+        return findLeaderboardByUuid(uuid);
+    }
+    
+    /**
+     * Look up a leaderboard that a bulk import writes to. Imports may seed boards that have not
+     * started yet or have already ended; only archived boards are rejected, as their rankings
+     * now live in the archive snapshot and no longer in storage or Redis.
+     */
+    public Leaderboard findLeaderboardForImport(String uuid) {
+        if (uuid == null || uuid.trim().isEmpty()) {
+            throw new InvalidRequestException("UUID cannot be null or empty");
+        }
+        Leaderboard leaderboard = findLeaderboardByUuid(uuid);
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            throw new InvalidRequestException("Leaderboard is archived: " + uuid);
+        }
+        return leaderboard;
+    }
+    
+    /**
+     * Write one batch of a bulk import to a leaderboard: persistent storage first, then Redis,
+     * without computing ranks or queueing retries. Both writes replace scores, so repeating a
+     * batch after a failure gives the same result. The batch must hold each user only once.
+     */
+    public void importScores(Leaderboard leaderboard, List<UserScore> userScores) {
+        userScoreRepository.importScores(userScores);
+        List<ScoreWrite> writes = userScores.stream()
+            .map(userScore -> buildScoreWrite(leaderboard, userScore.getUserId(), userScore.getScore(), userScore.getTimestamp()))
+            .toList();
+        redisRepository.loadScores(writes);
+    }
+    
+    /**
+     * Hand every user of a leaderboard to the consumer in rank order, read from persistent
+     * storage through a cursor. Rows are passed on as they are fetched, so memory use does not
+     * grow with the board. Returns the number of users exported.
+     */
+    @Transactional(readOnly = true)
+    public long exportRanking(Leaderboard leaderboard, RankedUserConsumer consumer) {
+        String leaderboardId = leaderboard.getLeaderboardId();
+        long exported = userScoreRepository.forEachRanked(leaderboardId, consumer);
+        logger.info("Exported leaderboard {} - users: {}", leaderboardId, exported);
+        return exported;
+    }
+    
+    /**
+     * Rank from the materialized rank table, which may lag the latest writes by up to a refresh
+     * interval; the returned user carries rankedAt so callers can tell. Empty if the board has
+     * no fresh enough ranking or the user was not in it.
+     */
+    private Optional<RankedUser> findMaterializedRank(String leaderboardId, String userId) {
+        try {
+            return userScoreRankRepository.findRank(leaderboardId, userId);
+        } catch (Exception e) {
+            logger.warn("Failed to read materialized rank, ranking from storage", e);
+            return Optional.empty();
+        }
+    }
+    
+    private Map<String, RankedUser> findMaterializedRanks(String leaderboardId, Collection<String> userIds) {
+        try {
+            return userScoreRankRepository.findRanks(leaderboardId, userIds);
+        } catch (Exception e) {
+            logger.warn("Failed to read materialized ranks, ranking from storage", e);
+            return Map.of();
+        }
+    }
+    
+    private TopNPage findMaterializedTopNPage(String leaderboardId, int limit) {
+        try {
+            return userScoreRankRepository.findTopNPage(leaderboardId, limit);
+        } catch (Exception e) {
+            logger.warn("Failed to read materialized ranks, ranking from storage", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Run one materialized rank refresh cycle if no other instance claimed one within the lease.
+     * The claim and the watermark are kept in storage, so instances take turns and a restart
+     * resumes from the last completed cycle. The watermark only moves once every changed board
+     * was rebuilt, so a failed board is retried by the next cycle. Returns the boards rebuilt.
+     */
+    public int runRankRefreshCycle(Duration lease) {
+        Instant cycleStart = Instant.now();
+        Optional<Instant> changedSince = userScoreRankRepository.claimRefreshCycle(cycleStart, lease);
+        if (changedSince.isEmpty()) {
+            logger.debug("Rank refresh cycle already claimed by another instance");
+            return 0;
+        }
+        
+        List<String> leaderboardIds = userScoreRankRepository.findLeaderboardIdsToRefresh(changedSince.get());
+        int refreshed = refreshMaterializedRanks(leaderboardIds);
+        if (refreshed == leaderboardIds.size()) {
+            userScoreRankRepository.completeRefreshCycle(cycleStart);
+        }
+        return refreshed;
+    }
+    
+    /**
+     * Rebuild the materialized ranking of every leaderboard with a score written since the given
+     * instant. Boards are rebuilt one at a time, each in its own transaction, so a failing board
+     * does not hold back the others. Returns the number of boards rebuilt.
+     */
+    public int refreshMaterializedRanks(Instant changedSince) {
+        return refreshMaterializedRanks(userScoreRankRepository.findLeaderboardIdsToRefresh(changedSince));
+    }
+    
+    /**
+     * Rebuild the materialized ranks of the given boards, e.g. after a bulk import.
+     * Returns the number of boards refreshed.
+     */
+    public int refreshMaterializedRanks(Collection<String> leaderboardIds) {
+        int refreshed = 0;
+        for (String leaderboardId : leaderboardIds) {
+            try {
+                long users = userScoreRankRepository.refresh(leaderboardId);
+                logger.debug("Refreshed materialized ranks of leaderboard {} - users: {}", leaderboardId, users);
+                refreshed++;
+            } catch (Exception e) {
+                logger.warn("Failed to refresh materialized ranks of leaderboard {}", leaderboardId, e);
+            }
+        }
+        if (refreshed > 0) {
+            logger.info("Refreshed materialized ranks of {} leaderboards", refreshed);
+        }
+        return refreshed;
+    }
+    
+    /**
+     * Resolve the window named on a read to the bucket that is current now,
+     * or null for the all-time board.
+     */
+    private WindowBucket resolveWindowBucket(Leaderboard leaderboard, String window) {
+        if (window == null || window.trim().isEmpty()) {
+            return null;
+        }
+        
+        LeaderboardWindow requested = LeaderboardWindow.fromValue(window);
+        if (requested == null) {
+            throw new InvalidRequestException("Unknown window: " + window);
+        }
+        if (!requested.isBounded()) {
+            return null;
+        }
+        if (leaderboard.getWindows() == null || !leaderboard.getWindows().contains(requested)) {
+            throw new InvalidRequestException("Leaderboard does not declare window: " + window);
+        }
+        
+        Instant at = Instant.now();
+        // Once the leaderboard has ended keep resolving to its last window, which storage serves
+        if (leaderboard.getEndTime() != null && !at.isBefore(leaderboard.getEndTime())) {
+            at = leaderboard.getEndTime().minusMillis(1);
+        }
+        return requested.bucketAt(windowAnchor(leaderboard), leaderboard.getEndTime(), at);
+    }
+    
+    /**
+     * Window keys expire in Redis when their bucket ends, so an ended bucket, such as the last
+     * window of an ended leaderboard, can only be answered from storage.
+     */
+    private static boolean isEnded(WindowBucket bucket) {
+        return bucket != null && !Instant.now().isBefore(bucket.getEnd());
     }
     
     private void validateGetTopNRequest(String uuid, int limit) {
@@ -199,25 +715,377 @@ public class LeaderboardService {
             .orElseThrow(() -> new LeaderboardNotFoundException("Leaderboard not found with UUID: " + uuid));
     }
     
-    private List<RankedUser> tryGetTopNFromRedis(String leaderboardId, int limit) {
+    private LeaderboardSnapshot findArchivedSnapshot(Leaderboard leaderboard, String window) {
+        LeaderboardWindow requested = LeaderboardWindow.fromValue(window);
+        if (requested != null && requested.isBounded()) {
+            throw new InvalidRequestException("Archived leaderboards only serve the all-time ranking");
+        }
+        return snapshotRepository.findByLeaderboardId(leaderboard.getLeaderboardId())
+            .orElseThrow(() -> new LeaderboardNotFoundException(
+                "Snapshot not found for archived leaderboard: " + leaderboard.getUuid()));
+    }
+    
+    /**
+     * Version of what all-time reads of a leaderboard currently return, for conditional requests.
+     */
+    @Transactional(readOnly = true)
+    public String getLeaderboardVersion(String uuid) {
+        return getLeaderboardVersion(uuid, null);
+    }
+    
+    /**
+     * Version of what reads of a leaderboard, or of the current bucket of one of its windows,
+     * return. Active leaderboards use the epoch and counter bumped atomically by every Redis
+     * score write, plus the resolved bucket for windows; archived ones never change.
+     * Returns null when no version can be vouched for.
+     */
+    @Transactional(readOnly = true)
+    public String getLeaderboardVersion(String uuid, String window) {
+        if (uuid == null || uuid.trim().isEmpty()) {
+            throw new InvalidRequestException("UUID cannot be null or empty");
+        }
+        
+        Leaderboard leaderboard = findLeaderboardByUuid(uuid);
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            LeaderboardWindow requested = LeaderboardWindow.fromValue(window);
+            return requested == null || !requested.isBounded() ? ARCHIVED_VERSION : null;
+        }
+        
+        WindowBucket bucket = resolveWindowBucket(leaderboard, window);
+        if (isEnded(bucket)) {
+            // Served from storage, which keeps no version
+            return null;
+        }
+        try {
+            return redisRepository.getVersion(leaderboard.getLeaderboardId(), bucket);
+        } catch (Exception e) {
+            logger.warn("Failed to get leaderboard version from Redis", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Get a single user's rank in a leaderboard.
+     * Archived leaderboards are answered from their snapshot, active ones from Redis
+     * with persistent storage as the fallback.
+     */
+    @Transactional(readOnly = true)
+    public RankedUser getUserRank(String uuid, String userId) {
+        if (uuid == null || uuid.trim().isEmpty()) {
+            throw new InvalidRequestException("UUID cannot be null or empty");
+        }
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new InvalidRequestException("UserId cannot be null or empty");
+        }
+        
+        Leaderboard leaderboard = findLeaderboardByUuid(uuid);
+        String leaderboardId = leaderboard.getLeaderboardId();
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            return findArchivedSnapshot(leaderboard, null).getUserRank(userId)
+                .orElseThrow(() -> userNotFound(uuid, userId));
+        }
+        
+        if (redisRepository.isAvailable()) {
+            try {
+                Optional<RankedUser> rankedUser = redisRepository.getUserRank(leaderboardId, userId);
+                if (rankedUser.isPresent()) {
+                    return rankedUser.get();
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to get user rank from Redis, falling back to storage", e);
+            }
+        }
+        
+        Optional<RankedUser> materialized = findMaterializedRank(leaderboardId, userId);
+        if (materialized.isPresent()) {
+            return materialized.get();
+        }
+        
+        UserScore userScore = userScoreRepository.findByLeaderboardIdAndUserId(leaderboardId, userId)
+            .orElseThrow(() -> userNotFound(uuid, userId));
+        return RankedUser.builder()
+            .userId(userId)
+            .rank(calculateRankFromStorage(leaderboardId, userScore))
+            .score(userScore.getScore())
+            .timestamp(userScore.getTimestamp())
+            .build();
+    }
+    
+    /**
+     * Get the ranks of many users at once, e.g. the players of a lobby. Active leaderboards are
+     * answered with one pipelined Redis round trip. The fallback reads the materialized ranks of
+     * all users at once and ranks the rest from storage with one batched score lookup and an
+     * index range count per user. Every requested userId is in the result, empty if the user
+     * has no score.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Optional<RankedUser>> getUserRanks(String uuid, List<String> userIds) {
+        validateUserIdsRequest(uuid, userIds);
+        Leaderboard leaderboard = findLeaderboardByUuid(uuid);
+        String leaderboardId = leaderboard.getLeaderboardId();
+        List<String> distinctUserIds = userIds.stream().distinct().toList();
+        
+        Map<String, Optional<RankedUser>> ranks = new LinkedHashMap<>();
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            LeaderboardSnapshot snapshot = findArchivedSnapshot(leaderboard, null);
+            distinctUserIds.forEach(userId -> ranks.put(userId, snapshot.getUserRank(userId)));
+            return ranks;
+        }
+        
+        try {
+            Map<String, Optional<RankedUser>> fromRedis = redisRepository.getUserRanks(leaderboardId, distinctUserIds);
+            if (fromRedis != null) {
+                return fromRedis;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to get user ranks from Redis, falling back to storage", e);
+        }
+        
+        Map<String, RankedUser> materialized = findMaterializedRanks(leaderboardId, distinctUserIds);
+        List<String> unranked = distinctUserIds.stream()
+            .filter(userId -> !materialized.containsKey(userId))
+            .toList();
+        Map<String, UserScore> userScores = new HashMap<>();
+        if (!unranked.isEmpty()) {
+            userScoreRepository.findByLeaderboardIdAndUserIdIn(leaderboardId, unranked)
+                .forEach(userScore -> userScores.put(userScore.getUserId(), userScore));
+        }
+        for (String userId : distinctUserIds) {
+            RankedUser rankedUser = materialized.get(userId);
+            UserScore userScore = userScores.get(userId);
+            if (rankedUser == null && userScore != null) {
+                rankedUser = RankedUser.builder()
+                    .userId(userId)
+                    .rank(calculateRankFromStorage(leaderboardId, userScore))
+                    .score(userScore.getScore())
+                    .timestamp(userScore.getTimestamp())
+                    .build();
+            }
+            ranks.put(userId, Optional.ofNullable(rankedUser));
+        }
+        return ranks;
+    }
+    
+    /**
+     * Rank a subset of users (e.g. a user's friends) among themselves. Their scores are fetched
+     * in one Redis call, or one batched storage query as the fallback, and the small result
+     * is sorted in memory. Users without a score are left out.
+     */
+    @Transactional(readOnly = true)
+    public List<RankedUser> getSubsetRanking(String uuid, List<String> userIds) {
+        validateUserIdsRequest(uuid, userIds);
+        Leaderboard leaderboard = findLeaderboardByUuid(uuid);
+        String leaderboardId = leaderboard.getLeaderboardId();
+        List<String> distinctUserIds = userIds.stream().distinct().toList();
+        
+        List<RankedUser> scoredUsers = null;
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            LeaderboardSnapshot snapshot = findArchivedSnapshot(leaderboard, null);
+            scoredUsers = distinctUserIds.stream()
+                .map(snapshot::getUserRank)
+                .flatMap(Optional::stream)
+                .toList();
+        } else if (redisRepository.isAvailable()) {
+            try {
+                scoredUsers = redisRepository.getScores(leaderboardId, distinctUserIds);
+            } catch (Exception e) {
+                logger.warn("Failed to get subset scores from Redis, falling back to storage", e);
+            }
+        }
+        if (scoredUsers == null) {
+            scoredUsers = userScoreRepository.findByLeaderboardIdAndUserIdIn(leaderboardId, distinctUserIds).stream()
+                .map(userScore -> RankedUser.builder()
+                    .userId(userScore.getUserId())
+                    .score(userScore.getScore())
+                    .timestamp(userScore.getTimestamp())
+                    .build())
+                .toList();
+        }
+        
+        List<RankedUser> sorted = scoredUsers.stream()
+            .sorted(this::compareRankedUsers)
+            .toList();
+        List<RankedUser> rankedUsers = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            RankedUser user = sorted.get(i);
+            rankedUsers.add(RankedUser.builder()
+                .userId(user.getUserId())
+                .rank(i + 1)
+                .score(user.getScore())
+                .timestamp(user.getTimestamp())
+                .build());
+        }
+        return rankedUsers;
+    }
+    
+    private void validateUserIdsRequest(String uuid, List<String> userIds) {
+        if (uuid == null || uuid.trim().isEmpty()) {
+            throw new InvalidRequestException("UUID cannot be null or empty");
+        }
+        if (userIds == null || userIds.isEmpty()) {
+            throw new InvalidRequestException("UserIds cannot be null or empty");
+        }
+        if (userIds.size() > MAX_USER_IDS) {
+            throw new InvalidRequestException("Cannot request more than " + MAX_USER_IDS + " users at once");
+        }
+        if (userIds.stream().anyMatch(userId -> userId == null || userId.trim().isEmpty())) {
+            throw new InvalidRequestException("UserId cannot be null or empty");
+        }
+    }
+    
+    private int compareRankedUsers(RankedUser a, RankedUser b) {
+        int scoreCompare = Double.compare(b.getScore(), a.getScore());
+        if (scoreCompare != 0) {
+            return scoreCompare;
+        }
+        // For equal scores, earlier timestamp ranks higher
+        if (a.getTimestamp() != null && b.getTimestamp() != null) {
+            return a.getTimestamp().compareTo(b.getTimestamp());
+        }
+        return 0;
+    }
+    
+    /**
+     * Get the score histogram of a leaderboard, which answers distribution and
+     * percentile-of-score queries in O(buckets). Active leaderboards read the histogram
+     * maintained in Redis on every write; archived ones and the storage fallback count
+     * buckets in a single pass over the scores.
+     */
+    @Transactional(readOnly = true)
+    public ScoreHistogram getScoreDistribution(String uuid) {
+        if (uuid == null || uuid.trim().isEmpty()) {
+            throw new InvalidRequestException("UUID cannot be null or empty");
+        }
+        
+        Leaderboard leaderboard = findLeaderboardByUuid(uuid);
+        HistogramSpec spec = leaderboard.getHistogram();
+        if (spec == null) {
+            throw new InvalidRequestException("Leaderboard does not declare a score histogram");
+        }
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            return ScoreHistogram.fromScores(spec, findArchivedSnapshot(leaderboard, null).getScores());
+        }
+        
+        if (redisRepository.isAvailable()) {
+            try {
+                ScoreHistogram histogram = redisRepository.getScoreHistogram(leaderboard.getLeaderboardId(), spec);
+                if (histogram != null) {
+                    return histogram;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to get score histogram from Redis, falling back to storage", e);
+            }
+        }
+        
+        return userScoreRepository.findScoreHistogram(leaderboard.getLeaderboardId(), spec);
+    }
+    
+    /**
+     * Get the top N users of a pod's aggregate ranking: each user's score summed over every
+     * board of the pod that opted in with podAggregate. Redis maintains it incrementally on
+     * each write; the storage fallback sums the boards' stored scores.
+     */
+    @Transactional(readOnly = true)
+    public List<RankedUser> getPodTopN(String podId, int limit) {
+        if (podId == null || podId.trim().isEmpty()) {
+            throw new InvalidRequestException("PodId cannot be null or empty");
+        }
+        if (limit <= 0) {
+            throw new InvalidRequestException("Limit must be greater than 0");
+        }
+        
+        // An aggregate that missed a score change is behind storage until it has been rebuilt
+        if (redisRepository.isAvailable() && !redisRepository.isPodAggregateStale(podId)) {
+            try {
+                List<RankedUser> topN = redisRepository.getPodTopN(podId, limit);
+                if (!topN.isEmpty()) {
+                    return topN;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to retrieve pod aggregate from Redis, falling back to persistent storage", e);
+            }
+        }
+        
+        List<Map.Entry<String, Double>> totals = sumPodScoresFromStorage(podId).entrySet().stream()
+            .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(limit)
+            .toList();
+        List<RankedUser> rankedUsers = new ArrayList<>(totals.size());
+        for (int i = 0; i < totals.size(); i++) {
+            rankedUsers.add(RankedUser.builder()
+                .userId(totals.get(i).getKey())
+                .rank(i + 1)
+                .score(totals.get(i).getValue())
+                .build());
+        }
+        return rankedUsers;
+    }
+    
+    /**
+     * Get the number of users in a pod's aggregate ranking.
+     */
+    @Transactional(readOnly = true)
+    public long getPodTotalUsers(String podId) {
+        if (podId == null || podId.trim().isEmpty()) {
+            return 0L;
+        }
+        
+        if (redisRepository.isAvailable() && !redisRepository.isPodAggregateStale(podId)) {
+            try {
+                Long total = redisRepository.getPodTotalUsers(podId);
+                if (total != null && total > 0) {
+                    return total;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to get pod total users from Redis, falling back to storage", e);
+            }
+        }
+        
+        return sumPodScoresFromStorage(podId).size();
+    }
+    
+    private Map<String, Double> sumPodScoresFromStorage(String podId) {
+        List<String> leaderboardIds = leaderboardRepository.findByPodId(podId).stream()
+            .filter(leaderboard -> Boolean.TRUE.equals(leaderboard.getPodAggregate()))
+            .map(Leaderboard::getLeaderboardId)
+            .toList();
+        return userScoreRepository.sumScoresByUser(leaderboardIds);
+    }
+    
+    private UserNotFoundException userNotFound(String uuid, String userId) {
+        return new UserNotFoundException("User " + userId + " not found in leaderboard with UUID: " + uuid);
+    }
+    
+    private List<RankedUser> tryGetTopNFromRedis(String leaderboardId, WindowBucket bucket, int limit) {
         if (!redisRepository.isAvailable()) {
             return null;
         }
         
         try {
-            List<RankedUser> topN = redisRepository.getTopN(leaderboardId, limit);
+            List<RankedUser> topN = bucket == null
+                ? redisRepository.getTopN(leaderboardId, limit)
+                : redisRepository.getTopN(leaderboardId, bucket, limit);
             logger.debug("Retrieved top {} users from Redis for leaderboard {} - found {} users", 
                 limit, leaderboardId, topN.size());
-            return topN;
+            // An empty board is only a miss if Redis does not hold it at all, e.g. after a flush
+            return !topN.isEmpty() || isHeldInRedis(leaderboardId) ? topN : null;
         } catch (Exception e) {
             logger.warn("Failed to retrieve from Redis, falling back to persistent storage", e);
             return null;
         }
     }
     
-    private List<RankedUser> getTopNFromStorage(String leaderboardId, int limit) {
+    /**
+     * Whether Redis holds the leaderboard: its version is written with the first score and only
+     * disappears together with the board's data, so an empty set next to a version is an empty board.
+     */
+    private boolean isHeldInRedis(String leaderboardId) {
+        return redisRepository.getVersion(leaderboardId, null) != null;
+    }
+    
+    private List<RankedUser> getTopNFromStorage(String leaderboardId, WindowBucket bucket, int limit) {
         logger.debug("Retrieving top {} users from persistent storage for leaderboard {}", limit, leaderboardId);
-        List<UserScore> userScores = userScoreRepository.findByLeaderboardId(leaderboardId);
+        List<UserScore> userScores = filterToWindow(userScoreRepository.findByLeaderboardId(leaderboardId), bucket);
         
         if (userScores.isEmpty()) {
             logger.debug("No users found in leaderboard {}", leaderboardId);
@@ -233,6 +1101,19 @@ public class LeaderboardService {
         return rankedUsers;
     }
     
+    /**
+     * Storage keeps each user's latest submission, which belongs to a window exactly when
+     * its timestamp does, so a window can be rebuilt from storage by timestamp alone.
+     */
+    private List<UserScore> filterToWindow(List<UserScore> userScores, WindowBucket bucket) {
+        if (bucket == null) {
+            return userScores;
+        }
+        return userScores.stream()
+            .filter(userScore -> bucket.contains(userScore.getTimestamp()))
+            .toList();
+    }
+    
     private List<UserScore> sortAndLimitScores(List<UserScore> userScores, int limit) {
         return userScores.stream()
             .sorted(this::compareScoresForRanking)
@@ -290,7 +1171,16 @@ public class LeaderboardService {
     /**
      * Get total number of users in a leaderboard.
      */
+    @Transactional(readOnly = true)
     public long getTotalUsers(String uuid) {
+        return getTotalUsers(uuid, null);
+    }
+    
+    /**
+     * Get total number of users in one window of a leaderboard.
+     */
+    @Transactional(readOnly = true)
+    public long getTotalUsers(String uuid, String window) {
         if (uuid == null || uuid.trim().isEmpty()) {
             return 0L;
         }
@@ -301,14 +1191,20 @@ public class LeaderboardService {
         if (leaderboard == null) {
             return 0L;
         }
+        if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+            return findArchivedSnapshot(leaderboard, window).size();
+        }
         
         String leaderboardId = leaderboard.getLeaderboardId();
+        WindowBucket bucket = resolveWindowBucket(leaderboard, window);
         
-        // Try to get from Redis first
-        if (redisRepository.isAvailable()) {
+        // Try to get from Redis first, unless the window has already expired there
+        if (!isEnded(bucket) && redisRepository.isAvailable()) {
             try {
-                Long total = redisRepository.getTotalUsers(leaderboardId);
-                if (total != null && total > 0) {
+                Long total = bucket == null
+                    ? redisRepository.getTotalUsers(leaderboardId)
+                    : redisRepository.getTotalUsers(leaderboardId, bucket);
+                if (total != null && (total > 0 || isHeldInRedis(leaderboardId))) {
                     return total;
                 }
             } catch (Exception e) {
@@ -317,7 +1213,7 @@ public class LeaderboardService {
         }
         
         // Fallback to persistent storage
-        List<UserScore> userScores = userScoreRepository.findByLeaderboardId(leaderboardId);
+        List<UserScore> userScores = filterToWindow(userScoreRepository.findByLeaderboardId(leaderboardId), bucket);
         return userScores.size();
     }
     
@@ -331,32 +1227,65 @@ public class LeaderboardService {
             return;
         }
         
+        rebuildStalePodAggregates();
+        
         List<RetryQueueItem> items = retryQueueRepository.dequeue(100);
         if (items.isEmpty()) {
             return;
         }
         
         logger.info("Processing {} items from retry queue", items.size());
-        items.forEach(this::processRetryQueueItem);
+        items.stream()
+            .collect(Collectors.groupingBy(RetryQueueItem::getLeaderboardId, LinkedHashMap::new, Collectors.toList()))
+            .forEach(this::processRetryQueueBatch);
     }
     
-    private void processRetryQueueItem(RetryQueueItem item) {
+    /**
+     * Rebuild the pod aggregates that missed a score change from storage, so a failed aggregate
+     * update is repaired on the next retry cycle instead of drifting.
+     */
+    private void rebuildStalePodAggregates() {
+        Set<String> stalePodIds;
         try {
-            retryRedisUpdate(item);
-            retryQueueRepository.remove(item);
-            logger.info("Successfully retried Redis update: leaderboardId={}, userId={}", 
-                item.getLeaderboardId(), item.getUserId());
+            stalePodIds = redisRepository.getStalePodAggregates();
         } catch (Exception e) {
-            handleRetryFailure(item, e);
+            logger.warn("Failed to read stale pod aggregates, will retry later", e);
+            return;
+        }
+        for (String podId : stalePodIds) {
+            try {
+                if (redisRepository.rebuildPodAggregate(podId, () -> sumPodScoresFromStorage(podId))) {
+                    logger.info("Rebuilt pod aggregate {} from persistent storage", podId);
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to rebuild pod aggregate {}, will retry later", podId, e);
+            }
         }
     }
     
-    private void retryRedisUpdate(RetryQueueItem item) {
-        double compositeScore = JedisRedisRepository.calculateCompositeScore(
-            item.getScore(),
-            item.getTimestamp()
-        );
-        redisRepository.updateScore(item.getLeaderboardId(), item.getUserId(), compositeScore);
+    /**
+     * Replay all queued updates of one leaderboard in a single pipeline.
+     * If the batch fails every item goes through the regular per-item retry accounting.
+     */
+    private void processRetryQueueBatch(String leaderboardId, List<RetryQueueItem> batch) {
+        try {
+            Leaderboard leaderboard = leaderboardRepository.findByLeaderboardId(leaderboardId)
+                .orElseThrow(() -> new LeaderboardNotFoundException("Leaderboard not found with ID: " + leaderboardId));
+            if (leaderboard.getStatus() == LeaderboardStatus.ARCHIVED) {
+                // Replaying would recreate sorted sets the archival job has already dropped
+                logger.info("Dropping {} queued Redis updates for archived leaderboard {}", batch.size(), leaderboardId);
+                batch.forEach(retryQueueRepository::remove);
+                return;
+            }
+            List<ScoreWrite> writes = batch.stream()
+                .map(item -> buildScoreWrite(leaderboard, item.getUserId(), item.getScore(), item.getTimestamp()))
+                .toList();
+            redisRepository.writeScores(writes);
+            batch.forEach(retryQueueRepository::remove);
+            logger.info("Successfully retried {} Redis updates for leaderboardId={}", batch.size(), leaderboardId);
+        } catch (Exception e) {
+            batch.forEach(item -> handleRetryFailure(item, e));
+        }
     }
     
     private void handleRetryFailure(RetryQueueItem item, Exception e) {
@@ -371,5 +1300,67 @@ public class LeaderboardService {
                 item.getLeaderboardId(), item.getUserId());
         }
     }
+    
+    /**
+     * Active leaderboards whose end time has passed, for the archival job.
+     */
+    public List<Leaderboard> findLeaderboardsToArchive() {
+        return leaderboardRepository.findByStatusAndEndTimeBefore(LeaderboardStatus.ACTIVE, Instant.now());
+    }
+    
+    /**
+     * Freeze the final ranking into a snapshot, mark the leaderboard archived and drop its
+     * Redis keys. Every instance runs the archival job, so the leaderboard is first claimed
+     * with a conditional ACTIVE to ARCHIVING status change that only one of them wins; the
+     * others skip it. Claim, snapshot and archived status commit together, so a failure leaves
+     * the leaderboard active without a snapshot and the next run retries it. The Redis keys are
+     * only dropped once the archived status is visible to every instance.
+     * Returns whether this call archived the leaderboard.
+     */
+    @Transactional
+    public boolean archiveLeaderboard(Leaderboard leaderboard) {
+        String leaderboardId = leaderboard.getLeaderboardId();
+        if (!leaderboardRepository.updateStatus(leaderboardId, LeaderboardStatus.ACTIVE, LeaderboardStatus.ARCHIVING)) {
+            logger.debug("Leaderboard {} is no longer active, another instance archived it", leaderboardId);
+            return false;
+        }
+        
+        try {
+            // Streamed in rank order from a storage cursor into the snapshot columns
+            LeaderboardSnapshot.Collector ranking = new LeaderboardSnapshot.Collector();
+            userScoreRepository.forEachRanked(leaderboardId, ranking);
+            LeaderboardSnapshot snapshot = ranking.build();
+            snapshotRepository.save(leaderboardId, snapshot);
+            leaderboardRepository.updateStatus(leaderboardId, LeaderboardStatus.ARCHIVING, LeaderboardStatus.ARCHIVED);
+            leaderboard.setStatus(LeaderboardStatus.ARCHIVED);
+            logger.info("Archived leaderboard {} with {} users", leaderboardId, snapshot.size());
+        } catch (RuntimeException e) {
+            // Storage without transactions keeps the claim; release it so the next run retries
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                leaderboardRepository.updateStatus(leaderboardId, LeaderboardStatus.ARCHIVING, LeaderboardStatus.ACTIVE);
+            }
+            throw e;
+        }
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteRedisKeys(leaderboard);
+                }
+            });
+        } else {
+            deleteRedisKeys(leaderboard);
+        }
+        return true;
+    }
+    
+    private void deleteRedisKeys(Leaderboard leaderboard) {
+        String leaderboardId = leaderboard.getLeaderboardId();
+        try {
+            redisRepository.deleteLeaderboard(leaderboardId, lastWindowBuckets(leaderboard));
+        } catch (Exception e) {
+            logger.warn("Failed to delete Redis keys of archived leaderboard {}", leaderboardId, e);
+        }
+    }
 }
-
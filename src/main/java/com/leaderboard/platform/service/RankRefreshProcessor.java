@@ -0,0 +1,40 @@
+package com.leaderboard.platform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class RankRefreshProcessor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RankRefreshProcessor.class);
+    
+    private final LeaderboardService leaderboardService;
+    
+    // A claimed cycle keeps other instances out for one interval
+    @Value("${leaderboard.ranks.refresh-interval-ms:30000}")
+    private long refreshIntervalMillis;
+    
+    @Autowired
+    public RankRefreshProcessor(LeaderboardService leaderboardService) {
+        this.leaderboardService = leaderboardService;
+    }
+    
+    /**
+     * Rebuild the materialized ranks of boards that changed since the last completed cycle,
+     * every 30 seconds by default. Only one instance runs a cycle per interval.
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.ranks.refresh-interval-ms:30000}")
+    public void refreshMaterializedRanks() {
+        try {
+            leaderboardService.runRankRefreshCycle(Duration.ofMillis(refreshIntervalMillis));
+        } catch (Exception e) {
+            logger.error("Error refreshing materialized ranks", e);
+        }
+    }
+}
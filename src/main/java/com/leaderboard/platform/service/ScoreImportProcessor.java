@@ -0,0 +1,248 @@
+package com.leaderboard.platform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.leaderboard.platform.exception.InvalidRequestException;
+import com.leaderboard.platform.model.ImportCheckpoint;
+import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.UserScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seeds leaderboards from a CSV or NDJSON file when leaderboard.import.file is set, then exits.
+ * The file is read as a stream and written in chunks: every board's rows of a chunk are split into
+ * batches that are written in parallel, each copied into Postgres and loaded into Redis. After each
+ * chunk the rows done are recorded in a checkpoint next to the file, and running the import again
+ * after an interruption skips them. Writes replace scores, so repeating a partly written chunk is harmless.
+ */
+@Component
+public class ScoreImportProcessor implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ScoreImportProcessor.class);
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    
+    private final LeaderboardService leaderboardService;
+    private final ApplicationContext applicationContext;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${leaderboard.import.file:}")
+    private String importFile;
+    
+    // Leaderboard of rows without a uuid, e.g. when re-importing an export
+    @Value("${leaderboard.import.leaderboard-uuid:}")
+    private String defaultLeaderboardUuid;
+    
+    // Rows per checkpoint
+    @Value("${leaderboard.import.chunk-size:100000}")
+    private int chunkSize;
+    
+    // Rows per COPY and Redis pipeline
+    @Value("${leaderboard.import.batch-size:10000}")
+    private int batchSize;
+    
+    // Batches written at once; each holds a database connection while it runs
+    @Value("${leaderboard.import.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${leaderboard.import.exit-when-done:true}")
+    private boolean exitWhenDone;
+    
+    @Autowired
+    public ScoreImportProcessor(LeaderboardService leaderboardService, ApplicationContext applicationContext) {
+        this.leaderboardService = leaderboardService;
+        this.applicationContext = applicationContext;
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (importFile == null || importFile.trim().isEmpty()) {
+            return;
+        }
+        
+        boolean succeeded = false;
+        try {
+            importScores(Paths.get(importFile.trim()));
+            succeeded = true;
+        } catch (Exception e) {
+            logger.error("Bulk import of {} failed, run it again to resume from the last checkpoint", importFile, e);
+        }
+        
+        if (exitWhenDone) {
+            int exitCode = succeeded ? 0 : 1;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
+        }
+    }
+    
+    /**
+     * Import every row of the file after those recorded in its checkpoint, then rebuild the
+     * materialized ranks of the imported boards and remove the checkpoint.
+     * Returns the number of rows imported by this run.
+     */
+    long importScores(Path source) throws IOException {
+        Path checkpointPath = source.resolveSibling(source.getFileName() + CHECKPOINT_SUFFIX);
+        long sourceSize = Files.size(source);
+        Instant sourceModified = Files.getLastModifiedTime(source).toInstant();
+        ImportCheckpoint checkpoint = readCheckpoint(checkpointPath, sourceSize, sourceModified);
+        
+        long skipped = checkpoint.getRowsImported();
+        Set<String> leaderboardIds = new LinkedHashSet<>(checkpoint.getLeaderboardIds());
+        if (skipped > 0) {
+            logger.info("Resuming import of {} after {} rows", source, skipped);
+        }
+        
+        Map<String, Leaderboard> leaderboardsByUuid = new HashMap<>();
+        ExecutorService executor = newImportExecutor();
+        long imported = 0;
+        long started = System.nanoTime();
+        try (ScoreImportReader reader = ScoreImportReader.open(source, defaultLeaderboardUuid, objectMapper)) {
+            // Rows imported by an earlier run
+            long passed = 0;
+            while (passed < skipped && reader.next() != null) {
+                passed++;
+            }
+            
+            List<ScoreImportReader.Row> chunk = new ArrayList<>(chunkSize);
+            ScoreImportReader.Row row;
+            do {
+                row = reader.next();
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == chunkSize || (row == null && !chunk.isEmpty())) {
+                    // Rows without a timestamp get the file's, which a resumed run assigns the same way
+                    writeChunk(chunk, sourceModified, leaderboardsByUuid, executor);
+                    imported += chunk.size();
+                    chunk.clear();
+                    leaderboardsByUuid.values().forEach(leaderboard -> leaderboardIds.add(leaderboard.getLeaderboardId()));
+                    writeCheckpoint(checkpointPath, ImportCheckpoint.builder()
+                        .sourceSize(sourceSize)
+                        .sourceModified(sourceModified)
+                        .rowsImported(skipped + imported)
+                        .leaderboardIds(new ArrayList<>(leaderboardIds))
+                        .updatedAt(Instant.now())
+                        .build());
+                    logger.info("Imported {} rows of {} ({} rows/s)", skipped + imported, source,
+                        rowsPerSecond(imported, started));
+                }
+            } while (row != null);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        // Imported scores usually carry old timestamps, so the periodic refresh would miss these boards
+        leaderboardService.refreshMaterializedRanks(leaderboardIds);
+        Files.deleteIfExists(checkpointPath);
+        logger.info("Bulk import of {} finished: {} rows into {} leaderboards in {} ms ({} rows/s)", source,
+            imported, leaderboardIds.size(), (System.nanoTime() - started) / 1_000_000, rowsPerSecond(imported, started));
+        return imported;
+    }
+    
+    /**
+     * Write one chunk and wait for all of its batches. The last row of a user on a board wins, as
+     * it would had the rows been submitted one by one, so the batches never share a user and may
+     * run in any order.
+     */
+    private void writeChunk(List<ScoreImportReader.Row> chunk, Instant defaultTimestamp,
+            Map<String, Leaderboard> leaderboardsByUuid, ExecutorService executor) {
+        Map<String, Map<String, UserScore>> scoresByUuid = new LinkedHashMap<>();
+        for (ScoreImportReader.Row row : chunk) {
+            Leaderboard leaderboard = leaderboardsByUuid.computeIfAbsent(row.uuid, leaderboardService::findLeaderboardForImport);
+            scoresByUuid.computeIfAbsent(row.uuid, k -> new LinkedHashMap<>()).put(row.userId, UserScore.builder()
+                .userId(row.userId)
+                .leaderboardId(leaderboard.getLeaderboardId())
+                .score(row.score)
+                .timestamp(row.timestamp != null ? row.timestamp : defaultTimestamp)
+                .build());
+        }
+        
+        List<Future<?>> batches = new ArrayList<>();
+        for (Map.Entry<String, Map<String, UserScore>> entry : scoresByUuid.entrySet()) {
+            Leaderboard leaderboard = leaderboardsByUuid.get(entry.getKey());
+            List<UserScore> userScores = new ArrayList<>(entry.getValue().values());
+            for (int from = 0; from < userScores.size(); from += batchSize) {
+                List<UserScore> batch = userScores.subList(from, Math.min(from + batchSize, userScores.size()));
+                batches.add(executor.submit(() -> leaderboardService.importScores(leaderboard, batch)));
+            }
+        }
+        
+        try {
+            for (Future<?> batch : batches) {
+                batch.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to import a batch of scores: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Bulk import was interrupted", e);
+        }
+    }
+    
+    private ImportCheckpoint readCheckpoint(Path checkpointPath, long sourceSize, Instant sourceModified) throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return ImportCheckpoint.builder()
+                .sourceSize(sourceSize)
+                .sourceModified(sourceModified)
+                .leaderboardIds(List.of())
+                .build();
+        }
+        
+        ImportCheckpoint checkpoint = objectMapper.readValue(checkpointPath.toFile(), ImportCheckpoint.class);
+        if (checkpoint.getSourceSize() != sourceSize || !sourceModified.equals(checkpoint.getSourceModified())) {
+            throw new InvalidRequestException("Import file changed since checkpoint " + checkpointPath
+                + " was written; delete the checkpoint to import the file from the start");
+        }
+        if (checkpoint.getLeaderboardIds() == null) {
+            checkpoint.setLeaderboardIds(List.of());
+        }
+        return checkpoint;
+    }
+    
+    private void writeCheckpoint(Path checkpointPath, ImportCheckpoint checkpoint) throws IOException {
+        Path tempPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        objectMapper.writeValue(tempPath.toFile(), checkpoint);
+        Files.move(tempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private ExecutorService newImportExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "score-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    private static long rowsPerSecond(long rows, long startedNanos) {
+        double elapsedSeconds = Math.max(1, System.nanoTime() - startedNanos) / 1_000_000_000.0;
+        return Math.round(rows / elapsedSeconds);
+    }
+}
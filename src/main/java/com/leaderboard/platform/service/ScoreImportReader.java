@@ -0,0 +1,226 @@
+package com.leaderboard.platform.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.leaderboard.platform.exception.InvalidRequestException;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the rows of a bulk import file one at a time, so files of any size are read with constant
+ * memory. CSV files (".csv") need a header row; any other file is read as NDJSON. Rows hold uuid,
+ * userId, score and an optional ISO-8601 timestamp; other columns or fields, such as the rank of
+ * an export, are ignored, and uuid may be left out when a default leaderboard is given.
+ */
+final class ScoreImportReader implements Closeable {
+    
+    static final class Row {
+        final String uuid;
+        final String userId;
+        final double score;
+        final Instant timestamp;
+        
+        Row(String uuid, String userId, double score, Instant timestamp) {
+            this.uuid = uuid;
+            this.userId = userId;
+            this.score = score;
+            this.timestamp = timestamp;
+        }
+    }
+    
+    private final BufferedReader reader;
+    private final String defaultUuid;
+    // Set for NDJSON input
+    private final MappingIterator<JsonNode> jsonRows;
+    // Column positions by name, set for CSV input
+    private final Map<String, Integer> columns;
+    private long rowNumber;
+    
+    private ScoreImportReader(BufferedReader reader, String defaultUuid, ObjectMapper objectMapper, boolean csv)
+            throws IOException {
+        this.reader = reader;
+        this.defaultUuid = defaultUuid != null && !defaultUuid.trim().isEmpty() ? defaultUuid.trim() : null;
+        this.jsonRows = csv ? null : objectMapper.readerFor(JsonNode.class).readValues(reader);
+        this.columns = csv ? readHeader() : null;
+    }
+    
+    static ScoreImportReader open(Path file, String defaultUuid, ObjectMapper objectMapper) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        try {
+            return new ScoreImportReader(reader, defaultUuid, objectMapper, csv);
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * The next row, or null at the end of the input.
+     */
+    Row next() throws IOException {
+        return columns != null ? nextCsvRow() : nextJsonRow();
+    }
+    
+    private Row nextJsonRow() throws IOException {
+        if (!jsonRows.hasNextValue()) {
+            return null;
+        }
+        JsonNode node = jsonRows.nextValue();
+        rowNumber++;
+        
+        JsonNode timestamp = node.get("timestamp");
+        Instant parsedTimestamp = null;
+        if (timestamp != null && timestamp.isNumber()) {
+            parsedTimestamp = Instant.ofEpochMilli(timestamp.asLong());
+        } else if (timestamp != null && !timestamp.isNull()) {
+            parsedTimestamp = parseTimestamp(timestamp.asText());
+        }
+        JsonNode score = node.get("score");
+        return row(text(node.get("uuid")), text(node.get("userId")),
+            score != null && score.isNumber() ? score.asDouble() : parseScore(text(score)), parsedTimestamp);
+    }
+    
+    private static String text(JsonNode node) {
+        return node != null && !node.isNull() ? node.asText() : null;
+    }
+    
+    private Map<String, Integer> readHeader() throws IOException {
+        List<String> header = readCsvRecord();
+        if (header == null) {
+            throw new InvalidRequestException("Import file is empty");
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.putIfAbsent(header.get(i).trim(), i);
+        }
+        if (!positions.containsKey("userId") || !positions.containsKey("score")) {
+            throw new InvalidRequestException("Import header must name the userId and score columns");
+        }
+        if (!positions.containsKey("uuid") && defaultUuid == null) {
+            throw new InvalidRequestException("Import header must name a uuid column unless a leaderboard UUID is given");
+        }
+        return positions;
+    }
+    
+    private Row nextCsvRow() throws IOException {
+        List<String> record;
+        do {
+            record = readCsvRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isBlank());
+        rowNumber++;
+        
+        String timestamp = column(record, "timestamp");
+        return row(column(record, "uuid"), column(record, "userId"), parseScore(column(record, "score")),
+            timestamp != null && !timestamp.isBlank() ? parseTimestamp(timestamp.trim()) : null);
+    }
+    
+    private String column(List<String> record, String name) {
+        Integer position = columns.get(name);
+        return position != null && position < record.size() ? record.get(position) : null;
+    }
+    
+    /**
+     * Read one RFC 4180 record; quoted fields may hold delimiters, doubled quotes and line breaks.
+     * Returns null at the end of the input.
+     */
+    private List<String> readCsvRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw invalid("unterminated quoted field");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+    
+    private Row row(String uuid, String userId, double score, Instant timestamp) {
+        String leaderboardUuid = uuid != null && !uuid.trim().isEmpty() ? uuid.trim() : defaultUuid;
+        if (leaderboardUuid == null) {
+            throw invalid("uuid is missing");
+        }
+        if (userId == null || userId.trim().isEmpty()) {
+            throw invalid("userId is missing");
+        }
+        return new Row(leaderboardUuid, userId, score, timestamp);
+    }
+    
+    private double parseScore(String value) {
+        if (value == null || value.isBlank()) {
+            throw invalid("score is missing");
+        }
+        try {
+            double score = Double.parseDouble(value.trim());
+            if (Double.isFinite(score)) {
+                return score;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw invalid("score is not a finite number: " + value);
+    }
+    
+    private Instant parseTimestamp(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw invalid("timestamp is not an ISO-8601 instant: " + value);
+        }
+    }
+    
+    private InvalidRequestException invalid(String problem) {
+        // The header is not counted, rows are numbered from 1
+        return new InvalidRequestException("Import row " + Math.max(rowNumber, 1) + ": " + problem);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (jsonRows != null) {
+            jsonRows.close();
+        }
+        reader.close();
+    }
+}
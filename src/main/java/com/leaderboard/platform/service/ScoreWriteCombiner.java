@@ -0,0 +1,162 @@
+package com.leaderboard.platform.service;
+
+import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.UserScore;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combines concurrent score writes to the same leaderboard into one batch. The first write of a
+ * batch waits up to maxDelayMillis for others to join and then writes the batch on its own thread;
+ * a batch that reaches maxBatchSize users is written at once. Repeated writes of a user within a
+ * batch collapse into the last one, as if they had been applied in order, and every caller gets
+ * the result written for its user.
+ */
+class ScoreWriteCombiner {
+    
+    interface BatchWriter {
+        /**
+         * Write the scores of one board, each user at most once, and return them with their
+         * ranks in the same order.
+         */
+        List<UserScore> write(Leaderboard leaderboard, List<UserScore> userScores);
+    }
+    
+    private final long maxDelayNanos;
+    private final int maxBatchSize;
+    private final BatchWriter batchWriter;
+    // Batch still accepting writes, per leaderboardId
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+    
+    ScoreWriteCombiner(long maxDelayMillis, int maxBatchSize, BatchWriter batchWriter) {
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchWriter = batchWriter;
+    }
+    
+    /**
+     * Write a score as part of the leaderboard's current batch and wait for the batch.
+     * Failures of the batch are rethrown to every caller in it.
+     */
+    UserScore write(Leaderboard leaderboard, UserScore userScore) {
+        String leaderboardId = leaderboard.getLeaderboardId();
+        CompletableFuture<UserScore> result = new CompletableFuture<>();
+        Batch batch;
+        boolean leader;
+        while (true) {
+            batch = openBatches.get(leaderboardId);
+            leader = batch == null;
+            if (leader) {
+                batch = new Batch(leaderboardId, leaderboard);
+                if (openBatches.putIfAbsent(leaderboardId, batch) != null) {
+                    continue;
+                }
+            }
+            if (batch.add(userScore, result)) {
+                break;
+            }
+        }
+        
+        if (leader) {
+            batch.awaitFull(System.nanoTime() + maxDelayNanos);
+            flush(batch);
+        }
+        
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    private void flush(Batch batch) {
+        List<Pending> pending = batch.close();
+        try {
+            List<UserScore> userScores = new ArrayList<>(pending.size());
+            pending.forEach(write -> userScores.add(write.userScore));
+            List<UserScore> written = batchWriter.write(batch.leaderboard, userScores);
+            for (int i = 0; i < pending.size(); i++) {
+                UserScore userScore = written.get(i);
+                pending.get(i).results.forEach(result -> result.complete(userScore));
+            }
+        } catch (RuntimeException e) {
+            pending.forEach(write -> write.results.forEach(result -> result.completeExceptionally(e)));
+        } finally {
+            // Nobody may be left waiting, whatever went wrong
+            for (Pending write : pending) {
+                for (CompletableFuture<UserScore> result : write.results) {
+                    if (!result.isDone()) {
+                        result.completeExceptionally(new IllegalStateException("Combined score write did not complete"));
+                    }
+                }
+            }
+        }
+    }
+    
+    private static final class Pending {
+        private UserScore userScore;
+        private final List<CompletableFuture<UserScore>> results = new ArrayList<>(1);
+    }
+    
+    private final class Batch {
+        private final String leaderboardId;
+        private final Leaderboard leaderboard;
+        private final Map<String, Pending> pendingByUserId = new LinkedHashMap<>();
+        private boolean closed;
+        
+        private Batch(String leaderboardId, Leaderboard leaderboard) {
+            this.leaderboardId = leaderboardId;
+            this.leaderboard = leaderboard;
+        }
+        
+        /**
+         * Add a write unless the batch is already closed. Closes the batch when it is full,
+         * so later writes start the next one.
+         */
+        private synchronized boolean add(UserScore userScore, CompletableFuture<UserScore> result) {
+            if (closed) {
+                return false;
+            }
+            Pending pending = pendingByUserId.computeIfAbsent(userScore.getUserId(), k -> new Pending());
+            pending.userScore = userScore;
+            pending.results.add(result);
+            if (pendingByUserId.size() >= maxBatchSize) {
+                closeLocked();
+                notifyAll();
+            }
+            return true;
+        }
+        
+        private synchronized void awaitFull(long deadlineNanos) {
+            long remaining;
+            while (!closed && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        
+        private synchronized List<Pending> close() {
+            closeLocked();
+            return new ArrayList<>(pendingByUserId.values());
+        }
+        
+        private void closeLocked() {
+            closed = true;
+            openBatches.remove(leaderboardId, this);
+        }
+    }
+}
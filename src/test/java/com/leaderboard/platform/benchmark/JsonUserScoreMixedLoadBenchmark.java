@@ -0,0 +1,102 @@
+package com.leaderboard.platform.benchmark;
+
+import com.leaderboard.platform.model.UserScore;
+import com.leaderboard.platform.repository.impl.JsonUserScoreRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs reader and writer threads against one board of the JSON user score store and reports the
+ * throughput of each side. Readers fetch the whole board and one user, as the storage fallback of
+ * the rank endpoints does; writers save single scores. No external services are needed.
+ * <pre>
+ * mvn test -Dtest=JsonUserScoreMixedLoadBenchmark -Dbenchmark=true \
+ *     -Dbenchmark.users=10000 -Dbenchmark.readers=8 -Dbenchmark.writers=2 -Dbenchmark.seconds=10
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JsonUserScoreMixedLoadBenchmark {
+    
+    private static final String LEADERBOARD_ID = "mixed-load-benchmark";
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void measureMixedReadWriteThroughput() throws InterruptedException {
+        int users = Integer.getInteger("benchmark.users", 10_000);
+        int readers = Integer.getInteger("benchmark.readers", 8);
+        int writers = Integer.getInteger("benchmark.writers", 2);
+        int seconds = Integer.getInteger("benchmark.seconds", 10);
+        
+        JsonUserScoreRepository repository = new JsonUserScoreRepository(tempDir.toString());
+        List<UserScore> initial = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            initial.add(userScore("user" + i, ThreadLocalRandom.current().nextDouble(1_000_000)));
+        }
+        repository.saveAll(initial);
+        
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder readNanos = new LongAdder();
+        LongAdder writes = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    long start = System.nanoTime();
+                    int size = repository.findByLeaderboardId(LEADERBOARD_ID).size();
+                    repository.findByLeaderboardIdAndUserId(LEADERBOARD_ID, "user" + random.nextInt(size));
+                    readNanos.add(System.nanoTime() - start);
+                    reads.increment();
+                }
+            }, "benchmark-reader-" + i));
+        }
+        for (int i = 0; i < writers; i++) {
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    repository.save(userScore("user" + random.nextInt(users), random.nextDouble(1_000_000)));
+                    writes.increment();
+                }
+            }, "benchmark-writer-" + i));
+        }
+        
+        threads.forEach(Thread::start);
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        System.out.printf("Board with %,d users, %d readers, %d writers, %ds%n", users, readers, writers, seconds);
+        System.out.printf("  reads:  %,.0f/s (%.1f us average)%n",
+            reads.doubleValue() / seconds, readNanos.doubleValue() / Math.max(1, reads.sum()) / 1000);
+        System.out.printf("  writes: %,.0f/s%n", writes.doubleValue() / seconds);
+        
+        assertTrue(reads.sum() > 0, "Readers should make progress while writers run");
+        assertTrue(writes.sum() > 0, "Writers should make progress while readers run");
+        assertEquals(users, repository.findByLeaderboardId(LEADERBOARD_ID).size());
+    }
+    
+    private UserScore userScore(String userId, double score) {
+        return UserScore.builder()
+            .leaderboardId(LEADERBOARD_ID)
+            .userId(userId)
+            .score(score)
+            .timestamp(Instant.now())
+            .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.leaderboard.platform.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import redis.clients.jedis.AbstractPipeline;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPooled;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures Redis memory per sorted set entry with raw UUID members versus
+ * dictionary-encoded integer members, plus the one-off cost of the dictionary itself.
+ * <p>
+ * Needs a running Redis (4.0+) and is skipped unless benchmarks are requested:
+ * <pre>
+ * mvn test -Dtest=MemberDictionaryMemoryBenchmark -Dbenchmark=true \
+ *     -Dbenchmark.redis=localhost:6379 -Dbenchmark.entries=1000000
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MemberDictionaryMemoryBenchmark {
+    
+    private static final String RAW_KEY = "benchmark:{member-dictionary}:raw";
+    private static final String ENCODED_KEY = "benchmark:{member-dictionary}:encoded";
+    private static final String IDS_KEY = "benchmark:{member-dictionary}:ids";
+    private static final String USER_IDS_KEY = "benchmark:{member-dictionary}:user-ids";
+    private static final int CHUNK_SIZE = 10_000;
+    
+    @Test
+    void measureMemoryPerMillionEntries() {
+        int entries = Integer.getInteger("benchmark.entries", 1_000_000);
+        HostAndPort redis = HostAndPort.from(System.getProperty("benchmark.redis", "localhost:6379"));
+        
+        try (JedisPooled jedis = new JedisPooled(redis.getHost(), redis.getPort())) {
+            jedis.del(RAW_KEY, ENCODED_KEY, IDS_KEY, USER_IDS_KEY);
+            try {
+                load(jedis, entries);
+                
+                long raw = jedis.memoryUsage(RAW_KEY, 0);
+                long encoded = jedis.memoryUsage(ENCODED_KEY, 0);
+                long dictionary = jedis.memoryUsage(IDS_KEY, 0) + jedis.memoryUsage(USER_IDS_KEY, 0);
+                double perMillion = 1_000_000.0 / entries;
+                
+                System.out.printf("Sorted set with %,d entries%n", entries);
+                System.out.printf("  raw UUID members:     %,d bytes (%.1f bytes/entry)%n", raw, (double) raw / entries);
+                System.out.printf("  encoded members:      %,d bytes (%.1f bytes/entry)%n", encoded, (double) encoded / entries);
+                System.out.printf("  saved per board per 1M entries: %,.0f bytes%n", (raw - encoded) * perMillion);
+                System.out.printf("  dictionary per 1M users (paid once): %,.0f bytes%n", dictionary * perMillion);
+                System.out.printf("  boards per user needed to break even: %.2f%n", (double) dictionary / (raw - encoded));
+                
+                assertTrue(encoded < raw, "Encoded members should use less memory than raw UUIDs");
+            } finally {
+                jedis.del(RAW_KEY, ENCODED_KEY, IDS_KEY, USER_IDS_KEY);
+            }
+        }
+    }
+    
+    private void load(JedisPooled jedis, int entries) {
+        for (int start = 0; start < entries; start += CHUNK_SIZE) {
+            try (AbstractPipeline pipeline = jedis.pipelined()) {
+                for (int i = start; i < Math.min(start + CHUNK_SIZE, entries); i++) {
+                    String userId = UUID.randomUUID().toString();
+                    String memberId = Integer.toString(i + 1);
+                    double score = Math.random() * 1_000_000;
+                    pipeline.zadd(RAW_KEY, score, userId);
+                    pipeline.zadd(ENCODED_KEY, score, memberId);
+                    pipeline.hset(IDS_KEY, userId, memberId);
+                    pipeline.hset(USER_IDS_KEY, memberId, userId);
+                }
+                pipeline.sync();
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.leaderboard.platform.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.leaderboard.platform.controller.TopNJsonWriter;
+import com.leaderboard.platform.dto.TopNResponse;
+import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.repository.impl.JedisRedisRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import redis.clients.jedis.resps.Tuple;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares bytes allocated per top N response by the DTO path (raw reply -> Tuple -> RankedUser
+ * -> TopNResponse -> Jackson) and the streaming path (raw reply -> TopNJsonWriter). Both start
+ * from the same simulated RESP2 ZREVRANGE WITHSCORES reply, so no Redis is needed.
+ * <pre>
+ * mvn test -Dtest=TopNSerializationAllocationBenchmark -Dbenchmark=true -Dbenchmark.rows=10000
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TopNSerializationAllocationBenchmark {
+    
+    private static final double SCORE_MULTIPLIER = 10_000_000_000_000_000d;
+    private static final long MAX_TIMESTAMP = 9999999999999L;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 50;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final OutputStream discard = OutputStream.nullOutputStream();
+    
+    @Test
+    void measureAllocationsPerResponse() throws IOException {
+        int rows = Integer.getInteger("benchmark.rows", 10_000);
+        List<byte[]> reply = simulatedReply(rows);
+        
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            writeThroughDtos(reply);
+            writeStreaming(reply);
+        }
+        
+        long dtoBytes = allocatedBytes(() -> writeThroughDtos(reply)) / MEASURED_ITERATIONS;
+        long streamingBytes = allocatedBytes(() -> writeStreaming(reply)) / MEASURED_ITERATIONS;
+        
+        System.out.printf("Top N response with %,d rows%n", rows);
+        System.out.printf("  DTO path:       %,d bytes allocated (%.0f bytes/row)%n", dtoBytes, (double) dtoBytes / rows);
+        System.out.printf("  streaming path: %,d bytes allocated (%.0f bytes/row)%n", streamingBytes, (double) streamingBytes / rows);
+        System.out.printf("  reduction: %.1fx%n", (double) dtoBytes / streamingBytes);
+        
+        assertTrue(streamingBytes < dtoBytes, "Streaming should allocate less than the DTO path");
+    }
+    
+    private void writeThroughDtos(List<byte[]> reply) throws IOException {
+        List<Tuple> tuples = new ArrayList<>(reply.size() / 2);
+        for (int i = 0; i < reply.size(); i += 2) {
+            tuples.add(new Tuple(reply.get(i), Double.valueOf(new String(reply.get(i + 1), StandardCharsets.US_ASCII))));
+        }
+        List<RankedUser> users = new ArrayList<>(tuples.size());
+        for (int i = 0; i < tuples.size(); i++) {
+            double compositeScore = tuples.get(i).getScore();
+            users.add(RankedUser.builder()
+                .userId(tuples.get(i).getElement())
+                .rank(i + 1)
+                .score(Math.floor(compositeScore / SCORE_MULTIPLIER))
+                .timestamp(Instant.ofEpochMilli(MAX_TIMESTAMP - (long) (compositeScore % SCORE_MULTIPLIER)))
+                .build());
+        }
+        TopNResponse response = TopNResponse.builder()
+            .uuid("benchmark")
+            .users(users)
+            .totalUsers((long) users.size())
+            .retrievedAt(Instant.now())
+            .build();
+        objectMapper.writeValue(discard, response);
+    }
+    
+    private void writeStreaming(List<byte[]> reply) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(discard)) {
+            TopNJsonWriter writer = new TopNJsonWriter(generator);
+            writer.writeStart("benchmark", null);
+            for (int i = 0, rank = 1; i < reply.size(); i += 2, rank++) {
+                double compositeScore = Double.parseDouble(new String(reply.get(i + 1), StandardCharsets.US_ASCII));
+                writer.accept(reply.get(i), rank, Math.floor(compositeScore / SCORE_MULTIPLIER),
+                    MAX_TIMESTAMP - (long) (compositeScore % SCORE_MULTIPLIER));
+            }
+            writer.writeEnd(reply.size() / 2, Instant.now());
+        }
+    }
+    
+    private long allocatedBytes(IoAction action) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            action.run();
+        }
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+    
+    private static List<byte[]> simulatedReply(int rows) {
+        List<byte[]> reply = new ArrayList<>(rows * 2);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < rows; i++) {
+            double compositeScore = JedisRedisRepository.calculateCompositeScore(1_000_000.0 - i, Instant.ofEpochMilli(now - i));
+            reply.add(UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+            reply.add(Double.toString(compositeScore).getBytes(StandardCharsets.US_ASCII));
+        }
+        return reply;
+    }
+    
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+}
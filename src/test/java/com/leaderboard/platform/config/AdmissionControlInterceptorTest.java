@@ -0,0 +1,94 @@
+package com.leaderboard.platform.config;
+
+import com.leaderboard.platform.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlInterceptorTest {
+    
+    private AimdConcurrencyLimiter readLimiter;
+    private AimdConcurrencyLimiter writeLimiter;
+    private AdmissionControlInterceptor interceptor;
+    
+    @BeforeEach
+    void setUp() {
+        readLimiter = new AimdConcurrencyLimiter("read", 2, 1, 10, 100, 0.5);
+        writeLimiter = new AimdConcurrencyLimiter("write", 1, 1, 10, 100, 0.5);
+        interceptor = new AdmissionControlInterceptor(readLimiter, writeLimiter, 3);
+    }
+    
+    @Test
+    void testPreHandle_RejectsWritesAtTheirLimitWhileReadsAreAdmitted() {
+        // Arrange
+        MockHttpServletRequest firstWrite = new MockHttpServletRequest("PUT", "/api/v1/leaderboards/board-1/users/user1");
+        MockHttpServletRequest secondWrite = new MockHttpServletRequest("PUT", "/api/v1/leaderboards/board-1/users/user2");
+        MockHttpServletRequest rankLookup = new MockHttpServletRequest("POST", "/api/v1/leaderboards/board-1/ranks");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        // Act
+        assertTrue(interceptor.preHandle(firstWrite, response, null));
+        ServiceOverloadedException rejected = assertThrows(ServiceOverloadedException.class,
+            () -> interceptor.preHandle(secondWrite, response, null));
+        boolean readAdmitted = interceptor.preHandle(rankLookup, response, null);
+        interceptor.afterCompletion(firstWrite, response, null, null);
+        
+        // Assert
+        assertEquals(3, rejected.getRetryAfterSeconds());
+        assertEquals("SERVICE_OVERLOADED", rejected.getErrorCode());
+        assertTrue(readAdmitted);
+        assertEquals(1, readLimiter.getInFlight());
+        assertEquals(0, writeLimiter.getInFlight());
+        assertTrue(interceptor.preHandle(secondWrite, response, null));
+    }
+    
+    @Test
+    void testStreamedResponse_HoldsItsSlotUntilAsyncCompletion() {
+        // Arrange
+        MockHttpServletRequest export = new MockHttpServletRequest("GET", "/api/v1/leaderboards/board-1/export");
+        export.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        // Act
+        assertTrue(interceptor.preHandle(export, response, null));
+        export.startAsync();
+        interceptor.afterConcurrentHandlingStarted(export, response, null);
+        int inFlightWhileStreaming = readLimiter.getInFlight();
+        ((MockAsyncContext) export.getAsyncContext()).complete();
+        interceptor.afterCompletion(export, response, null, null);
+        
+        // Assert - released exactly once, after the stream finished
+        assertEquals(1, inFlightWhileStreaming);
+        assertEquals(0, readLimiter.getInFlight());
+    }
+    
+    @Test
+    void testRelease_SlowResponsesLowerTheLimitAndFastOnesRaiseItAgain() {
+        // Arrange
+        AimdConcurrencyLimiter limiter = new AimdConcurrencyLimiter("read", 8, 1, 10, 100, 0.5);
+        
+        // Act
+        assertTrue(limiter.tryAcquire());
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(500), false);
+        int afterSlowResponse = limiter.getLimit();
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        for (int i = 0; i < 40; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+            assertTrue(limiter.tryAcquire());
+        }
+        
+        // Assert
+        assertEquals(4, afterSlowResponse);
+        assertTrue(limiter.getLimit() > afterSlowResponse);
+        assertTrue(limiter.getLimit() <= 10);
+    }
+}
@@ -0,0 +1,100 @@
+package com.leaderboard.platform.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+    
+    private DataSource replica;
+    private ResultSet lagResult;
+    private ReplicaRoutingDataSource routingDataSource;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        replica = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        lagResult = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(lagResult);
+        when(lagResult.next()).thenReturn(true);
+        routingDataSource = new ReplicaRoutingDataSource(mock(DataSource.class), replica, 1000, 500);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+    
+    @Test
+    void testReadOnlyTransactionsUseReplicaOnlyWhileLagIsWithinBound() throws SQLException {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        
+        when(lagResult.getDouble(1)).thenReturn(200.0);
+        routingDataSource.checkReplicationLag();
+        assertEquals(ReplicaRoutingDataSource.Target.REPLICA, routingDataSource.determineCurrentLookupKey());
+        
+        when(lagResult.getDouble(1)).thenReturn(5000.0);
+        routingDataSource.checkReplicationLag();
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+    
+    @Test
+    void testReplicaWithoutReplayedTransactionCountsAsStale() throws SQLException {
+        // Arrange - pg_last_xact_replay_timestamp() is NULL until the first replay
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(lagResult.getDouble(1)).thenReturn(0.0);
+        when(lagResult.wasNull()).thenReturn(true);
+        
+        // Act
+        routingDataSource.checkReplicationLag();
+        
+        // Assert
+        assertFalse(routingDataSource.isReplicaFresh());
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+    
+    @Test
+    void testWithoutReplicaEverythingUsesPrimary() {
+        // Arrange
+        ReplicaRoutingDataSource primaryOnly = new ReplicaRoutingDataSource(mock(DataSource.class), null, 1000, 500);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        
+        // Act & Assert
+        assertFalse(primaryOnly.hasReplica());
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, primaryOnly.determineCurrentLookupKey());
+    }
+    
+    @Test
+    void testWritesAndUnreachableReplicaUsePrimary() throws SQLException {
+        // Arrange
+        when(lagResult.getDouble(1)).thenReturn(0.0);
+        routingDataSource.checkReplicationLag();
+        
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routingDataSource.determineCurrentLookupKey());
+        
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routingDataSource.checkReplicationLag();
+        assertFalse(routingDataSource.isReplicaFresh());
+        assertEquals(ReplicaRoutingDataSource.Target.PRIMARY, routingDataSource.determineCurrentLookupKey());
+    }
+}
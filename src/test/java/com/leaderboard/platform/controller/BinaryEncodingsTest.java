@@ -0,0 +1,25 @@
+package com.leaderboard.platform.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryEncodingsTest {
+    
+    @Test
+    void testNegotiate_JsonStaysDefault() {
+        assertNull(BinaryEncodings.negotiate(null));
+        assertNull(BinaryEncodings.negotiate("*/*"));
+        assertNull(BinaryEncodings.negotiate("application/json"));
+        assertNull(BinaryEncodings.negotiate("application/json, application/cbor"));
+        assertNull(BinaryEncodings.negotiate("not a media type"));
+    }
+    
+    @Test
+    void testNegotiate_BinaryWhenPreferred() {
+        assertEquals(MediaType.APPLICATION_CBOR, BinaryEncodings.negotiate("application/cbor"));
+        assertEquals(MediaType.APPLICATION_CBOR, BinaryEncodings.negotiate("application/json;q=0.5, application/cbor"));
+        assertEquals(BinaryEncodings.APPLICATION_SMILE, BinaryEncodings.negotiate("application/x-jackson-smile, */*"));
+    }
+}
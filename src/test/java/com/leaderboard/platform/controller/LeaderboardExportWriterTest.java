@@ -0,0 +1,64 @@
+package com.leaderboard.platform.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.leaderboard.platform.model.RankedUser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardExportWriterTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    
+    @Test
+    void testNdjsonLinesMatchRankedUserJson() throws Exception {
+        // Arrange
+        Instant first = Instant.parse("2024-01-15T10:30:00.123Z");
+        Instant second = Instant.parse("2024-02-29T23:59:59.999Z");
+        RankedUser firstUser = RankedUser.builder().userId("user-\u00e9").rank(1).score(2500.5).timestamp(first).build();
+        RankedUser secondUser = RankedUser.builder().userId("user-\"2\"").rank(2).score(2300.0).timestamp(second).build();
+        
+        // Act
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (LeaderboardExportWriter writer = LeaderboardExportWriter.create(
+                LeaderboardExportWriter.Format.NDJSON, output, objectMapper.getFactory())) {
+            writer.writeStart();
+            writer.accept("user-\u00e9".getBytes(StandardCharsets.UTF_8), 1, 2500.5, first.toEpochMilli());
+            writer.accept("user-\"2\"".getBytes(StandardCharsets.UTF_8), 2, 2300.0, second.toEpochMilli());
+        }
+        
+        // Assert
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(firstUser)), objectMapper.readTree(lines[0]));
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(secondUser)), objectMapper.readTree(lines[1]));
+        assertEquals("", lines[2]);
+    }
+    
+    @Test
+    void testCsvQuotesUserIdsThatNeedIt() throws Exception {
+        // Arrange
+        long timestamp = Instant.parse("2024-01-15T10:30:00Z").toEpochMilli();
+        
+        // Act
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (LeaderboardExportWriter writer = LeaderboardExportWriter.create(
+                LeaderboardExportWriter.Format.CSV, output, objectMapper.getFactory())) {
+            writer.writeStart();
+            writer.accept("user1".getBytes(StandardCharsets.UTF_8), 1, 2500.5, timestamp);
+            writer.accept("a,\"b\"".getBytes(StandardCharsets.UTF_8), 2, 2300.0, timestamp);
+        }
+        
+        // Assert
+        assertEquals(
+            "userId,rank,score,timestamp\n"
+                + "user1,1,2500.5,2024-01-15T10:30:00.000Z\n"
+                + "\"a,\"\"b\"\"\",2,2300.0,2024-01-15T10:30:00.000Z\n",
+            output.toString(StandardCharsets.UTF_8));
+    }
+}
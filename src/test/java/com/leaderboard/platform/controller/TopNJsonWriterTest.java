@@ -0,0 +1,84 @@
+package com.leaderboard.platform.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.leaderboard.platform.dto.TopNResponse;
+import com.leaderboard.platform.model.RankedUser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopNJsonWriterTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    
+    private final Instant first = Instant.parse("2024-01-15T10:30:00.123Z");
+    private final Instant second = Instant.parse("2024-02-29T23:59:59.999Z");
+    private final Instant retrievedAt = Instant.parse("2024-03-01T00:00:00Z");
+    
+    @Test
+    void testStreamedJsonMatchesDtoJson() throws Exception {
+        // Act - UTF-8 output, as the controller writes it
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(streamed)) {
+            writeSample(generator);
+        }
+        
+        // Assert
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(sampleDto())),
+            objectMapper.readTree(new String(streamed.toByteArray(), StandardCharsets.UTF_8)));
+    }
+    
+    @Test
+    void testStreamedJsonToWriterMatchesDtoJson() throws Exception {
+        // Act - character output, which cannot take raw UTF-8 user ids
+        StringWriter streamed = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(streamed)) {
+            writeSample(generator);
+        }
+        
+        // Assert
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(sampleDto())), objectMapper.readTree(streamed.toString()));
+    }
+    
+    private void writeSample(JsonGenerator generator) throws Exception {
+        TopNJsonWriter writer = new TopNJsonWriter(generator);
+        writer.writeStart("test-uuid", "daily");
+        writer.accept("user-\u00e9".getBytes(StandardCharsets.UTF_8), 1, 2500.5, first.toEpochMilli());
+        writer.accept("user-\"2\"".getBytes(StandardCharsets.UTF_8), 2, 2300.0, second.toEpochMilli());
+        writer.writeEnd(1500L, retrievedAt);
+    }
+    
+    private TopNResponse sampleDto() {
+        return TopNResponse.builder()
+            .uuid("test-uuid")
+            .window("daily")
+            .users(List.of(
+                RankedUser.builder().userId("user-\u00e9").rank(1).score(2500.5).timestamp(first).build(),
+                RankedUser.builder().userId("user-\"2\"").rank(2).score(2300.0).timestamp(second).build()))
+            .totalUsers(1500L)
+            .retrievedAt(retrievedAt)
+            .build();
+    }
+    
+    @Test
+    void testFormatTimestampMatchesJsonFormatPattern() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+        char[] buffer = new char[24];
+        long[] samples = {0L, 1L, 951_782_400_000L, 1_709_251_199_999L, 4_102_444_800_000L, 253_402_300_799_999L};
+        
+        for (long millis : samples) {
+            int length = TopNJsonWriter.formatTimestamp(millis, buffer);
+            assertEquals(formatter.format(Instant.ofEpochMilli(millis)), new String(buffer, 0, length));
+        }
+    }
+}
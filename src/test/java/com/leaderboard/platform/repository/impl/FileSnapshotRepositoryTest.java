@@ -0,0 +1,61 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.leaderboard.platform.model.LeaderboardSnapshot;
+import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.UserScore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSnapshotRepositoryTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testSaveAndLoad_PreservesRankingAndLookup() {
+        // Arrange - ranking order deliberately differs from userId order
+        Instant baseTime = Instant.parse("2024-01-15T10:30:00Z");
+        List<UserScore> ranking = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ranking.add(UserScore.builder()
+                .userId("user-" + (49 - i))
+                .score(1000.0 - i)
+                .timestamp(baseTime.plusSeconds(i))
+                .build());
+        }
+        new FileSnapshotRepository(tempDir.toString())
+            .save("leaderboard-1", LeaderboardSnapshot.fromRanking(ranking));
+        
+        // Act - a fresh repository has to read the file back
+        LeaderboardSnapshot loaded = new FileSnapshotRepository(tempDir.toString())
+            .findByLeaderboardId("leaderboard-1")
+            .orElseThrow();
+        
+        // Assert
+        assertEquals(50, loaded.size());
+        List<RankedUser> top = loaded.getTopN(3);
+        assertEquals("user-49", top.get(0).getUserId());
+        assertEquals(1, top.get(0).getRank());
+        assertEquals(1000.0, top.get(0).getScore());
+        assertEquals(baseTime, top.get(0).getTimestamp());
+        
+        RankedUser user = loaded.getUserRank("user-10").orElseThrow();
+        assertEquals(40, user.getRank());
+        assertEquals(961.0, user.getScore());
+        assertTrue(loaded.getUserRank("user-missing").isEmpty());
+    }
+    
+    @Test
+    void testFindByLeaderboardId_Missing() {
+        FileSnapshotRepository repository = new FileSnapshotRepository(tempDir.toString());
+        
+        assertTrue(repository.findByLeaderboardId("unknown").isEmpty());
+    }
+}
@@ -1,10 +1,20 @@
 package com.leaderboard.platform.repository.impl;
 
+import com.leaderboard.platform.model.LeaderboardWindow;
+import com.leaderboard.platform.model.WindowBucket;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.params.SetParams;
+import redis.clients.jedis.util.JedisClusterCRC16;
 
 import java.time.Instant;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 class JedisRedisRepositoryTest {
     
@@ -47,5 +57,108 @@ class JedisRedisRepositoryTest {
         assertTrue(composite1 > 0);
         assertTrue(composite2 > 0);
     }
+    
+    @Test
+    void testFormatVersion_WindowBucketChangesVersion() {
+        // Arrange
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        WindowBucket first = new WindowBucket(LeaderboardWindow.DAILY, 0, start, start.plusSeconds(86400));
+        WindowBucket next = new WindowBucket(LeaderboardWindow.DAILY, 1, start.plusSeconds(86400), start.plusSeconds(172800));
+        
+        // Act
+        String allTime = JedisRedisRepository.formatVersion("a1", "42", null);
+        String firstVersion = JedisRedisRepository.formatVersion("a1", "42", first);
+        String nextVersion = JedisRedisRepository.formatVersion("a1", "42", next);
+        
+        // Assert - a rollover changes the version even without a write
+        assertEquals("a1-42", allTime);
+        assertNotEquals(firstVersion, nextVersion);
+        assertEquals("a1-42-daily-" + start.toEpochMilli(), firstVersion);
+    }
+    
+    @Test
+    void testFormatVersion_EpochTellsResetCountersApart() {
+        // Act & Assert - the same counter under a new epoch is a different version
+        assertNotEquals(JedisRedisRepository.formatVersion("a1", "3", null),
+            JedisRedisRepository.formatVersion("b2", "3", null));
+        assertNull(JedisRedisRepository.formatVersion(null, "3", null));
+        assertNull(JedisRedisRepository.formatVersion("a1", null, null));
+    }
+    
+    @Test
+    void testLeaderboardKeys_ShareOneHashTag() {
+        // Arrange
+        WindowBucket daily = new WindowBucket(LeaderboardWindow.DAILY, 42, Instant.EPOCH, Instant.EPOCH.plusSeconds(86400));
+        
+        // Act
+        String allTime = JedisRedisRepository.leaderboardKey("board-1");
+        
+        // Assert - every key of a board lands in the slot of its all-time set, so scripts may combine them
+        assertEquals("leaderboard:{board-1}", allTime);
+        assertEquals("leaderboard:{board-1}:daily:42", JedisRedisRepository.leaderboardKey("board-1", daily));
+        assertEquals(allTime, JedisRedisRepository.leaderboardKey("board-1", null));
+        int slot = JedisClusterCRC16.getSlot(allTime);
+        assertEquals(slot, JedisClusterCRC16.getSlot(JedisRedisRepository.leaderboardKey("board-1", daily)));
+        assertEquals(slot, JedisClusterCRC16.getSlot(JedisRedisRepository.histogramKey("board-1")));
+        assertEquals(slot, JedisClusterCRC16.getSlot(JedisRedisRepository.versionKey("board-1")));
+        assertEquals(slot, JedisClusterCRC16.getSlot(JedisRedisRepository.epochKey("board-1")));
+    }
+    
+    @Test
+    void testPodAggregateKey_TaggedByPod() {
+        // Act
+        String key = JedisRedisRepository.podAggregateKey("pod-1");
+        
+        // Assert
+        assertEquals("pod:{pod-1}:aggregate", key);
+        assertEquals(JedisClusterCRC16.getSlot("{pod-1}"), JedisClusterCRC16.getSlot(key));
+        // The delta script checks the rebuild lock next to the aggregate
+        assertEquals(JedisClusterCRC16.getSlot(key), JedisClusterCRC16.getSlot(JedisRedisRepository.podRebuildLockKey("pod-1")));
+    }
+    
+    @Test
+    void testReplicaReads_FallBackToPrimaryBeyondLagThreshold() {
+        // Arrange
+        UnifiedJedis primary = mock(UnifiedJedis.class);
+        JedisPooled replica = mock(JedisPooled.class);
+        JedisRedisRepository repository = new JedisRedisRepository();
+        ReflectionTestUtils.setField(repository, "jedis", primary);
+        ReflectionTestUtils.setField(repository, "available", true);
+        ReflectionTestUtils.setField(repository, "replicaMaxStalenessMillis", 1000L);
+        ReflectionTestUtils.setField(repository, "replicaLagCheckMillis", 500L);
+        repository.addReplica(new HostAndPort("replica-1", 6379), replica);
+        
+        // Act & Assert - nothing is read from a replica before its lag was measured
+        repository.getTotalUsers("board-1");
+        verify(primary).zcard("leaderboard:{board-1}");
+        
+        when(replica.get(startsWith("replication:heartbeat:{"))).thenReturn(Long.toString(System.currentTimeMillis()));
+        repository.checkReplicaLag();
+        repository.getTotalUsers("board-1");
+        verify(replica).zcard("leaderboard:{board-1}");
+        
+        when(replica.get(startsWith("replication:heartbeat:{"))).thenReturn(Long.toString(System.currentTimeMillis() - 5000));
+        repository.checkReplicaLag();
+        repository.getTotalUsers("board-1");
+        verify(primary, times(2)).zcard("leaderboard:{board-1}");
+        verify(replica, times(1)).zcard("leaderboard:{board-1}");
+    }
+    
+    @Test
+    void testReplicaLagCheck_UsesOwnHeartbeatKey() {
+        // Arrange
+        UnifiedJedis primary = mock(UnifiedJedis.class);
+        JedisRedisRepository first = new JedisRedisRepository();
+        JedisRedisRepository second = new JedisRedisRepository();
+        ReflectionTestUtils.setField(first, "jedis", primary);
+        ReflectionTestUtils.setField(second, "jedis", primary);
+        
+        // Act
+        first.checkReplicaLag();
+        second.checkReplicaLag();
+        
+        // Assert - two instances never share a heartbeat key
+        verify(primary, times(2)).set(startsWith("replication:heartbeat:{"), anyString(), any(SetParams.class));
+        assertNotEquals(ReflectionTestUtils.getField(first, "heartbeatKey"), ReflectionTestUtils.getField(second, "heartbeatKey"));
+    }
 }
-
@@ -0,0 +1,59 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonLeaderboardRepositoryTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testFindByLeaderboardId_ReadsOnlyTheIndexedFile() throws Exception {
+        // Arrange
+        JsonLeaderboardRepository repository = new JsonLeaderboardRepository(tempDir.toString());
+        repository.save(leaderboard("uuid-1", "leaderboard-1"));
+        repository.save(leaderboard("uuid-2", "leaderboard-2"));
+        
+        // With an index present, a restarted repository reads leaderboard files only on demand
+        JsonLeaderboardRepository restarted = new JsonLeaderboardRepository(tempDir.toString());
+        Files.writeString(tempDir.resolve("uuid-1.json"), "not a leaderboard");
+        
+        // Act & Assert
+        assertEquals("uuid-2", restarted.findByLeaderboardId("leaderboard-2").orElseThrow().getUuid());
+        assertTrue(restarted.findByLeaderboardId("leaderboard-1").isEmpty());
+        assertTrue(restarted.findByLeaderboardId("unknown").isEmpty());
+    }
+    
+    @Test
+    void testStartup_RebuildsMissingIndexFromLeaderboardFiles() throws Exception {
+        // Arrange
+        new JsonLeaderboardRepository(tempDir.toString()).save(leaderboard("uuid-1", "leaderboard-1"));
+        Files.delete(tempDir.resolve("leaderboard-index.json"));
+        
+        // Act
+        JsonLeaderboardRepository restarted = new JsonLeaderboardRepository(tempDir.toString());
+        
+        // Assert
+        assertTrue(Files.exists(tempDir.resolve("leaderboard-index.json")));
+        assertEquals("uuid-1", restarted.findByLeaderboardId("leaderboard-1").orElseThrow().getUuid());
+    }
+    
+    private Leaderboard leaderboard(String uuid, String leaderboardId) {
+        return Leaderboard.builder()
+            .uuid(uuid)
+            .leaderboardId(leaderboardId)
+            .podId("pod-1")
+            .status(LeaderboardStatus.ACTIVE)
+            .createdAt(Instant.parse("2024-01-15T10:30:00Z"))
+            .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.leaderboard.platform.model.UserScore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonUserScoreRepositoryTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testReadersKeepTheSnapshotTheyGot() {
+        // Arrange
+        JsonUserScoreRepository repository = new JsonUserScoreRepository(tempDir.toString());
+        repository.save(userScore("board-1", "user1", 100.0));
+        List<UserScore> before = repository.findByLeaderboardId("board-1");
+        
+        // Act
+        repository.save(userScore("board-1", "user1", 200.0));
+        repository.save(userScore("board-1", "user2", 150.0));
+        
+        // Assert
+        assertEquals(1, before.size());
+        assertEquals(100.0, before.get(0).getScore());
+        assertEquals(2, repository.findByLeaderboardId("board-1").size());
+        assertEquals(200.0, repository.findByLeaderboardIdAndUserId("board-1", "user1").orElseThrow().getScore());
+        assertThrows(UnsupportedOperationException.class, () -> before.add(userScore("board-1", "user3", 1.0)));
+    }
+    
+    @Test
+    void testSaveAllPublishesOneSnapshotPerBoard() {
+        // Arrange
+        JsonUserScoreRepository repository = new JsonUserScoreRepository(tempDir.toString());
+        repository.save(userScore("board-1", "user1", 100.0));
+        long versionBefore = repository.getSnapshotVersion("board-1");
+        
+        // Act
+        List<UserScore> saved = repository.saveAll(List.of(
+            userScore("board-1", "user2", 200.0),
+            userScore("board-2", "user2", 200.0),
+            userScore("board-1", "user3", 300.0)));
+        saved.get(0).setRank(1);
+        
+        // Assert
+        assertEquals(versionBefore + 1, repository.getSnapshotVersion("board-1"));
+        assertEquals(1, repository.getSnapshotVersion("board-2"));
+        assertEquals(3, repository.findByLeaderboardId("board-1").size());
+        // Ranks set on returned scores stay out of the shared snapshot
+        assertNull(repository.findByLeaderboardIdAndUserId("board-1", "user2").orElseThrow().getRank());
+        // A restarted repository reads the same board back from its file
+        assertEquals(3, new JsonUserScoreRepository(tempDir.toString()).findByLeaderboardId("board-1").size());
+    }
+    
+    private UserScore userScore(String leaderboardId, String userId, double score) {
+        return UserScore.builder()
+            .leaderboardId(leaderboardId)
+            .userId(userId)
+            .score(score)
+            .timestamp(Instant.now())
+            .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.leaderboard.platform.repository.impl;
+
+import com.leaderboard.platform.model.IdempotencyRecord;
+import com.leaderboard.platform.model.UserScore;
+import com.leaderboard.platform.repository.RedisRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RedisIdempotencyRepositoryTest {
+    
+    private RedisRepository redisRepository;
+    private RedisIdempotencyRepository repository;
+    
+    @BeforeEach
+    void setUp() {
+        redisRepository = mock(RedisRepository.class);
+        repository = new RedisIdempotencyRepository(redisRepository, 2);
+        ReflectionTestUtils.setField(repository, "ttlMillis", 60_000L);
+        ReflectionTestUtils.setField(repository, "pendingTtlMillis", 60_000L);
+    }
+    
+    @Test
+    void testClaim_ReplaysRecordStoredInRedis() {
+        // Arrange
+        when(redisRepository.claimIdempotencyKey(eq("key-1"), anyString(), eq(60_000L)))
+            .thenReturn(null, "{\"score\":700.0,\"result\":{\"userId\":\"user-1\",\"score\":700.0,"
+                + "\"timestamp\":\"2024-01-15T10:30:00.000Z\",\"rank\":4}}");
+        IdempotencyRecord pending = IdempotencyRecord.builder().score(700.0).build();
+        
+        // Act
+        Optional<IdempotencyRecord> first = repository.claim("key-1", pending);
+        Optional<IdempotencyRecord> retry = repository.claim("key-1", pending);
+        
+        // Assert
+        assertTrue(first.isEmpty());
+        assertEquals(4, retry.orElseThrow().getResult().getRank());
+        assertEquals(Instant.parse("2024-01-15T10:30:00Z"), retry.get().getResult().getTimestamp());
+    }
+    
+    @Test
+    void testClaim_RedisUnavailable_DedupesInBoundedLocalMap() {
+        // Arrange
+        when(redisRepository.claimIdempotencyKey(anyString(), anyString(), anyLong()))
+            .thenThrow(new RuntimeException("Redis is not available"));
+        doThrow(new RuntimeException("Redis is not available"))
+            .when(redisRepository).completeIdempotencyKey(anyString(), anyString(), anyLong());
+        IdempotencyRecord pending = IdempotencyRecord.builder().score(700.0).build();
+        UserScore result = UserScore.builder().userId("user-1").score(700.0).rank(1).build();
+        
+        // Act & Assert
+        assertTrue(repository.claim("key-1", pending).isEmpty());
+        assertTrue(repository.claim("key-1", pending).orElseThrow().isPending());
+        
+        repository.complete("key-1", IdempotencyRecord.builder().score(700.0).result(result).build());
+        assertSame(result, repository.claim("key-1", pending).orElseThrow().getResult());
+        
+        // Two newer claims evict the oldest entry
+        repository.claim("key-2", pending);
+        repository.claim("key-3", pending);
+        assertTrue(repository.claim("key-1", pending).isEmpty());
+    }
+}
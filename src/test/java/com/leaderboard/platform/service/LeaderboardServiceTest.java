@@ -1,26 +1,46 @@
 package com.leaderboard.platform.service;
 
+import com.leaderboard.platform.exception.IdempotencyConflictException;
 import com.leaderboard.platform.exception.InvalidRequestException;
 import com.leaderboard.platform.exception.LeaderboardNotFoundException;
+import com.leaderboard.platform.model.HistogramSpec;
+import com.leaderboard.platform.model.IdempotencyRecord;
 import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardSnapshot;
 import com.leaderboard.platform.model.LeaderboardStatus;
+import com.leaderboard.platform.model.LeaderboardWindow;
 import com.leaderboard.platform.model.RankedUser;
+import com.leaderboard.platform.model.RankedUserConsumer;
+import com.leaderboard.platform.model.RetryQueueItem;
+import com.leaderboard.platform.model.ScoreHistogram;
+import com.leaderboard.platform.model.ScoreWrite;
+import com.leaderboard.platform.model.TopNPage;
 import com.leaderboard.platform.model.UserScore;
+import com.leaderboard.platform.repository.IdempotencyRepository;
 import com.leaderboard.platform.repository.LeaderboardRepository;
 import com.leaderboard.platform.repository.RedisRepository;
 import com.leaderboard.platform.repository.RetryQueueRepository;
+import com.leaderboard.platform.repository.SnapshotRepository;
+import com.leaderboard.platform.repository.UserScoreRankRepository;
 import com.leaderboard.platform.repository.UserScoreRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -41,6 +61,15 @@ class LeaderboardServiceTest {
     @Mock
     private RetryQueueRepository retryQueueRepository;
     
+    @Mock
+    private SnapshotRepository snapshotRepository;
+    
+    @Mock
+    private IdempotencyRepository idempotencyRepository;
+    
+    @Mock
+    private UserScoreRankRepository userScoreRankRepository;
+    
     @InjectMocks
     private LeaderboardService leaderboardService;
     
@@ -60,7 +89,7 @@ class LeaderboardServiceTest {
             .createdAt(Instant.now())
             .build();
     }
-
+    
     @Test
     void testGetTopN_Success() {
         // Arrange
@@ -94,7 +123,7 @@ class LeaderboardServiceTest {
         Double newScore = 1500.5;
         when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
         when(redisRepository.isAvailable()).thenReturn(true);
-        when(redisRepository.getUserRankPosition(testLeaderboardId, testUserId)).thenReturn(42L);
+        when(redisRepository.writeScore(any(ScoreWrite.class))).thenReturn(42L);
         
         UserScore savedScore = UserScore.builder()
             .userId(testUserId)
@@ -111,10 +140,11 @@ class LeaderboardServiceTest {
         assertNotNull(result);
         assertEquals(testUserId, result.getUserId());
         assertEquals(newScore, result.getScore());
+        assertEquals(42, result.getRank());
         verify(userScoreRepository).save(any(UserScore.class));
         verify(redisRepository).isAvailable();
-        verify(redisRepository).updateScore(eq(testLeaderboardId), eq(testUserId), anyDouble());
-        verify(redisRepository).getUserRankPosition(testLeaderboardId, testUserId);
+        verify(redisRepository).writeScore(argThat(write ->
+            testLeaderboardId.equals(write.getLeaderboardId()) && testUserId.equals(write.getUserId())));
     }
     
     @Test
@@ -125,7 +155,7 @@ class LeaderboardServiceTest {
         
         when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
         when(redisRepository.isAvailable()).thenReturn(true);
-        when(redisRepository.getUserRankPosition(testLeaderboardId, testUserId)).thenReturn(15L);
+        when(redisRepository.writeScore(any(ScoreWrite.class))).thenReturn(15L);
         
         UserScore updatedScore = UserScore.builder()
             .userId(testUserId)
@@ -147,8 +177,8 @@ class LeaderboardServiceTest {
         assertEquals(newScore, result.getScore()); // New score should be set
         verify(userScoreRepository).save(any(UserScore.class));
         verify(redisRepository).isAvailable();
-        verify(redisRepository).updateScore(eq(testLeaderboardId), eq(testUserId), anyDouble());
-        verify(redisRepository).getUserRankPosition(testLeaderboardId, testUserId);
+        verify(redisRepository).writeScore(argThat(write ->
+            testLeaderboardId.equals(write.getLeaderboardId()) && testUserId.equals(write.getUserId())));
     }
     
     @Test
@@ -199,17 +229,20 @@ class LeaderboardServiceTest {
             .timestamp(Instant.now())
             .build();
         when(userScoreRepository.save(any(UserScore.class))).thenReturn(savedScore);
+        when(userScoreRepository.countRankedAbove(testLeaderboardId, score, savedScore.getTimestamp())).thenReturn(4L);
         
         // Act
         UserScore result = leaderboardService.updateScore(testUuid, testUserId, score);
         
-        // Assert
+        // Assert - the rank is counted by the repository instead of sorting the board
         assertNotNull(result);
+        assertEquals(5, result.getRank());
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
         verify(userScoreRepository).save(any(UserScore.class));
         verify(retryQueueRepository).enqueue(any());
-        verify(redisRepository, never()).updateScore(anyString(), anyString(), anyDouble());
+        verify(redisRepository, never()).writeScore(any());
     }
-
+    
     
     @Test
     void testGetTopN_LeaderboardNotFound() {
@@ -312,5 +345,665 @@ class LeaderboardServiceTest {
         // User B should rank third (same score, later timestamp)
         assertEquals("user-B", result.get(2).getUserId());
     }
+    
+    @Test
+    void testUpdateScore_WritesDeclaredWindowsInOneCall() {
+        // Arrange
+        Instant startTime = Instant.now().minusSeconds(3 * 24 * 3600 + 60);
+        testLeaderboard.setStartTime(startTime);
+        testLeaderboard.setWindows(List.of(LeaderboardWindow.DAILY, LeaderboardWindow.WEEKLY));
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(userScoreRepository.save(any(UserScore.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(redisRepository.writeScore(any(ScoreWrite.class))).thenReturn(1L);
+        
+        // Act
+        leaderboardService.updateScore(testUuid, testUserId, 100.0);
+        
+        // Assert - one Redis call covering both windows, aligned to the leaderboard start time
+        ArgumentCaptor<ScoreWrite> captor = ArgumentCaptor.forClass(ScoreWrite.class);
+        verify(redisRepository).writeScore(captor.capture());
+        ScoreWrite write = captor.getValue();
+        assertEquals(2, write.getWindows().size());
+        assertEquals(LeaderboardWindow.DAILY, write.getWindows().get(0).getWindow());
+        assertEquals(3, write.getWindows().get(0).getIndex());
+        assertEquals(startTime.plusSeconds(3 * 24 * 3600), write.getWindows().get(0).getStart());
+        assertEquals(LeaderboardWindow.WEEKLY, write.getWindows().get(1).getWindow());
+        assertEquals(0, write.getWindows().get(1).getIndex());
+    }
+    
+    @Test
+    void testGetTopN_UndeclaredWindow() {
+        // Arrange
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> {
+            leaderboardService.getTopN(testUuid, 10, "daily");
+        });
+    }
+    
+    @Test
+    void testGetTopN_EndedWindowServedFromStorage() {
+        // Arrange - the last daily window ended with the leaderboard and has expired in Redis
+        Instant now = Instant.now();
+        Instant startTime = now.minusSeconds(3 * 24 * 3600 + 60);
+        testLeaderboard.setStartTime(startTime);
+        testLeaderboard.setEndTime(now.minusSeconds(60));
+        testLeaderboard.setWindows(List.of(LeaderboardWindow.DAILY));
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(userScoreRepository.findByLeaderboardId(testLeaderboardId)).thenReturn(List.of(
+            UserScore.builder().leaderboardId(testLeaderboardId).userId("player-1").score(10.0)
+                .timestamp(now.minusSeconds(180)).build(),
+            UserScore.builder().leaderboardId(testLeaderboardId).userId("player-2").score(20.0)
+                .timestamp(startTime.plusSeconds(60)).build()));
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getTopN(testUuid, 10, "daily");
+        long totalUsers = leaderboardService.getTotalUsers(testUuid, "daily");
+        
+        // Assert - page and count agree and neither reads the expired window key
+        assertEquals(1, result.size());
+        assertEquals("player-1", result.get(0).getUserId());
+        assertEquals(1L, totalUsers);
+        assertNull(leaderboardService.getLeaderboardVersion(testUuid, "daily"));
+        verify(redisRepository, never()).getTopN(anyString(), any(), anyInt());
+        verify(redisRepository, never()).getTotalUsers(anyString(), any());
+    }
+    
+    @Test
+    void testGetTopN_EmptyRedisBoardFallsBackToStorage() {
+        // Arrange - no version key, e.g. after a Redis flush
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.getTopN(testLeaderboardId, 10)).thenReturn(List.of());
+        when(redisRepository.getTotalUsers(testLeaderboardId)).thenReturn(0L);
+        when(userScoreRepository.findByLeaderboardId(testLeaderboardId)).thenReturn(List.of(
+            UserScore.builder().leaderboardId(testLeaderboardId).userId("player-1").score(10.0)
+                .timestamp(Instant.now()).build()));
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getTopN(testUuid, 10);
+        long totalUsers = leaderboardService.getTotalUsers(testUuid);
+        
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(1L, totalUsers);
+    }
+    
+    @Test
+    void testGetTopN_EmptyBoardWithVersionServedFromRedis() {
+        // Arrange - Redis holds the board, it just has no scores in it
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.getTopN(testLeaderboardId, 10)).thenReturn(List.of());
+        when(redisRepository.getTotalUsers(testLeaderboardId)).thenReturn(0L);
+        when(redisRepository.getVersion(testLeaderboardId, null)).thenReturn("a1b2-7");
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getTopN(testUuid, 10);
+        long totalUsers = leaderboardService.getTotalUsers(testUuid);
+        
+        // Assert
+        assertTrue(result.isEmpty());
+        assertEquals(0L, totalUsers);
+        verifyNoInteractions(userScoreRepository);
+    }
+    
+    @Test
+    void testUpdateScore_EndedLeaderboardRejected() {
+        // Arrange
+        testLeaderboard.setEndTime(Instant.now().minusSeconds(1));
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> {
+            leaderboardService.updateScore(testUuid, testUserId, 1000.0);
+        });
+        verify(userScoreRepository, never()).save(any());
+    }
+    
+    @Test
+    void testArchiveLeaderboard() {
+        // Arrange
+        testLeaderboard.setEndTime(Instant.now().minusSeconds(60));
+        when(leaderboardRepository.updateStatus(testLeaderboardId, LeaderboardStatus.ACTIVE, LeaderboardStatus.ARCHIVING))
+            .thenReturn(true);
+        long baseTime = Instant.now().minusSeconds(120).toEpochMilli();
+        when(userScoreRepository.forEachRanked(eq(testLeaderboardId), any())).thenAnswer(invocation -> {
+            RankedUserConsumer consumer = invocation.getArgument(1);
+            consumer.accept("user-A".getBytes(StandardCharsets.UTF_8), 1, 200.0, baseTime);
+            consumer.accept("user-B".getBytes(StandardCharsets.UTF_8), 2, 100.0, baseTime);
+            return 2L;
+        });
+        
+        // Act
+        boolean archived = leaderboardService.archiveLeaderboard(testLeaderboard);
+        
+        // Assert
+        assertTrue(archived);
+        ArgumentCaptor<LeaderboardSnapshot> captor = ArgumentCaptor.forClass(LeaderboardSnapshot.class);
+        verify(snapshotRepository).save(eq(testLeaderboardId), captor.capture());
+        assertEquals("user-A", captor.getValue().getTopN(1).get(0).getUserId());
+        assertEquals(2, captor.getValue().getUserRank("user-B").orElseThrow().getRank());
+        assertEquals(LeaderboardStatus.ARCHIVED, testLeaderboard.getStatus());
+        verify(leaderboardRepository).updateStatus(testLeaderboardId, LeaderboardStatus.ARCHIVING, LeaderboardStatus.ARCHIVED);
+        verify(redisRepository).deleteLeaderboard(eq(testLeaderboardId), anyCollection());
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    void testArchiveLeaderboard_ClaimedByAnotherInstance() {
+        // Arrange - another instance already moved the board out of ACTIVE
+        testLeaderboard.setEndTime(Instant.now().minusSeconds(60));
+        when(leaderboardRepository.updateStatus(testLeaderboardId, LeaderboardStatus.ACTIVE, LeaderboardStatus.ARCHIVING))
+            .thenReturn(false);
+        
+        // Act
+        boolean archived = leaderboardService.archiveLeaderboard(testLeaderboard);
+        
+        // Assert
+        assertFalse(archived);
+        verify(userScoreRepository, never()).forEachRanked(anyString(), any());
+        verify(snapshotRepository, never()).save(anyString(), any());
+        verify(redisRepository, never()).deleteLeaderboard(anyString(), anyCollection());
+    }
+    
+    @Test
+    void testGetTopN_ArchivedLeaderboardServedFromSnapshot() {
+        // Arrange
+        testLeaderboard.setStatus(LeaderboardStatus.ARCHIVED);
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        LeaderboardSnapshot snapshot = LeaderboardSnapshot.fromRanking(List.of(
+            UserScore.builder().userId("user-A").score(200.0).timestamp(Instant.now()).build(),
+            UserScore.builder().userId("user-B").score(100.0).timestamp(Instant.now()).build()
+        ));
+        when(snapshotRepository.findByLeaderboardId(testLeaderboardId)).thenReturn(Optional.of(snapshot));
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getTopN(testUuid, 10);
+        
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals("user-A", result.get(0).getUserId());
+        verify(redisRepository, never()).getTopN(anyString(), anyInt());
+    }
+    
+    @Test
+    void testGetScoreDistribution_ReadsHistogramFromRedis() {
+        // Arrange - 10 buckets of width 10 over [0, 100)
+        HistogramSpec spec = HistogramSpec.builder().min(0).max(100).buckets(10).build();
+        testLeaderboard.setHistogram(spec);
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        long[] counts = {10, 10, 10, 10, 10, 10, 10, 10, 10, 10};
+        when(redisRepository.getScoreHistogram(testLeaderboardId, spec)).thenReturn(new ScoreHistogram(spec, counts));
+        
+        // Act
+        ScoreHistogram histogram = leaderboardService.getScoreDistribution(testUuid);
+        
+        // Assert - 15 of 100 users score above 85
+        assertEquals(100, histogram.totalUsers());
+        assertEquals(15.0, histogram.topPercent(85.0), 1e-9);
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    void testGetScoreDistribution_RedisUnavailable_CountsFromStorage() {
+        // Arrange
+        HistogramSpec spec = HistogramSpec.builder().min(0).max(100).buckets(4).build();
+        testLeaderboard.setHistogram(spec);
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(false);
+        when(userScoreRepository.findScoreHistogram(testLeaderboardId, spec))
+            .thenReturn(new ScoreHistogram(spec, new long[]{1, 0, 1, 1}));
+        
+        // Act
+        ScoreHistogram histogram = leaderboardService.getScoreDistribution(testUuid);
+        
+        // Assert - counted by the database, without loading the board
+        assertArrayEquals(new long[]{1, 0, 1, 1}, histogram.getCounts());
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    void testGetScoreDistribution_NoHistogramDeclared() {
+        // Arrange
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        
+        // Act & Assert
+        assertThrows(InvalidRequestException.class, () -> leaderboardService.getScoreDistribution(testUuid));
+    }
+    
+    @Test
+    void testUpdateScores_FansOutInOneUpsertAndOnePipeline() {
+        // Arrange
+        Leaderboard regional = Leaderboard.builder()
+            .leaderboardId("regional-id")
+            .uuid("regional-uuid")
+            .status(LeaderboardStatus.ACTIVE)
+            .build();
+        when(leaderboardRepository.findByUuidIn(any())).thenReturn(List.of(regional, testLeaderboard));
+        when(userScoreRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.writeScores(anyList())).thenReturn(List.of(3L, 7L));
+        
+        // Act - the duplicate UUID is applied once
+        List<UserScore> result = leaderboardService.updateScores(
+            List.of(testUuid, "regional-uuid", testUuid), testUserId, 500.0);
+        
+        // Assert - results follow request order, not repository order
+        assertEquals(2, result.size());
+        assertEquals(testLeaderboardId, result.get(0).getLeaderboardId());
+        assertEquals(3, result.get(0).getRank());
+        assertEquals("regional-id", result.get(1).getLeaderboardId());
+        assertEquals(7, result.get(1).getRank());
+        verify(userScoreRepository, times(1)).saveAll(anyList());
+        verify(userScoreRepository, never()).save(any(UserScore.class));
+        verify(redisRepository, times(1)).writeScores(anyList());
+    }
+    
+    @Test
+    void testUpdateScores_UnknownLeaderboardRejectedBeforeWriting() {
+        // Arrange
+        when(leaderboardRepository.findByUuidIn(any())).thenReturn(List.of(testLeaderboard));
+        
+        // Act & Assert
+        assertThrows(LeaderboardNotFoundException.class, () ->
+            leaderboardService.updateScores(List.of(testUuid, "missing-uuid"), testUserId, 500.0));
+        verify(userScoreRepository, never()).saveAll(anyList());
+    }
+    
+    @Test
+    void testUpdateScore_OptedInBoardFeedsPodAggregate() {
+        // Arrange
+        testLeaderboard.setPodAggregate(true);
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(userScoreRepository.save(any(UserScore.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.writeScore(any(ScoreWrite.class))).thenReturn(1L);
+        
+        // Act
+        leaderboardService.updateScore(testUuid, testUserId, 100.0);
+        
+        // Assert
+        ArgumentCaptor<ScoreWrite> captor = ArgumentCaptor.forClass(ScoreWrite.class);
+        verify(redisRepository).writeScore(captor.capture());
+        assertEquals("pod-1", captor.getValue().getPodId());
+    }
+    
+    @Test
+    void testGetPodTopN_RedisUnavailable_SumsOptedInBoards() {
+        // Arrange
+        testLeaderboard.setPodAggregate(true);
+        Leaderboard otherBoard = Leaderboard.builder().leaderboardId("other-id").podId("pod-1").podAggregate(true).build();
+        Leaderboard optedOut = Leaderboard.builder().leaderboardId("opted-out-id").podId("pod-1").build();
+        when(redisRepository.isAvailable()).thenReturn(false);
+        when(leaderboardRepository.findByPodId("pod-1")).thenReturn(List.of(testLeaderboard, otherBoard, optedOut));
+        when(userScoreRepository.sumScoresByUser(List.of(testLeaderboardId, "other-id")))
+            .thenReturn(Map.of("user-A", 180.0, "user-B", 150.0));
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getPodTopN("pod-1", 10);
+        
+        // Assert - only opted-in boards are summed, by the database
+        assertEquals(2, result.size());
+        assertEquals("user-A", result.get(0).getUserId());
+        assertEquals(180.0, result.get(0).getScore());
+        assertEquals("user-B", result.get(1).getUserId());
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcessRetryQueue_ReplaysEachLeaderboardInOnePipeline() {
+        // Arrange
+        Leaderboard otherBoard = Leaderboard.builder().leaderboardId("other-id").status(LeaderboardStatus.ACTIVE).build();
+        RetryQueueItem first = RetryQueueItem.builder().leaderboardId(testLeaderboardId).userId("user-A")
+            .score(10.0).timestamp(Instant.now()).retryCount(0).build();
+        RetryQueueItem second = RetryQueueItem.builder().leaderboardId("other-id").userId("user-B")
+            .score(20.0).timestamp(Instant.now()).retryCount(0).build();
+        RetryQueueItem third = RetryQueueItem.builder().leaderboardId(testLeaderboardId).userId("user-C")
+            .score(30.0).timestamp(Instant.now()).retryCount(0).build();
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(retryQueueRepository.dequeue(100)).thenReturn(List.of(first, second, third));
+        when(leaderboardRepository.findByLeaderboardId(testLeaderboardId)).thenReturn(Optional.of(testLeaderboard));
+        when(leaderboardRepository.findByLeaderboardId("other-id")).thenReturn(Optional.of(otherBoard));
+        
+        // Act
+        leaderboardService.processRetryQueue();
+        
+        // Assert - one writeScores call per leaderboard, in queue order
+        ArgumentCaptor<List<ScoreWrite>> captor = ArgumentCaptor.forClass(List.class);
+        verify(redisRepository, times(2)).writeScores(captor.capture());
+        assertEquals(List.of("user-A", "user-C"), captor.getAllValues().get(0).stream().map(ScoreWrite::getUserId).toList());
+        assertEquals(List.of("user-B"), captor.getAllValues().get(1).stream().map(ScoreWrite::getUserId).toList());
+        verify(retryQueueRepository, times(3)).remove(any());
+        verify(retryQueueRepository, never()).enqueue(any());
+    }
+    
+    @Test
+    void testProcessRetryQueue_FailedPipelineRequeuesEveryItem() {
+        // Arrange
+        RetryQueueItem first = RetryQueueItem.builder().leaderboardId(testLeaderboardId).userId("user-A")
+            .score(10.0).timestamp(Instant.now()).retryCount(0).build();
+        RetryQueueItem second = RetryQueueItem.builder().leaderboardId(testLeaderboardId).userId("user-B")
+            .score(20.0).timestamp(Instant.now()).retryCount(4).build();
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(retryQueueRepository.dequeue(100)).thenReturn(List.of(first, second));
+        when(leaderboardRepository.findByLeaderboardId(testLeaderboardId)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.writeScores(anyList())).thenThrow(new RuntimeException("Redis timeout"));
+        
+        // Act
+        leaderboardService.processRetryQueue();
+        
+        // Assert - each item keeps its own retry count; the exhausted one is dropped
+        verify(retryQueueRepository).enqueue(first);
+        assertEquals(1, first.getRetryCount());
+        verify(retryQueueRepository, never()).enqueue(second);
+        verify(retryQueueRepository, never()).remove(any());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcessRetryQueue_RebuildsStalePodAggregateFromStorage() {
+        // Arrange - a delta to the aggregate failed after the board write succeeded
+        testLeaderboard.setPodAggregate(true);
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.getStalePodAggregates()).thenReturn(Set.of("pod-1"));
+        when(leaderboardRepository.findByPodId("pod-1")).thenReturn(List.of(testLeaderboard));
+        when(userScoreRepository.sumScoresByUser(List.of(testLeaderboardId))).thenReturn(Map.of("user-A", 100.0));
+        when(retryQueueRepository.dequeue(100)).thenReturn(List.of());
+        Map<String, Double> rebuilt = new LinkedHashMap<>();
+        doAnswer(invocation -> {
+            rebuilt.putAll(((Supplier<Map<String, Double>>) invocation.getArgument(1)).get());
+            return true;
+        }).when(redisRepository).rebuildPodAggregate(eq("pod-1"), any());
+        
+        // Act
+        leaderboardService.processRetryQueue();
+        
+        // Assert
+        assertEquals(Map.of("user-A", 100.0), rebuilt);
+    }
+    
+    @Test
+    void testGetPodTopN_StaleAggregateServedFromStorage() {
+        // Arrange
+        testLeaderboard.setPodAggregate(true);
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.isPodAggregateStale("pod-1")).thenReturn(true);
+        when(leaderboardRepository.findByPodId("pod-1")).thenReturn(List.of(testLeaderboard));
+        when(userScoreRepository.sumScoresByUser(List.of(testLeaderboardId))).thenReturn(Map.of("user-A", 100.0));
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getPodTopN("pod-1", 10);
+        
+        // Assert
+        assertEquals(1, result.size());
+        verify(redisRepository, never()).getPodTopN(anyString(), anyInt());
+    }
+    
+    @Test
+    void testGetSubsetRanking_RanksRequestedUsersAmongThemselves() {
+        // Arrange
+        Instant earlier = Instant.parse("2024-01-01T00:00:00Z");
+        Instant later = Instant.parse("2024-01-02T00:00:00Z");
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.getScores(eq(testLeaderboardId), anyCollection())).thenReturn(List.of(
+            RankedUser.builder().userId("friend-1").score(50.0).timestamp(later).build(),
+            RankedUser.builder().userId("friend-2").score(90.0).timestamp(later).build(),
+            RankedUser.builder().userId("friend-3").score(50.0).timestamp(earlier).build()
+        ));
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getSubsetRanking(testUuid,
+            List.of("friend-1", "friend-2", "friend-3", "friend-without-score"));
+        
+        // Assert
+        assertEquals(3, result.size());
+        assertEquals("friend-2", result.get(0).getUserId());
+        assertEquals("friend-3", result.get(1).getUserId());
+        assertEquals("friend-1", result.get(2).getUserId());
+        assertEquals(3, result.get(2).getRank());
+        verify(userScoreRepository, never()).findByLeaderboardIdAndUserIdIn(anyString(), anyCollection());
+    }
+    
+    @Test
+    void testGetSubsetRanking_RedisUnavailable_UsesBatchedStorageQuery() {
+        // Arrange
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(false);
+        when(userScoreRepository.findByLeaderboardIdAndUserIdIn(eq(testLeaderboardId), anyCollection())).thenReturn(List.of(
+            UserScore.builder().userId("friend-1").score(10.0).timestamp(Instant.now()).build(),
+            UserScore.builder().userId("friend-2").score(20.0).timestamp(Instant.now()).build()
+        ));
+        
+        // Act
+        List<RankedUser> result = leaderboardService.getSubsetRanking(testUuid, List.of("friend-1", "friend-2"));
+        
+        // Assert
+        assertEquals("friend-2", result.get(0).getUserId());
+        assertEquals(1, result.get(0).getRank());
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    void testGetUserRanks_ServedFromOneRedisCall() {
+        // Arrange
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        Map<String, Optional<RankedUser>> fromRedis = new LinkedHashMap<>();
+        fromRedis.put("player-1", Optional.of(RankedUser.builder().userId("player-1").rank(12).score(300.0).build()));
+        fromRedis.put("player-2", Optional.empty());
+        when(redisRepository.getUserRanks(eq(testLeaderboardId), anyCollection())).thenReturn(fromRedis);
+        
+        // Act
+        Map<String, Optional<RankedUser>> result = leaderboardService.getUserRanks(testUuid, List.of("player-1", "player-2"));
+        
+        // Assert
+        assertEquals(12, result.get("player-1").orElseThrow().getRank());
+        assertTrue(result.get("player-2").isEmpty());
+        verify(redisRepository, never()).isAvailable();
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    void testGetUserRanks_RedisUnavailable_MaterializedRanksThenStorageLookups() {
+        // Arrange
+        Instant now = Instant.now();
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.getUserRanks(eq(testLeaderboardId), anyCollection())).thenReturn(null);
+        when(userScoreRankRepository.findRanks(testLeaderboardId, List.of("player-1", "player-2", "player-3")))
+            .thenReturn(Map.of("player-1", RankedUser.builder().userId("player-1").rank(7).score(10.0).build()));
+        when(userScoreRepository.findByLeaderboardIdAndUserIdIn(testLeaderboardId, List.of("player-2", "player-3")))
+            .thenReturn(List.of(UserScore.builder().userId("player-2").score(20.0).timestamp(now).build()));
+        when(userScoreRepository.countRankedAbove(testLeaderboardId, 20.0, now)).thenReturn(0L);
+        
+        // Act
+        Map<String, Optional<RankedUser>> result = leaderboardService.getUserRanks(testUuid,
+            List.of("player-1", "player-2", "player-3"));
+        
+        // Assert - no full board load
+        assertEquals(7, result.get("player-1").orElseThrow().getRank());
+        assertEquals(1, result.get("player-2").orElseThrow().getRank());
+        assertTrue(result.get("player-3").isEmpty());
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    void testGetLeaderboardVersion() {
+        // Arrange
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.getVersion(testLeaderboardId, null)).thenReturn("5f3a-7", (String) null);
+        
+        // Act & Assert - no version can be vouched for once Redis stops answering
+        assertEquals("5f3a-7", leaderboardService.getLeaderboardVersion(testUuid));
+        assertNull(leaderboardService.getLeaderboardVersion(testUuid));
+        
+        testLeaderboard.setStatus(LeaderboardStatus.ARCHIVED);
+        assertEquals("archived", leaderboardService.getLeaderboardVersion(testUuid));
+    }
+    
+    @Test
+    void testGetTopNPage_OneLookupAndOneRedisRead() {
+        // Arrange
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        List<RankedUser> rankedUsers = List.of(
+            RankedUser.builder().userId("player-1").rank(1).score(900.0).timestamp(Instant.now()).build(),
+            RankedUser.builder().userId("player-2").rank(2).score(800.0).timestamp(Instant.now()).build());
+        when(redisRepository.getTopNPage(testLeaderboardId, null, 2)).thenReturn(TopNPage.of(rankedUsers, 40L, "12"));
+        
+        // Act
+        TopNPage page = leaderboardService.getTopNPage(testUuid, 2, null);
+        
+        // Assert
+        assertEquals(40L, page.getTotalUsers());
+        assertEquals("12", page.getVersion());
+        assertEquals(rankedUsers.get(1).getUserId(), page.toRankedUsers().get(1).getUserId());
+        verify(leaderboardRepository, times(1)).findByUuid(testUuid);
+        verify(redisRepository, never()).getTotalUsers(anyString());
+        verifyNoInteractions(userScoreRepository);
+    }
+    
+    @Test
+    void testGetTopNPage_RedisUnavailable_UsesSingleStorageQuery() {
+        // Arrange
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.getTopNPage(testLeaderboardId, null, 10)).thenReturn(null);
+        TopNPage storagePage = TopNPage.of(List.of(), 0L, null);
+        when(userScoreRepository.findTopNPage(testLeaderboardId, null, 10)).thenReturn(storagePage);
+        
+        // Act
+        TopNPage page = leaderboardService.getTopNPage(testUuid, 10, null);
+        
+        // Assert - storage pages carry no version
+        assertSame(storagePage, page);
+        assertNull(page.getVersion());
+        verify(userScoreRepository, never()).findByLeaderboardId(anyString());
+    }
+    
+    @Test
+    void testUpdateScore_IdempotencyKey_FirstSubmissionWritesAndRecordsResult() {
+        // Arrange
+        when(idempotencyRepository.claim(eq(testUuid + ":" + testUserId + ":key-1"), any())).thenReturn(Optional.empty());
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(true);
+        when(redisRepository.writeScore(any(ScoreWrite.class))).thenReturn(3L);
+        when(userScoreRepository.save(any(UserScore.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        UserScore result = leaderboardService.updateScore(testUuid, testUserId, 700.0, "key-1");
+        
+        // Assert - writeScore already returns the 1-based rank
+        assertEquals(3, result.getRank());
+        verify(idempotencyRepository).complete(eq(testUuid + ":" + testUserId + ":key-1"),
+            argThat(record -> !record.isPending() && record.getResult() == result));
+    }
+    
+    @Test
+    void testUpdateScore_IdempotencyKey_RetryReplaysWithoutWriting() {
+        // Arrange
+        UserScore original = UserScore.builder()
+            .userId(testUserId)
+            .leaderboardId(testLeaderboardId)
+            .score(700.0)
+            .timestamp(Instant.now())
+            .rank(4)
+            .build();
+        when(idempotencyRepository.claim(anyString(), any())).thenReturn(
+            Optional.of(IdempotencyRecord.builder().score(700.0).result(original).build()),
+            Optional.of(IdempotencyRecord.builder().score(700.0).build()));
+        
+        // Act & Assert - a completed key replays, one still being applied is a conflict
+        assertSame(original, leaderboardService.updateScore(testUuid, testUserId, 700.0, "key-1"));
+        assertThrows(IdempotencyConflictException.class,
+            () -> leaderboardService.updateScore(testUuid, testUserId, 700.0, "key-1"));
+        assertThrows(InvalidRequestException.class,
+            () -> leaderboardService.updateScore(testUuid, testUserId, 800.0, "key-1"));
+        verifyNoInteractions(leaderboardRepository, userScoreRepository);
+        verify(redisRepository, never()).writeScore(any());
+    }
+    
+    @Test
+    void testGetUserRank_RedisUnavailable_ServedFromMaterializedRanks() {
+        // Arrange
+        Instant rankedAt = Instant.now().minusSeconds(20);
+        when(leaderboardRepository.findByUuid(testUuid)).thenReturn(Optional.of(testLeaderboard));
+        when(redisRepository.isAvailable()).thenReturn(false);
+        when(userScoreRankRepository.findRank(testLeaderboardId, testUserId)).thenReturn(Optional.of(
+            RankedUser.builder().userId(testUserId).rank(12).score(640.0).timestamp(Instant.now()).rankedAt(rankedAt).build()));
+        
+        // Act
+        RankedUser result = leaderboardService.getUserRank(testUuid, testUserId);
+        
+        // Assert - the rank reports how old it is
+        assertEquals(12, result.getRank());
+        assertEquals(rankedAt, result.getRankedAt());
+        verifyNoInteractions(userScoreRepository);
+    }
+    
+    @Test
+    void testRefreshMaterializedRanks_FailingBoardDoesNotStopOthers() {
+        // Arrange
+        Instant since = Instant.now().minusSeconds(30);
+        when(userScoreRankRepository.findLeaderboardIdsToRefresh(since)).thenReturn(List.of("board-1", "board-2", "board-3"));
+        when(userScoreRankRepository.refresh("board-1")).thenReturn(10L);
+        when(userScoreRankRepository.refresh("board-2")).thenThrow(new RuntimeException("deadlock detected"));
+        when(userScoreRankRepository.refresh("board-3")).thenReturn(5L);
+        
+        // Act
+        int refreshed = leaderboardService.refreshMaterializedRanks(since);
+        
+        // Assert
+        assertEquals(2, refreshed);
+        verify(userScoreRankRepository).refresh("board-3");
+    }
+    
+    @Test
+    void testRunRankRefreshCycle_ResumesFromStoredWatermark() {
+        // Arrange
+        Instant since = Instant.now().minusSeconds(30);
+        when(userScoreRankRepository.claimRefreshCycle(any(Instant.class), eq(Duration.ofSeconds(30))))
+            .thenReturn(Optional.of(since));
+        when(userScoreRankRepository.findLeaderboardIdsToRefresh(since)).thenReturn(List.of("board-1"));
+        when(userScoreRankRepository.refresh("board-1")).thenReturn(10L);
+        
+        // Act
+        int refreshed = leaderboardService.runRankRefreshCycle(Duration.ofSeconds(30));
+        
+        // Assert
+        assertEquals(1, refreshed);
+        verify(userScoreRankRepository).completeRefreshCycle(any(Instant.class));
+    }
+    
+    @Test
+    void testRunRankRefreshCycle_ClaimedByAnotherInstance() {
+        // Arrange
+        when(userScoreRankRepository.claimRefreshCycle(any(Instant.class), any(Duration.class))).thenReturn(Optional.empty());
+        
+        // Act
+        int refreshed = leaderboardService.runRankRefreshCycle(Duration.ofSeconds(30));
+        
+        // Assert
+        assertEquals(0, refreshed);
+        verify(userScoreRankRepository, never()).findLeaderboardIdsToRefresh(any());
+        verify(userScoreRankRepository, never()).completeRefreshCycle(any());
+    }
+    
+    @Test
+    void testRunRankRefreshCycle_FailedBoardKeepsWatermark() {
+        // Arrange
+        Instant since = Instant.now().minusSeconds(30);
+        when(userScoreRankRepository.claimRefreshCycle(any(Instant.class), any(Duration.class))).thenReturn(Optional.of(since));
+        when(userScoreRankRepository.findLeaderboardIdsToRefresh(since)).thenReturn(List.of("board-1", "board-2"));
+        when(userScoreRankRepository.refresh("board-1")).thenReturn(10L);
+        when(userScoreRankRepository.refresh("board-2")).thenThrow(new RuntimeException("deadlock detected"));
+        
+        // Act
+        leaderboardService.runRankRefreshCycle(Duration.ofSeconds(30));
+        
+        // Assert - the next cycle covers the failed board again
+        verify(userScoreRankRepository, never()).completeRefreshCycle(any());
+    }
 }
-
@@ -0,0 +1,109 @@
+package com.leaderboard.platform.service;
+
+import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.LeaderboardStatus;
+import com.leaderboard.platform.model.UserScore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ScoreImportProcessorTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final LeaderboardService leaderboardService = mock(LeaderboardService.class);
+    private final List<String> importedUserIds = Collections.synchronizedList(new ArrayList<>());
+    
+    @BeforeEach
+    void setUp() {
+        when(leaderboardService.findLeaderboardForImport("board-uuid")).thenReturn(Leaderboard.builder()
+            .uuid("board-uuid")
+            .leaderboardId("board-1")
+            .status(LeaderboardStatus.ACTIVE)
+            .build());
+    }
+    
+    @Test
+    void testImport_ResumesAfterLastCheckpointedChunk() throws Exception {
+        // Arrange
+        Path source = tempDir.resolve("scores.csv");
+        Files.writeString(source, "uuid,userId,score\n"
+            + "board-uuid,user1,10\n"
+            + "board-uuid,user2,20\n"
+            + "board-uuid,user3,30\n"
+            + "board-uuid,user4,40\n"
+            + "board-uuid,user5,50\n");
+        doAnswer(invocation -> recordImport(invocation.getArgument(1)))
+            .doThrow(new RuntimeException("Redis is not available"))
+            .when(leaderboardService).importScores(any(), anyList());
+        assertThrows(RuntimeException.class, () -> processor().importScores(source));
+        assertTrue(Files.readString(tempDir.resolve("scores.csv.checkpoint")).contains("\"rowsImported\":2"));
+        
+        importedUserIds.clear();
+        doAnswer(invocation -> recordImport(invocation.getArgument(1)))
+            .when(leaderboardService).importScores(any(), anyList());
+        
+        // Act
+        long imported = processor().importScores(source);
+        
+        // Assert
+        assertEquals(3, imported);
+        assertEquals(List.of("user3", "user4", "user5"), importedUserIds);
+        assertFalse(Files.exists(tempDir.resolve("scores.csv.checkpoint")));
+        verify(leaderboardService).refreshMaterializedRanks(Set.of("board-1"));
+    }
+    
+    @Test
+    void testImport_KeepsLastRowOfRepeatedUser() throws Exception {
+        // Arrange
+        Path source = tempDir.resolve("scores.ndjson");
+        Files.writeString(source, "{\"uuid\":\"board-uuid\",\"userId\":\"user1\",\"score\":10}\n"
+            + "{\"uuid\":\"board-uuid\",\"userId\":\"user2\",\"score\":20}\n"
+            + "{\"uuid\":\"board-uuid\",\"userId\":\"user1\",\"score\":30,\"timestamp\":\"2024-01-15T10:30:00Z\"}\n");
+        List<UserScore> batch = new ArrayList<>();
+        doAnswer(invocation -> batch.addAll(invocation.getArgument(1)))
+            .when(leaderboardService).importScores(any(), anyList());
+        
+        ScoreImportProcessor processor = processor();
+        ReflectionTestUtils.setField(processor, "chunkSize", 100);
+        
+        // Act
+        long imported = processor.importScores(source);
+        
+        // Assert
+        assertEquals(3, imported);
+        assertEquals(2, batch.size());
+        assertEquals("user1", batch.get(0).getUserId());
+        assertEquals(30.0, batch.get(0).getScore());
+        assertEquals("2024-01-15T10:30:00Z", batch.get(0).getTimestamp().toString());
+        assertEquals(Files.getLastModifiedTime(source).toInstant(), batch.get(1).getTimestamp());
+    }
+    
+    private Object recordImport(List<UserScore> userScores) {
+        userScores.forEach(userScore -> importedUserIds.add(userScore.getUserId()));
+        return null;
+    }
+    
+    private ScoreImportProcessor processor() {
+        ScoreImportProcessor processor = new ScoreImportProcessor(leaderboardService, mock(ApplicationContext.class));
+        ReflectionTestUtils.setField(processor, "chunkSize", 2);
+        ReflectionTestUtils.setField(processor, "batchSize", 10);
+        ReflectionTestUtils.setField(processor, "parallelism", 1);
+        ReflectionTestUtils.setField(processor, "defaultLeaderboardUuid", "");
+        return processor;
+    }
+}
@@ -0,0 +1,91 @@
+package com.leaderboard.platform.service;
+
+import com.leaderboard.platform.model.Leaderboard;
+import com.leaderboard.platform.model.UserScore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreWriteCombinerTest {
+    
+    private final Leaderboard leaderboard = Leaderboard.builder().uuid("uuid-1").leaderboardId("board-1").build();
+    private final List<List<UserScore>> batches = Collections.synchronizedList(new ArrayList<>());
+    
+    @Test
+    void testConcurrentWrites_AreWrittenAsOneBatchWithRepeatedUsersCollapsed() throws Exception {
+        // Arrange
+        ScoreWriteCombiner combiner = new ScoreWriteCombiner(1000, 100, this::rankInSubmissionOrder);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch start = new CountDownLatch(1);
+        
+        // Act
+        List<Future<UserScore>> results = new ArrayList<>();
+        for (String userId : List.of("user1", "user2", "user1")) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return combiner.write(leaderboard, userScore(userId, 10.0));
+            }));
+        }
+        start.countDown();
+        
+        // Assert
+        UserScore first = results.get(0).get(5, TimeUnit.SECONDS);
+        UserScore second = results.get(1).get(5, TimeUnit.SECONDS);
+        UserScore repeated = results.get(2).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertSame(first, repeated);
+        assertEquals("user2", second.getUserId());
+        assertNotEquals(first.getRank(), second.getRank());
+    }
+    
+    @Test
+    void testFullBatch_IsWrittenBeforeMaxDelayAndFailuresReachEveryCaller() throws Exception {
+        // Arrange
+        ScoreWriteCombiner combiner = new ScoreWriteCombiner(60_000, 2, (board, userScores) -> {
+            batches.add(userScores);
+            throw new RuntimeException("Failed to update scores");
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        
+        // Act
+        Future<?> first = executor.submit(() -> combiner.write(leaderboard, userScore("user1", 10.0)));
+        Future<?> second = executor.submit(() -> combiner.write(leaderboard, userScore("user2", 20.0)));
+        
+        // Assert
+        Exception firstFailure = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        Exception secondFailure = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals("Failed to update scores", firstFailure.getCause().getMessage());
+        assertEquals("Failed to update scores", secondFailure.getCause().getMessage());
+        assertEquals(1, batches.size());
+    }
+    
+    private List<UserScore> rankInSubmissionOrder(Leaderboard board, List<UserScore> userScores) {
+        batches.add(userScores);
+        for (int i = 0; i < userScores.size(); i++) {
+            userScores.get(i).setRank(i + 1);
+        }
+        return userScores;
+    }
+    
+    private UserScore userScore(String userId, double score) {
+        return UserScore.builder()
+            .userId(userId)
+            .leaderboardId(leaderboard.getLeaderboardId())
+            .score(score)
+            .timestamp(Instant.now())
+            .build();
+    }
+}